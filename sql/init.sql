@@ -36,11 +36,25 @@ CREATE TABLE carts
     userid    BIGINT NOT NULL,
     productid BIGINT NOT NULL,
     quantity   INT    NOT NULL,
+    lastmodified DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (userid, productid),
     FOREIGN KEY (productid) REFERENCES products (productid),
     FOREIGN KEY (userid) REFERENCES users (userid)
 );
 
+-- lines of carts purged for being idle, when cart.expiry.archive is set
+DROP TABLE IF EXISTS carts_archive;
+CREATE TABLE carts_archive
+(
+    archiveid    BIGINT AUTO_INCREMENT PRIMARY KEY,
+    userid       BIGINT   NOT NULL,
+    productid    BIGINT   NOT NULL,
+    quantity     INT      NOT NULL,
+    lastmodified DATETIME NOT NULL,
+    archivedat   DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX (userid)
+);
+
 commit;
 
 -- insert seed data
@@ -0,0 +1,78 @@
+package com.maersk.shoppingcart.benchmark;
+
+import com.maersk.shoppingcart.ShoppingCartApplication;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Seeds products 1..productCount and a cart holding the first cartSize of them for benchmark user. The last product
+ * is always left out of the cart, so a cart as large as the catalog gets one extra product to add.
+ *
+ * @author Sumit Kumar
+ */
+final class BenchmarkData {
+
+    static final Integer USER_ID = 1;
+    static final int MAX_ALLOWED = 10;
+    private static final int INITIAL_QUANTITY = 1;
+    private static final int CHUNK_SIZE = 1000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Starts the application without web layer against an empty embedded H2 database
+     */
+    static ConfigurableApplicationContext startH2Context(String... args) {
+        List<String> allArgs = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--cart.item.max.allowed=" + MAX_ALLOWED));
+        allArgs.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(ShoppingCartApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs.toArray(new String[0]));
+    }
+
+    /**
+     * @returns ids of the products in stored order, products without assigned id get one from repository
+     */
+    static List<Integer> populate(ProductRepository productRepository, CartRepository cartRepository,
+            int productCount, int cartSize) {
+        int seededProducts = Math.max(productCount, cartSize + 1);
+        List<Integer> productIds = new ArrayList<>(seededProducts);
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 1; i <= seededProducts; i++) {
+            Product product = new Product();
+            product.setProductId(i);
+            product.setName("product-" + i);
+            product.setCost(Money.times(Money.of("10.25"), i % 100 + 1));
+            chunk.add(product);
+            if (chunk.size() == CHUNK_SIZE || i == seededProducts) {
+                productRepository.saveAll(chunk).forEach(p -> productIds.add(p.getProductId()));
+                chunk.clear();
+            }
+        }
+
+        List<Cart> carts = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            carts.add(InMemoryCartRepository.createCart(USER_ID, productIds.get(i), INITIAL_QUANTITY));
+        }
+        cartRepository.saveAll(carts);
+        return productIds;
+    }
+}
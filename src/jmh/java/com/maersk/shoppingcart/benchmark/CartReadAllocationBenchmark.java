@@ -0,0 +1,78 @@
+package com.maersk.shoppingcart.benchmark;
+
+import static com.maersk.shoppingcart.benchmark.BenchmarkData.USER_ID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.service.CartService;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares a whole cart GET read as CartDetails through JPA with one read as CartLines through JDBC, each written to
+ * JSON by the application ObjectMapper. Meant to be run with the GC profiler, gc.alloc.rate.norm gives bytes
+ * allocated per GET.
+ *
+ * @author Sumit Kumar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartReadAllocationBenchmark {
+
+    @Param({"10", "100"})
+    private int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private ObjectMapper objectMapper;
+    private ByteArrayOutputStream output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkData.startH2Context();
+        BenchmarkData.populate(context.getBean(ProductRepository.class), context.getBean(CartRepository.class),
+                cartSize, cartSize);
+        cartService = context.getBean(CartService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        output = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int cartDetailsToJson() throws IOException {
+        output.reset();
+        objectMapper.writeValue(output, cartService.getCartDetails(USER_ID));
+        return output.size();
+    }
+
+    @Benchmark
+    public int cartLinesToJson() throws IOException {
+        output.reset();
+        objectMapper.writeValue(output, cartService.getCartLines(USER_ID));
+        return output.size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.maersk.shoppingcart.benchmark;
+
+import static com.maersk.shoppingcart.benchmark.BenchmarkData.MAX_ALLOWED;
+import static com.maersk.shoppingcart.benchmark.BenchmarkData.USER_ID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.service.CartService;
+import com.maersk.shoppingcart.service.CartShards;
+import com.maersk.shoppingcart.service.CartSummaryService;
+import com.maersk.shoppingcart.service.CartVersions;
+import com.maersk.shoppingcart.service.CartWriteBehindService;
+import com.maersk.shoppingcart.service.DatabaseCartStore;
+import com.maersk.shoppingcart.service.ProductService;
+import com.maersk.shoppingcart.service.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+
+/**
+ * Measures CartService and CartDetails serialization against in-memory repositories, so numbers reflect service
+ * layer cost only
+ *
+ * @author Sumit Kumar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartServiceBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int cartSize;
+
+    @Param({"1000", "10000"})
+    private int productCount;
+
+    private CartService cartService;
+    private ObjectMapper objectMapper;
+    private CartDetails cartDetails;
+    private Integer cartProductId;
+    private Integer newProductId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryProductRepository productRepository = new InMemoryProductRepository();
+        InMemoryCartRepository cartRepository = new InMemoryCartRepository(productRepository);
+        List<Integer> productIds = BenchmarkData.populate(productRepository, cartRepository, productCount, cartSize);
+
+        CartShards cartShards = new CartShards(new String[0], 0, 160);
+        CartSummaryService cartSummaryService = new CartSummaryService(cartRepository, cartShards, 1000,
+                Duration.ofMinutes(10), true);
+        CartVersions cartVersions = new CartVersions(1000, Duration.ofMinutes(10), true);
+        ReadYourWrites readYourWrites = new ReadYourWrites(new String[0], Duration.ofSeconds(5), 1000);
+        ProductService productService = new ProductService(productRepository, cartSummaryService, cartVersions,
+                new NoOpCacheManager());
+        // write-behind is disabled, so it never needs a database
+        CartWriteBehindService cartWriteBehindService = new CartWriteBehindService(cartRepository, productService,
+                cartSummaryService, cartVersions, readYourWrites, cartShards, null, null, new SimpleMeterRegistry(),
+                MAX_ALLOWED, false, Duration.ofMillis(100), 1000);
+        cartService = new CartService(new DatabaseCartStore(cartRepository), productService, cartSummaryService,
+                cartVersions, cartWriteBehindService, readYourWrites, cartShards, MAX_ALLOWED);
+        objectMapper = new ObjectMapper();
+        cartDetails = cartService.getCartDetails(USER_ID);
+        cartProductId = productIds.get(0);
+        newProductId = productIds.get(productIds.size() - 1);
+    }
+
+    @Benchmark
+    public CartDetails getCartDetails() {
+        return cartService.getCartDetails(USER_ID);
+    }
+
+    @Benchmark
+    public CartSummary getCartSummary() {
+        return cartService.getCartSummary(USER_ID);
+    }
+
+    @Benchmark
+    public void updateCart() {
+        cartService.updateCart(USER_ID, cartProductId, 1);
+        cartService.updateCart(USER_ID, cartProductId, -1);
+    }
+
+    @Benchmark
+    public void addProductToCart() {
+        cartService.addProductToCart(USER_ID, newProductId, 1);
+        cartService.deleteItemFromCart(USER_ID, newProductId);
+    }
+
+    @Benchmark
+    public byte[] serializeCartDetails() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cartDetails);
+    }
+}
@@ -0,0 +1,91 @@
+package com.maersk.shoppingcart.benchmark;
+
+import static com.maersk.shoppingcart.benchmark.BenchmarkData.USER_ID;
+
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.service.CartService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures CartService through Spring Data JPA and Hibernate against embedded H2, no web layer involved
+ *
+ * @author Sumit Kumar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartServiceH2Benchmark {
+
+    @Param({"1", "10", "100"})
+    private int cartSize;
+
+    @Param({"1000", "10000"})
+    private int productCount;
+
+    @Param({"database", "memory"})
+    private String cartStore;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private Integer cartProductId;
+    private Integer newProductId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkData.startH2Context("--cart.store.type=" + cartStore);
+
+        List<Integer> productIds = BenchmarkData.populate(context.getBean(ProductRepository.class),
+                context.getBean(CartRepository.class), productCount, cartSize);
+        cartService = context.getBean(CartService.class);
+        cartProductId = productIds.get(0);
+        newProductId = productIds.get(productIds.size() - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartDetails getCartDetails() {
+        return cartService.getCartDetails(USER_ID);
+    }
+
+    @Benchmark
+    public CartSummary getCartSummary() {
+        return cartService.getCartSummary(USER_ID);
+    }
+
+    @Benchmark
+    public void updateCart() {
+        cartService.updateCart(USER_ID, cartProductId, 1);
+        cartService.updateCart(USER_ID, cartProductId, -1);
+    }
+
+    @Benchmark
+    public void addProductToCart() {
+        cartService.addProductToCart(USER_ID, newProductId, 1);
+        cartService.deleteItemFromCart(USER_ID, newProductId);
+    }
+}
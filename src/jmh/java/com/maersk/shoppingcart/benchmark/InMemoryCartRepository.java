@@ -0,0 +1,247 @@
+package com.maersk.shoppingcart.benchmark;
+
+import com.maersk.shoppingcart.dto.CartExportLine;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.entity.CartPrimaryKey;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Map backed CartRepository mirroring the semantics of the SQL behind each query method
+ *
+ * @author Sumit Kumar
+ */
+public class InMemoryCartRepository implements CartRepository {
+
+    private final Map<Integer, TreeMap<Integer, Cart>> carts = new HashMap<>();
+    private final ProductRepository productRepository;
+
+    public InMemoryCartRepository(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public Optional<Cart> findByUserIdAndProductId(Integer userId, Integer productId) {
+        return Optional.ofNullable(linesOf(userId).get(productId));
+    }
+
+    @Override
+    public void deleteByUserIdAndProductId(Integer userId, Integer productId) {
+        linesOf(userId).remove(productId);
+    }
+
+    @Override
+    public List<Cart> findAllByUserId(Integer userId) {
+        return new ArrayList<>(linesOf(userId).values());
+    }
+
+    @Override
+    public List<Cart> findAllByUserIdForUpdate(Integer userId) {
+        return findAllByUserId(userId);
+    }
+
+    @Override
+    public int insert(Integer userId, Integer productId, int quantity) {
+        if (linesOf(userId).containsKey(productId)) {
+            throw new DataIntegrityViolationException("Duplicate entry for key PRIMARY");
+        }
+        save(createCart(userId, productId, quantity));
+        return 1;
+    }
+
+    @Override
+    public int insertOrMergeQuantity(Integer userId, Integer productId, int quantity, int maxAllowed) {
+        Cart cart = linesOf(userId).get(productId);
+        if (cart == null) {
+            save(createCart(userId, productId, quantity));
+            return 1;
+        }
+        cart.setQuantity(Math.min(cart.getQuantity() + quantity, maxAllowed));
+        return 2;
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetailsByUserId(Integer userId) {
+        List<ProductDetails> productDetails = new ArrayList<>();
+        for (Cart cart : linesOf(userId).values()) {
+            Optional<Product> product = productRepository.findById(cart.getProductId());
+            product.ifPresent(p -> productDetails.add(
+                    new ProductDetails(cart.getProductId(), cart.getQuantity(), p.getCost())));
+        }
+        return productDetails;
+    }
+
+    @Override
+    public CartLines findCartLinesByUserId(Integer userId) {
+        CartLines lines = new CartLines(linesOf(userId).size());
+        for (Cart cart : linesOf(userId).values()) {
+            productRepository.findById(cart.getProductId()).ifPresent(p ->
+                    lines.add(cart.getProductId(), cart.getQuantity(), p.getCost()));
+        }
+        return lines;
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetailsPageByUserId(Integer userId, Integer after, Pageable pageable) {
+        List<ProductDetails> productDetails = new ArrayList<>();
+        for (Cart cart : page(userId, after, pageable)) {
+            productRepository.findById(cart.getProductId()).ifPresent(p -> productDetails.add(
+                    new ProductDetails(cart.getProductId(), cart.getQuantity(), p.getCost())));
+        }
+        return productDetails;
+    }
+
+    @Override
+    public List<ProductDetails> findQuantitiesPageByUserId(Integer userId, Integer after, Pageable pageable) {
+        List<ProductDetails> productDetails = new ArrayList<>();
+        for (Cart cart : page(userId, after, pageable)) {
+            productDetails.add(new ProductDetails(cart.getProductId(), cart.getQuantity()));
+        }
+        return productDetails;
+    }
+
+    private List<Cart> page(Integer userId, Integer after, Pageable pageable) {
+        TreeMap<Integer, Cart> lines = carts.getOrDefault(userId, new TreeMap<>());
+        List<Cart> page = new ArrayList<>(lines.tailMap(after, false).values());
+        return pageable.isPaged() && page.size() > pageable.getPageSize()
+                ? page.subList(0, pageable.getPageSize())
+                : page;
+    }
+
+    @Override
+    public CartSummary summarizeByUserId(Integer userId) {
+        CartSummary summary = CartSummary.EMPTY;
+        for (ProductDetails productDetails : findProductDetailsByUserId(userId)) {
+            summary = summary.plus(CartSummary.ofChange(1, productDetails.getQuantity(), productDetails.getCost()));
+        }
+        return summary;
+    }
+
+    @Override
+    public Stream<CartExportLine> streamAllForExport() {
+        return carts.keySet().stream().sorted()
+                .flatMap(userId -> findProductDetailsByUserId(userId).stream()
+                        .map(details -> new CartExportLine(userId, details.getProductId(), details.getQuantity(),
+                                details.getCost())));
+    }
+
+    @Override
+    public int updateQuantity(Integer userId, Integer productId, int changed, int maxAllowed) {
+        Cart cart = linesOf(userId).get(productId);
+        if (cart == null) {
+            return 0;
+        }
+        int updatedQuantity = cart.getQuantity() + changed;
+        if (updatedQuantity < 1 || updatedQuantity > maxAllowed) {
+            return 0;
+        }
+        cart.setQuantity(updatedQuantity);
+        return 1;
+    }
+
+    @Override
+    public int deleteIfQuantityDropsToZero(Integer userId, Integer productId, int changed) {
+        Cart cart = linesOf(userId).get(productId);
+        if (cart == null || cart.getQuantity() + changed != 0) {
+            return 0;
+        }
+        linesOf(userId).remove(productId);
+        return 1;
+    }
+
+    @Override
+    public <S extends Cart> S save(S cart) {
+        carts.computeIfAbsent(cart.getUserId(), userId -> new TreeMap<>()).put(cart.getProductId(), cart);
+        return cart;
+    }
+
+    @Override
+    public <S extends Cart> Iterable<S> saveAll(Iterable<S> carts) {
+        carts.forEach(this::save);
+        return carts;
+    }
+
+    @Override
+    public Optional<Cart> findById(CartPrimaryKey id) {
+        return findByUserIdAndProductId(id.getUserId(), id.getProductId());
+    }
+
+    @Override
+    public boolean existsById(CartPrimaryKey id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Iterable<Cart> findAll() {
+        List<Cart> all = new ArrayList<>();
+        carts.values().forEach(lines -> all.addAll(lines.values()));
+        return all;
+    }
+
+    @Override
+    public Iterable<Cart> findAllById(Iterable<CartPrimaryKey> ids) {
+        List<Cart> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return carts.values().stream().mapToLong(Map::size).sum();
+    }
+
+    @Override
+    public void deleteById(CartPrimaryKey id) {
+        // like SimpleJpaRepository, deleting a missing line fails
+        delete(findById(id).orElseThrow(() -> new EmptyResultDataAccessException(
+                "No cart line of user " + id.getUserId() + " for product " + id.getProductId(), 1)));
+    }
+
+    @Override
+    public void delete(Cart cart) {
+        linesOf(cart.getUserId()).remove(cart.getProductId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends CartPrimaryKey> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Cart> carts) {
+        carts.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        carts.clear();
+    }
+
+    private Map<Integer, Cart> linesOf(Integer userId) {
+        TreeMap<Integer, Cart> lines = carts.get(userId);
+        return lines == null ? Collections.emptyMap() : lines;
+    }
+
+    static Cart createCart(Integer userId, Integer productId, int quantity) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.setProductId(productId);
+        cart.setQuantity(quantity);
+        return cart;
+    }
+}
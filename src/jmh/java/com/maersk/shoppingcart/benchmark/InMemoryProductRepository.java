@@ -0,0 +1,99 @@
+package com.maersk.shoppingcart.benchmark;
+
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Map backed ProductRepository, lets benchmarks measure service code without any database
+ *
+ * @author Sumit Kumar
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    private final Map<Integer, Product> products = new HashMap<>();
+
+    @Override
+    public Set<Integer> findExistingProductIds(Collection<Integer> productIds) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer productId : productIds) {
+            if (products.containsKey(productId)) {
+                existing.add(productId);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public <S extends Product> S save(S product) {
+        products.put(product.getProductId(), product);
+        return product;
+    }
+
+    @Override
+    public <S extends Product> Iterable<S> saveAll(Iterable<S> products) {
+        products.forEach(this::save);
+        return products;
+    }
+
+    @Override
+    public Optional<Product> findById(Integer productId) {
+        return Optional.ofNullable(products.get(productId));
+    }
+
+    @Override
+    public boolean existsById(Integer productId) {
+        return products.containsKey(productId);
+    }
+
+    @Override
+    public Iterable<Product> findAll() {
+        return new ArrayList<>(products.values());
+    }
+
+    @Override
+    public Iterable<Product> findAllById(Iterable<Integer> productIds) {
+        List<Product> found = new ArrayList<>();
+        for (Integer productId : productIds) {
+            findById(productId).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return products.size();
+    }
+
+    @Override
+    public void deleteById(Integer productId) {
+        products.remove(productId);
+    }
+
+    @Override
+    public void delete(Product product) {
+        products.remove(product.getProductId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Integer> productIds) {
+        productIds.forEach(products::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Product> products) {
+        products.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        products.clear();
+    }
+}
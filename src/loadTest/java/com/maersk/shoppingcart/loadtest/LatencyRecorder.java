@@ -0,0 +1,59 @@
+package com.maersk.shoppingcart.loadtest;
+
+import com.maersk.shoppingcart.loadtest.RequestMix.Operation;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Collects response times in microseconds and failed request counts per operation, shared by all load test clients
+ *
+ * @author Sumit Kumar
+ */
+final class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+        recorders.get(operation).recordValue(micros);
+        if (!success) {
+            failures.get(operation).increment();
+        }
+    }
+
+    /**
+     * discards everything recorded so far, called once warm up is over
+     */
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        failures.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * @returns histograms of everything recorded since the last reset, by operation
+     */
+    Map<Operation, Histogram> histograms() {
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    long failures(Operation operation) {
+        return failures.get(operation).sum();
+    }
+}
@@ -0,0 +1,90 @@
+package com.maersk.shoppingcart.loadtest;
+
+import com.maersk.shoppingcart.loadtest.RequestMix.Operation;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Prints throughput and p50/p99/p999 latency per operation and writes the full percentile distribution of every
+ * operation as .hgrm file, which can be plotted with the HdrHistogram plotter to compare runs
+ *
+ * @author Sumit Kumar
+ */
+final class LatencyReport {
+
+    private static final String ROW_FORMAT = "%-8s %10s %10s %10s %10s %10s %10s %10s%n";
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LoadTestOptions options;
+    private final Map<Operation, Histogram> histograms;
+    private final Map<Operation, Long> failures;
+    private final Duration elapsed;
+
+    LatencyReport(LoadTestOptions options, Map<Operation, Histogram> histograms, Map<Operation, Long> failures,
+            Duration elapsed) {
+        this.options = options;
+        this.histograms = histograms;
+        this.failures = failures;
+        this.elapsed = elapsed;
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.println("Load test: " + options);
+        out.printf("Measured %.1fs, latencies in milliseconds%n", elapsed.toMillis() / 1000.0);
+        out.printf(ROW_FORMAT, "op", "requests", "failed", "req/s", "p50", "p99", "p999", "max");
+
+        Histogram total = null;
+        long totalFailures = 0;
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            long failed = failures.get(entry.getKey());
+            printRow(out, entry.getKey().name(), histogram, failed);
+            if (total == null) {
+                total = histogram.copy();
+            } else {
+                total.add(histogram);
+            }
+            totalFailures += failed;
+        }
+        if (total != null) {
+            printRow(out, "ALL", total, totalFailures);
+        }
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")), false,
+                StandardCharsets.UTF_8)) {
+            print(out);
+        }
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long failed) {
+        out.printf(ROW_FORMAT, name, histogram.getTotalCount(), failed,
+                String.format("%.1f", histogram.getTotalCount() * 1000.0 / Math.max(elapsed.toMillis(), 1)),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / MICROS_PER_MILLI);
+    }
+}
@@ -0,0 +1,189 @@
+package com.maersk.shoppingcart.loadtest;
+
+import com.maersk.shoppingcart.loadtest.RequestMix.Operation;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single simulated client with its own connection, it owns a disjoint set of users and keeps a model of their carts
+ * so updates and deletes target lines that exist and responses other than 200 show up as failures
+ *
+ * <p>With a rate per client the requests follow a fixed schedule and latency is measured from the time a request was
+ * due rather than sent, so a stalled server is not hidden by clients that stop sending (coordinated omission).
+ *
+ * @author Sumit Kumar
+ */
+final class LoadClient implements Callable<Void> {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final int MAX_PRODUCT_PICKS = 10;
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String authorization;
+    private final List<Integer> userIds;
+    private final List<Map<Integer, Integer>> carts;
+    private final RequestMix mix;
+    private final int products;
+    private final int itemMaxAllowed;
+    private final long intervalNanos;
+    private final boolean conditionalGet;
+    // last ETag per polled path
+    private final Map<String, String> etags = new HashMap<>();
+    private final LatencyRecorder recorder;
+    private final AtomicBoolean running;
+    private final Random random;
+
+    LoadClient(HttpClient httpClient, URI baseUri, String authorization, List<Integer> userIds,
+            List<Map<Integer, Integer>> carts, LoadTestOptions options, int itemMaxAllowed, long seed,
+            LatencyRecorder recorder, AtomicBoolean running) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.authorization = authorization;
+        this.userIds = userIds;
+        this.carts = carts;
+        this.mix = options.getMix();
+        this.products = options.getProducts();
+        this.itemMaxAllowed = itemMaxAllowed;
+        this.intervalNanos = options.getRatePerClient() == 0 ? 0 : 1_000_000_000L / options.getRatePerClient();
+        this.conditionalGet = options.isConditionalGet();
+        this.recorder = recorder;
+        this.running = running;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Void call() throws InterruptedException {
+        long nextStart = System.nanoTime();
+        while (running.get()) {
+            long intendedStart;
+            if (intervalNanos > 0) {
+                long wait = nextStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                intendedStart = nextStart;
+                nextStart += intervalNanos;
+            } else {
+                intendedStart = System.nanoTime();
+            }
+
+            int index = random.nextInt(userIds.size());
+            Operation operation = chooseOperation(carts.get(index), mix.next(random));
+            boolean success = send(operation, userIds.get(index), carts.get(index));
+            recorder.record(operation, System.nanoTime() - intendedStart, success);
+        }
+        return null;
+    }
+
+    /**
+     * updates and deletes need a line in the cart, an empty cart gets a new item instead
+     */
+    private Operation chooseOperation(Map<Integer, Integer> cart, Operation operation) {
+        if (cart.isEmpty() && (operation == Operation.PUT || operation == Operation.DELETE)) {
+            return Operation.POST;
+        }
+        return operation;
+    }
+
+    private boolean send(Operation operation, Integer userId, Map<Integer, Integer> cart)
+            throws InterruptedException {
+        try {
+            switch (operation) {
+                case GET:
+                    return poll("/cart/" + userId);
+                case SUMMARY:
+                    return poll("/cart/" + userId + "?summary=true");
+                case COUNT:
+                    return execute(request("/cart/" + userId + "/" + (random.nextInt(products) + 1) + "/").GET());
+                case POST:
+                    return addItem(userId, cart);
+                case PUT:
+                    return updateItem(userId, cart);
+                case DELETE:
+                    return deleteItem(userId, cart);
+                default:
+                    throw new IllegalStateException("Unknown operation: " + operation);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean addItem(Integer userId, Map<Integer, Integer> cart) throws IOException, InterruptedException {
+        int productId = random.nextInt(products) + 1;
+        for (int i = 0; i < MAX_PRODUCT_PICKS && cart.containsKey(productId); i++) {
+            productId = random.nextInt(products) + 1;
+        }
+        // every product may already be in the cart, merge keeps the request valid in that case
+        boolean merge = cart.containsKey(productId);
+        boolean success = execute(request("/cart/" + userId + "/" + productId + "/?quantity=1&merge=" + merge)
+                .POST(BodyPublishers.noBody()));
+        if (success) {
+            cart.merge(productId, 1, (current, added) -> Math.min(current + added, itemMaxAllowed));
+        }
+        return success;
+    }
+
+    private boolean updateItem(Integer userId, Map<Integer, Integer> cart) throws IOException, InterruptedException {
+        Integer productId = randomLine(cart);
+        int quantity = cart.get(productId);
+        int changed = quantity < itemMaxAllowed && (quantity == 1 || random.nextBoolean()) ? 1 : -1;
+        boolean success = execute(request("/cart/" + userId + "/" + productId + "/?changed=" + changed)
+                .PUT(BodyPublishers.noBody()));
+        if (success) {
+            cart.put(productId, quantity + changed);
+        }
+        return success;
+    }
+
+    private boolean deleteItem(Integer userId, Map<Integer, Integer> cart) throws IOException, InterruptedException {
+        Integer productId = randomLine(cart);
+        boolean success = execute(request("/cart/" + userId + "/" + productId + "/").DELETE());
+        if (success) {
+            cart.remove(productId);
+        }
+        return success;
+    }
+
+    private boolean poll(String path) throws IOException, InterruptedException {
+        HttpRequest.Builder request = request(path).GET();
+        if (!conditionalGet) {
+            return execute(request);
+        }
+        String etag = etags.get(path);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<Void> response = httpClient.send(request.build(), BodyHandlers.discarding());
+        response.headers().firstValue("ETag").ifPresent(tag -> etags.put(path, tag));
+        return response.statusCode() == HTTP_OK || response.statusCode() == HTTP_NOT_MODIFIED;
+    }
+
+    private Integer randomLine(Map<Integer, Integer> cart) {
+        List<Integer> productIds = new ArrayList<>(cart.keySet());
+        return productIds.get(random.nextInt(productIds.size()));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).header("Authorization", authorization);
+    }
+
+    private boolean execute(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), BodyHandlers.discarding()).statusCode() == HTTP_OK;
+    }
+}
@@ -0,0 +1,170 @@
+package com.maersk.shoppingcart.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, parsed from --name=value arguments, every setting has a default suitable for a laptop run
+ *
+ * @author Sumit Kumar
+ */
+final class LoadTestOptions {
+
+    private final int users;
+    private final int products;
+    private final int cartSize;
+    private final int clients;
+    private final int ratePerClient;
+    private final Duration warmup;
+    private final Duration duration;
+    private final RequestMix mix;
+    private final long seed;
+    private final Path outputDirectory;
+    private final String username;
+    private final String password;
+    private final boolean writeBehind;
+    private final boolean conditionalGet;
+    private final String executionMode;
+    private final int tomcatThreads;
+    private final String stack;
+
+    private LoadTestOptions(Map<String, String> values) {
+        users = Integer.parseInt(values.getOrDefault("users", "5000"));
+        products = Integer.parseInt(values.getOrDefault("products", "2000"));
+        cartSize = Integer.parseInt(values.getOrDefault("cartSize", "5"));
+        clients = Integer.parseInt(values.getOrDefault("clients", "32"));
+        ratePerClient = Integer.parseInt(values.getOrDefault("ratePerClient", "0"));
+        warmup = Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmupSeconds", "10")));
+        duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault("durationSeconds", "30")));
+        mix = RequestMix.parse(values.getOrDefault("mix", RequestMix.DEFAULT));
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        outputDirectory = Paths.get(values.getOrDefault("output", "build/loadtest"));
+        username = values.getOrDefault("username", "admin");
+        password = values.getOrDefault("password", "password");
+        writeBehind = Boolean.parseBoolean(values.getOrDefault("writeBehind", "false"));
+        conditionalGet = Boolean.parseBoolean(values.getOrDefault("conditionalGet", "false"));
+        executionMode = values.getOrDefault("executionMode", "blocking");
+        tomcatThreads = Integer.parseInt(values.getOrDefault("tomcatThreads", "200"));
+        stack = values.getOrDefault("stack", "servlet");
+
+        if (users < clients) {
+            throw new IllegalArgumentException("users should not be less than clients, every client owns its users");
+        }
+        if (cartSize > products) {
+            throw new IllegalArgumentException("cartSize should not be greater than products");
+        }
+        if (!"servlet".equals(stack) && !"reactive".equals(stack)) {
+            throw new IllegalArgumentException("stack should be servlet or reactive");
+        }
+        if (isReactive() && (writeBehind || conditionalGet)) {
+            throw new IllegalArgumentException("writeBehind and conditionalGet are not offered by the reactive stack");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but was: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    int getUsers() {
+        return users;
+    }
+
+    int getProducts() {
+        return products;
+    }
+
+    int getCartSize() {
+        return cartSize;
+    }
+
+    int getClients() {
+        return clients;
+    }
+
+    /**
+     * @returns requests per second each client aims for, zero means every client sends as fast as it gets responses
+     */
+    int getRatePerClient() {
+        return ratePerClient;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    RequestMix getMix() {
+        return mix;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    /**
+     * @returns whether quantity updates are buffered and written to DB in batches by the application
+     */
+    boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * @returns whether clients poll carts with the last ETag they got, answered with 304 while the cart is unchanged
+     */
+    boolean isConditionalGet() {
+        return conditionalGet;
+    }
+
+    /**
+     * @returns cart.execution.mode of the application, blocking or async
+     */
+    String getExecutionMode() {
+        return executionMode;
+    }
+
+    int getTomcatThreads() {
+        return tomcatThreads;
+    }
+
+    /**
+     * @returns whether requests are served by the reactive application (WebFlux, R2DBC) instead of the servlet one
+     */
+    boolean isReactive() {
+        return "reactive".equals(stack);
+    }
+
+    @Override
+    public String toString() {
+        return "users=" + users + ", products=" + products + ", cartSize=" + cartSize + ", clients=" + clients
+                + ", ratePerClient=" + (ratePerClient == 0 ? "unbounded" : ratePerClient)
+                + ", warmup=" + warmup.getSeconds() + "s, duration=" + duration.getSeconds() + "s, mix=" + mix
+                + ", writeBehind=" + writeBehind + ", conditionalGet=" + conditionalGet
+                + ", executionMode=" + executionMode + ", tomcatThreads=" + tomcatThreads + ", stack=" + stack;
+    }
+}
@@ -0,0 +1,190 @@
+package com.maersk.shoppingcart.loadtest;
+
+import com.maersk.shoppingcart.ShoppingCartApplication;
+import com.maersk.shoppingcart.loadtest.RequestMix.Operation;
+import com.maersk.shoppingcart.reactive.ReactiveShoppingCartApplication;
+import com.maersk.shoppingcart.service.UserService;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots ShoppingCartApplication on embedded H2 with generated users, products and carts and drives the cart api over
+ * HTTP from concurrent clients, the full stack (security, endpoint, service, JPA) is exercised without external
+ * services. With --stack=reactive the load is served by ReactiveShoppingCartApplication on the same database. Run
+ * with ./gradlew loadTest -PloadTestArgs="--clients=64 --durationSeconds=60"
+ *
+ * @author Sumit Kumar
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShoppingCartApplication.class)
+                .initializers(LoadTestRunner::excludeReactiveComponents)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.autoconfigure.exclude=" + R2dbcAutoConfiguration.class.getName(),
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--cart.write-behind.enabled=" + options.isWriteBehind(),
+                        "--cart.execution.mode=" + options.getExecutionMode(),
+                        "--server.tomcat.threads.max=" + options.getTomcatThreads());
+        try {
+            List<Map<Integer, Integer>> carts = SeedData.populate(context.getBean(JdbcTemplate.class), options);
+            // users were inserted behind the back of the user index, which is loaded on startup
+            context.getBean(UserService.class).reloadUserIndex();
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            int itemMaxAllowed = context.getEnvironment().getProperty("cart.item.max.allowed", Integer.class, 5);
+            if (options.isReactive()) {
+                runReactive(options, carts, itemMaxAllowed);
+                return;
+            }
+            LatencyReport report = run(options, carts, URI.create("http://localhost:" + port), itemMaxAllowed);
+            report(options, report);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * The load test has both applications on its classpath, the servlet one is kept off the reactive components and
+     * R2DBC, which it would otherwise find in its scan
+     */
+    private static void excludeReactiveComponents(ConfigurableApplicationContext context) {
+        context.getBeanFactory().registerSingleton("reactiveExcludeFilter", new TypeExcludeFilter() {
+            @Override
+            public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+                return metadataReader.getClassMetadata().getClassName()
+                        .startsWith(ReactiveShoppingCartApplication.class.getPackageName() + ".");
+            }
+        });
+    }
+
+    /**
+     * The servlet application only created and seeded the tables, the reactive one serves the load on the same
+     * in-memory database. Tomcat, JDBC and JPA of the servlet application are on the classpath too, so Netty is
+     * asked for explicitly and JDBC / JPA are left off.
+     */
+    private static void runReactive(LoadTestOptions options, List<Map<Integer, Integer>> carts, int itemMaxAllowed)
+            throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReactiveShoppingCartApplication.class,
+                NettyServer.class)
+                .web(WebApplicationType.REACTIVE)
+                .run("--spring.config.name=" + ReactiveShoppingCartApplication.CONFIG_NAME,
+                        "--spring.autoconfigure.exclude=" + DataSourceAutoConfiguration.class.getName() + ","
+                                + DataSourceTransactionManagerAutoConfiguration.class.getName() + ","
+                                + HibernateJpaAutoConfiguration.class.getName(),
+                        "--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.r2dbc.username=sa",
+                        "--spring.r2dbc.password=",
+                        "--logging.level.root=WARN",
+                        "--cart.item.max.allowed=" + itemMaxAllowed);
+        try {
+            int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+            report(options, run(options, carts, URI.create("http://localhost:" + port), itemMaxAllowed));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Registered as a source of the reactive application only, not a component so the servlet scan skips it
+     */
+    static class NettyServer {
+
+        @Bean
+        NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+            return new NettyReactiveWebServerFactory();
+        }
+    }
+
+    private static void report(LoadTestOptions options, LatencyReport report) throws IOException {
+        report.print(System.out);
+        report.write(options.getOutputDirectory());
+        System.out.println("Percentile distributions written to " + options.getOutputDirectory().toAbsolutePath());
+    }
+
+    private static LatencyReport run(LoadTestOptions options, List<Map<Integer, Integer>> carts, URI baseUri,
+            int itemMaxAllowed) throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (options.getUsername() + ":" + options.getPassword()).getBytes(StandardCharsets.UTF_8));
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getClients());
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int client = 0; client < options.getClients(); client++) {
+            List<Integer> userIds = new ArrayList<>();
+            List<Map<Integer, Integer>> clientCarts = new ArrayList<>();
+            for (int userId = client + 1; userId <= options.getUsers(); userId += options.getClients()) {
+                userIds.add(userId);
+                clientCarts.add(carts.get(userId - 1));
+            }
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            futures.add(executor.submit(new LoadClient(httpClient, baseUri, authorization, userIds, clientCarts,
+                    options, itemMaxAllowed, options.getSeed() + client, recorder, running)));
+        }
+
+        TimeUnit.MILLISECONDS.sleep(options.getWarmup().toMillis());
+        recorder.reset();
+        long start = System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(options.getDuration().toMillis());
+        running.set(false);
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        executor.shutdown();
+
+        Map<Operation, Histogram> histograms = recorder.histograms();
+        Map<Operation, Long> failures = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            failures.put(operation, recorder.failures(operation));
+        }
+        return new LatencyReport(options, histograms, failures, elapsed);
+    }
+}
@@ -0,0 +1,68 @@
+package com.maersk.shoppingcart.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Relative weights of the cart operations sent by the load test, e.g. get=80,put=20
+ *
+ * @author Sumit Kumar
+ */
+final class RequestMix {
+
+    static final String DEFAULT = "get=40,summary=10,count=20,post=10,put=15,delete=5";
+
+    /**
+     * Requests sent against the cart api, one latency histogram is kept per operation
+     */
+    enum Operation {
+        GET, SUMMARY, COUNT, POST, PUT, DELETE
+    }
+
+    private final Map<Operation, Integer> weights;
+    private final int totalWeight;
+
+    private RequestMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("At least one operation should have a positive weight");
+        }
+    }
+
+    static RequestMix parse(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but was: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " should not be negative");
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        return new RequestMix(weights);
+    }
+
+    Operation next(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking an operation");
+    }
+
+    @Override
+    public String toString() {
+        return weights.entrySet().stream()
+                .map(entry -> entry.getKey().name().toLowerCase() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,66 @@
+package com.maersk.shoppingcart.loadtest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Generates users 1..users, products 1..products and a cart of cartSize distinct products per user, rows are written
+ * with plain JDBC batches so seeding thousands of users takes seconds
+ *
+ * @author Sumit Kumar
+ */
+final class SeedData {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int INITIAL_QUANTITY = 1;
+
+    private SeedData() {
+    }
+
+    /**
+     * @returns cart of every user indexed by userId - 1, each cart maps productId to quantity
+     */
+    static List<Map<Integer, Integer>> populate(JdbcTemplate jdbcTemplate, LoadTestOptions options) {
+        Random random = new Random(options.getSeed());
+
+        List<Object[]> users = new ArrayList<>(options.getUsers());
+        for (int userId = 1; userId <= options.getUsers(); userId++) {
+            users.add(new Object[]{userId, "user" + userId + "@loadtest.local", "password", "Load", "User" + userId});
+        }
+        insert(jdbcTemplate, "insert into users (userId, email, password, firstName, lastName) values (?, ?, ?, ?, ?)",
+                users);
+
+        List<Object[]> products = new ArrayList<>(options.getProducts());
+        for (int productId = 1; productId <= options.getProducts(); productId++) {
+            products.add(new Object[]{productId, "product-" + productId, "generated by load test",
+                    BigDecimal.valueOf(random.nextInt(10000) + 1, 2)});
+        }
+        insert(jdbcTemplate, "insert into products (productId, name, details, cost) values (?, ?, ?, ?)", products);
+
+        List<Map<Integer, Integer>> carts = new ArrayList<>(options.getUsers());
+        List<Object[]> lines = new ArrayList<>(options.getUsers() * options.getCartSize());
+        for (int userId = 1; userId <= options.getUsers(); userId++) {
+            Map<Integer, Integer> cart = new HashMap<>();
+            while (cart.size() < options.getCartSize()) {
+                int productId = random.nextInt(options.getProducts()) + 1;
+                if (cart.putIfAbsent(productId, INITIAL_QUANTITY) == null) {
+                    lines.add(new Object[]{userId, productId, INITIAL_QUANTITY});
+                }
+            }
+            carts.add(cart);
+        }
+        insert(jdbcTemplate, "insert into carts (userId, productId, quantity) values (?, ?, ?)", lines);
+        return carts;
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
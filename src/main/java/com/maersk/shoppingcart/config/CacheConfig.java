@@ -0,0 +1,16 @@
+package com.maersk.shoppingcart.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are backed by Caffeine, size and expiry are configured via spring.cache.caffeine.spec
+ *
+ * @author Sumit Kumar
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+}
@@ -0,0 +1,51 @@
+package com.maersk.shoppingcart.config;
+
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.service.CartStore;
+import com.maersk.shoppingcart.service.DatabaseCartStore;
+import com.maersk.shoppingcart.service.MemoryCartStore;
+import com.maersk.shoppingcart.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Picks the store of cart lines according to cart.store.type, database (default) or memory
+ *
+ * @author Sumit Kumar
+ */
+@Configuration
+public class CartStoreConfig {
+
+    public enum Type {
+        DATABASE, MEMORY
+    }
+
+    /**
+     * Memory store can't be combined with write-behind, whose flushes change lines behind the cached carts, and needs
+     * cart.single-instance, as cached carts don't see changes made through other instances
+     */
+    @Bean
+    public CartStore cartStore(CartRepository cartRepository, ProductService productService,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${cart.store.type:database}") Type type,
+            @Value("${cart.store.memory.max-carts:100000}") long maxCarts,
+            @Value("${cart.store.memory.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${cart.write-behind.enabled:false}") boolean writeBehindEnabled,
+            @Value("${cart.single-instance:true}") boolean singleInstance) {
+        if (type == Type.DATABASE) {
+            return new DatabaseCartStore(cartRepository);
+        }
+        if (writeBehindEnabled) {
+            throw new IllegalStateException("cart.store.type=memory can't be used with cart.write-behind.enabled");
+        }
+        if (!singleInstance) {
+            throw new IllegalStateException("cart.store.type=memory can only be used with cart.single-instance");
+        }
+        return new MemoryCartStore(cartRepository, productService, transactionManager, meterRegistry, maxCarts,
+                idleTimeout);
+    }
+}
@@ -0,0 +1,22 @@
+package com.maersk.shoppingcart.config;
+
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers QueryCounter with Hibernate so statements issued during a cart operation are counted
+ *
+ * @author Sumit Kumar
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new QueryCounter());
+    }
+}
@@ -0,0 +1,52 @@
+package com.maersk.shoppingcart.config;
+
+import com.maersk.shoppingcart.datasource.HikariPools;
+import com.maersk.shoppingcart.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * With cart.datasource.replica-urls set, spring.datasource.url becomes the primary and read-only transactions are
+ * served by the replicas, which share its credentials and driver. Every pool publishes hikaricp metrics under its
+ * own pool name.
+ *
+ * @author Sumit Kumar
+ */
+@Configuration
+@ConditionalOnProperty("cart.datasource.replica-urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${cart.datasource.replica-urls}") String[] replicaUrls,
+            @Value("${cart.datasource.max-pool-size:10}") int maxPoolSize) {
+        HikariDataSource primary = HikariPools.create(properties, properties.determineUrl(),
+                ReadWriteRoutingDataSource.PRIMARY, maxPoolSize, meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.length);
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.add(HikariPools.create(properties, replicaUrls[i].trim(),
+                    ReadWriteRoutingDataSource.REPLICA_PREFIX + i, maxPoolSize, meterRegistry));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, meterRegistry);
+    }
+
+    /**
+     * Connections are only taken on the first statement, once the transaction is known to be read-only or not
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
@@ -0,0 +1,60 @@
+package com.maersk.shoppingcart.config;
+
+import com.maersk.shoppingcart.datasource.HikariPools;
+import com.maersk.shoppingcart.datasource.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * With cart.shards.urls set, carts are spread by user over the shard databases and spring.datasource.url holds the
+ * shared products and users. Shards need copies of products and users for the queries joining them with carts. Can't
+ * be combined with {@link ReplicaDataSourceConfig}, both define the dataSource bean, so startup fails when both are
+ * set.
+ *
+ * @author Sumit Kumar
+ */
+@Configuration
+@ConditionalOnProperty("cart.shards.urls")
+public class ShardDataSourceConfig {
+
+    public ShardDataSourceConfig(@Value("${cart.datasource.replica-urls:#{null}}") String replicaUrls) {
+        // same condition as ReplicaDataSourceConfig
+        if (replicaUrls != null && !"false".equalsIgnoreCase(replicaUrls)) {
+            throw new IllegalStateException("cart.shards.urls can't be used with cart.datasource.replica-urls");
+        }
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${cart.shards.urls}") String[] shardUrls,
+            @Value("${cart.shards.max-pool-size:10}") int maxPoolSize) {
+        HikariDataSource shared = HikariPools.create(properties, properties.determineUrl(),
+                ShardRoutingDataSource.SHARED, maxPoolSize, meterRegistry);
+        List<HikariDataSource> shards = new ArrayList<>(shardUrls.length);
+        for (int i = 0; i < shardUrls.length; i++) {
+            shards.add(HikariPools.create(properties, shardUrls[i].trim(), ShardRoutingDataSource.SHARD_PREFIX + i,
+                    maxPoolSize, meterRegistry));
+        }
+        return new ShardRoutingDataSource(shared, shards, meterRegistry);
+    }
+
+    /**
+     * Connections are only taken on the first statement, once the shard of the user is selected
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
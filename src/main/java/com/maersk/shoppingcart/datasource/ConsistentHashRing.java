@@ -0,0 +1,71 @@
+package com.maersk.shoppingcart.datasource;
+
+import java.util.Arrays;
+
+/**
+ * Maps user ids onto shards through a ring of virtual nodes. Node positions depend only on shard and node number, so
+ * growing the ring from n to n + 1 shards moves only the users falling into ranges taken over by the new shard, about
+ * 1 / (n + 1) of them, and shrinking it only moves the users of the removed shard.
+ *
+ * @author Sumit Kumar
+ */
+public final class ConsistentHashRing {
+
+    private final int shardCount;
+    private final int virtualNodes;
+    // node positions in ascending order and the shard owning each of them
+    private final long[] positions;
+    private final int[] shards;
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount <= 0 || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Number of shards and virtual nodes should be positive");
+        }
+        this.shardCount = shardCount;
+        this.virtualNodes = virtualNodes;
+
+        int size = shardCount * virtualNodes;
+        long[] nodes = new long[size];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // position in the upper bits and shard in the lower ones, sorting keeps both together
+                nodes[shard * virtualNodes + node] = (mix(((long) shard << 32) | node) & ~0xFFFFL) | shard;
+            }
+        }
+        Arrays.sort(nodes);
+        this.positions = new long[size];
+        this.shards = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = nodes[i] & ~0xFFFFL;
+            shards[i] = (int) (nodes[i] & 0xFFFFL);
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * @returns shard owning the first node at or after the position of userId, wrapping around the ring
+     */
+    public int shardOf(int userId) {
+        long position = mix(userId);
+        int index = Arrays.binarySearch(positions, position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return shards[index == positions.length ? 0 : index];
+    }
+
+    // finalizer of SplitMix64, spreads consecutive ids evenly over the ring
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,32 @@
+package com.maersk.shoppingcart.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+/**
+ * Pools of routing datasources, sharing credentials and driver of spring.datasource
+ *
+ * @author Sumit Kumar
+ */
+public final class HikariPools {
+
+    private HikariPools() {
+    }
+
+    /**
+     * @returns pool publishing hikaricp metrics under its pool name
+     */
+    public static HikariDataSource create(DataSourceProperties properties, String url, String poolName,
+            int maxPoolSize, MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        pool.setPoolName(poolName);
+        pool.setMaximumPoolSize(maxPoolSize);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
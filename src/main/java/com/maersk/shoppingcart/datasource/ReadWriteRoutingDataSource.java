@@ -0,0 +1,91 @@
+package com.maersk.shoppingcart.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out connections of the primary pool, or of a replica pool in turn within read-only transactions. Routing is
+ * decided when a connection is taken, so this is to be wrapped in a LazyConnectionDataSourceProxy for the read-only
+ * flag of a transaction to be known by then. A read that has to see recent writes can require the primary for the
+ * current thread.
+ *
+ * @author Sumit Kumar
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA_PREFIX = "replica-";
+    public static final String CONNECTIONS_COUNTER = "cart.datasource.connections";
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Counter primaryConnections;
+    private final List<Counter> replicaConnections = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.primaryConnections = connectionsCounter(meterRegistry, PRIMARY);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+            replicaConnections.add(connectionsCounter(meterRegistry, REPLICA_PREFIX + i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Sends reads of the current thread to the primary until {@link #releasePrimary()}
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void releasePrimary() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PRIMARY_REQUIRED.get() != null) {
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        int replica = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        replicaConnections.get(replica).increment();
+        return REPLICA_PREFIX + replica;
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource replica : replicas) {
+            replica.close();
+        }
+        primary.close();
+    }
+
+    private static Counter connectionsCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder(CONNECTIONS_COUNTER)
+                .description("Connections taken from a pool by the read/write routing")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
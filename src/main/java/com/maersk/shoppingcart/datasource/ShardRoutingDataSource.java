@@ -0,0 +1,96 @@
+package com.maersk.shoppingcart.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard selected for the current thread, or of the shared database holding products and
+ * users when none is. Like {@link ReadWriteRoutingDataSource} routing is decided when a connection is taken, so this is
+ * to be wrapped in a LazyConnectionDataSourceProxy and the shard selected before the first statement of a transaction.
+ *
+ * @author Sumit Kumar
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String SHARED = "shared";
+    public static final String SHARD_PREFIX = "shard-";
+    public static final String CONNECTIONS_COUNTER = "cart.shard.connections";
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final HikariDataSource shared;
+    private final List<HikariDataSource> shards;
+    private final Counter sharedConnections;
+    private final List<Counter> shardConnections = new ArrayList<>();
+
+    public ShardRoutingDataSource(HikariDataSource shared, List<HikariDataSource> shards, MeterRegistry meterRegistry) {
+        this.shared = shared;
+        this.shards = shards;
+        this.sharedConnections = connectionsCounter(meterRegistry, SHARED);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(SHARED, shared);
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+            shardConnections.add(connectionsCounter(meterRegistry, SHARD_PREFIX + i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shared);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @returns shard selected for the current thread, null when connections go to the shared database
+     */
+    public static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * Selects the shard for connections taken by the current thread, null selects the shared database
+     */
+    public static void selectShard(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT_SHARD.get();
+        if (shard == null) {
+            sharedConnections.increment();
+            return SHARED;
+        }
+        shardConnections.get(shard).increment();
+        return shard;
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource shard : shards) {
+            shard.close();
+        }
+        shared.close();
+    }
+
+    private static Counter connectionsCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder(CONNECTIONS_COUNTER)
+                .description("Connections taken from a pool by the shard routing")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package com.maersk.shoppingcart.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.maersk.shoppingcart.money.MonetaryAmount;
 import java.util.List;
 
 /**
@@ -9,7 +11,11 @@ import java.util.List;
 public class CartDetails {
 
     private List<ProductDetails> productDetails;
-    private double totalCost;
+    @MonetaryAmount
+    private long totalCost;
+    // productId to pass as after for the next page, only set when more lines may follow
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer nextAfter;
 
     public List<ProductDetails> getProductDetails() {
         return productDetails;
@@ -19,19 +25,28 @@ public class CartDetails {
         this.productDetails = productDetails;
     }
 
-    public double getTotalCost() {
+    public long getTotalCost() {
         return totalCost;
     }
 
-    public void setTotalCost(double totalCost) {
+    public void setTotalCost(long totalCost) {
         this.totalCost = totalCost;
     }
 
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+
     @Override
     public String toString() {
         return "CartDetails{" +
                 "productDetails=" + productDetails +
                 ", totalCost=" + totalCost +
+                ", nextAfter=" + nextAfter +
                 '}';
     }
 }
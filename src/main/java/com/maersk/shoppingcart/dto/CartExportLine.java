@@ -0,0 +1,70 @@
+package com.maersk.shoppingcart.dto;
+
+import com.maersk.shoppingcart.money.MonetaryAmount;
+
+/**
+ * A cart line joined with the current cost of its product, as written by the cart export
+ *
+ * @author Sumit Kumar
+ */
+@SuppressWarnings("unused")
+public class CartExportLine {
+
+    private Integer userId;
+    private Integer productId;
+    private Integer quantity;
+    @MonetaryAmount
+    private long cost;
+
+    public CartExportLine() {
+    }
+
+    public CartExportLine(Integer userId, Integer productId, Integer quantity, Long cost) {
+        this.userId = userId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
+    @Override
+    public String toString() {
+        return "CartExportLine{" +
+                "userId=" + userId +
+                ", productId=" + productId +
+                ", quantity=" + quantity +
+                ", cost=" + cost +
+                '}';
+    }
+}
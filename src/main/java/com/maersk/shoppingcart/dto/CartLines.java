@@ -0,0 +1,106 @@
+package com.maersk.shoppingcart.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.maersk.shoppingcart.money.Money;
+import java.util.Arrays;
+
+/**
+ * Lines of a whole cart in productId order kept in parallel primitive arrays, an alternative to {@link CartDetails}
+ * for hot read paths which needs no object per line. Written as the same JSON as CartDetails by
+ * {@link CartLinesSerializer}.
+ *
+ * @author Sumit Kumar
+ */
+@JsonSerialize(using = CartLinesSerializer.class)
+public class CartLines {
+
+    private int[] productIds;
+    private int[] quantities;
+    private long[] costs;
+    private int size;
+
+    public CartLines(int capacity) {
+        productIds = new int[capacity];
+        quantities = new int[capacity];
+        costs = new long[capacity];
+    }
+
+    /**
+     * Appends a line, lines are to be added in productId order
+     */
+    public void add(int productId, int quantity, long cost) {
+        if (size == productIds.length) {
+            int capacity = Math.max(8, size * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        costs[size] = cost;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getProductId(int index) {
+        return productIds[index];
+    }
+
+    public int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    public void setQuantity(int index, int quantity) {
+        quantities[index] = quantity;
+    }
+
+    public long getCost(int index) {
+        return costs[index];
+    }
+
+    /**
+     * @returns index of the line of the product, negative if not present
+     */
+    public int indexOf(int productId) {
+        return Arrays.binarySearch(productIds, 0, size, productId);
+    }
+
+    /**
+     * Drops lines whose quantity has been set to zero
+     */
+    public void removeEmptyLines() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (quantities[i] != 0) {
+                productIds[kept] = productIds[i];
+                quantities[kept] = quantities[i];
+                costs[kept] = costs[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * @returns total cost of all lines in minor units, summed without allocating
+     */
+    public long getTotalCost() {
+        long totalCost = 0;
+        for (int i = 0; i < size; i++) {
+            totalCost = Money.plus(totalCost, Money.times(costs[i], quantities[i]));
+        }
+        return totalCost;
+    }
+
+    @Override
+    public String toString() {
+        return "CartLines{" +
+                "productIds=" + Arrays.toString(Arrays.copyOf(productIds, size)) +
+                ", quantities=" + Arrays.toString(Arrays.copyOf(quantities, size)) +
+                ", costs=" + Arrays.toString(Arrays.copyOf(costs, size)) +
+                '}';
+    }
+}
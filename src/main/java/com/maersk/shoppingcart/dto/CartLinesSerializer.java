@@ -0,0 +1,49 @@
+package com.maersk.shoppingcart.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.maersk.shoppingcart.money.Money;
+import java.io.IOException;
+
+/**
+ * Streams {@link CartLines} to the generator as the JSON of {@link CartDetails}, field names are encoded once and
+ * amounts are formatted into one reused buffer, so writing a line allocates nothing
+ *
+ * @author Sumit Kumar
+ */
+public class CartLinesSerializer extends StdSerializer<CartLines> {
+
+    private static final SerializedString PRODUCT_DETAILS = new SerializedString("productDetails");
+    private static final SerializedString PRODUCT_ID = new SerializedString("productId");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString COST = new SerializedString("cost");
+    private static final SerializedString TOTAL_COST = new SerializedString("totalCost");
+
+    public CartLinesSerializer() {
+        super(CartLines.class);
+    }
+
+    @Override
+    public void serialize(CartLines lines, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[Money.MAX_LENGTH];
+        generator.writeStartObject(lines);
+        generator.writeFieldName(PRODUCT_DETAILS);
+        generator.writeStartArray(lines, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            generator.writeStartObject();
+            generator.writeFieldName(PRODUCT_ID);
+            generator.writeNumber(lines.getProductId(i));
+            generator.writeFieldName(QUANTITY);
+            generator.writeNumber(lines.getQuantity(i));
+            generator.writeFieldName(COST);
+            generator.writeNumber(buffer, 0, Money.format(lines.getCost(i), buffer));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeFieldName(TOTAL_COST);
+        generator.writeNumber(buffer, 0, Money.format(lines.getTotalCost(), buffer));
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,71 @@
+package com.maersk.shoppingcart.dto;
+
+/**
+ * @author Sumit Kumar
+ */
+@SuppressWarnings("unused")
+public class CartOperation {
+
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+
+    private Type type;
+    private Integer productId;
+    // used by ADD
+    private Integer quantity;
+    // used by UPDATE, positive to increase and negative to decrease quantity
+    private Integer changed;
+
+    public CartOperation() {
+    }
+
+    public CartOperation(Type type, Integer productId, Integer quantity, Integer changed) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.changed = changed;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Integer changed) {
+        this.changed = changed;
+    }
+
+    @Override
+    public String toString() {
+        return "CartOperation{" +
+                "type=" + type +
+                ", productId=" + productId +
+                ", quantity=" + quantity +
+                ", changed=" + changed +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.maersk.shoppingcart.dto;
+
+/**
+ * @author Sumit Kumar
+ */
+@SuppressWarnings("unused")
+public class CartOperationResult {
+
+    private CartOperation.Type type;
+    private Integer productId;
+    private boolean success;
+    private String reason;
+
+    public CartOperationResult() {
+    }
+
+    public CartOperationResult(CartOperation.Type type, Integer productId, boolean success, String reason) {
+        this.type = type;
+        this.productId = productId;
+        this.success = success;
+        this.reason = reason;
+    }
+
+    public CartOperation.Type getType() {
+        return type;
+    }
+
+    public void setType(CartOperation.Type type) {
+        this.type = type;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public String toString() {
+        return "CartOperationResult{" +
+                "type=" + type +
+                ", productId=" + productId +
+                ", success=" + success +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.maersk.shoppingcart.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.maersk.shoppingcart.money.MonetaryAmount;
+import com.maersk.shoppingcart.money.Money;
+
+/**
+ * Number of lines, number of items and total cost of a cart. Instances are immutable so they can be cached and
+ * shared, changes are applied with plus.
+ *
+ * @author Sumit Kumar
+ */
+public final class CartSummary {
+
+    public static final CartSummary EMPTY = new CartSummary(0, 0, 0L);
+
+    private final int lineCount;
+    private final int itemCount;
+    @MonetaryAmount
+    private final long totalCost;
+
+    @JsonCreator
+    public CartSummary(@JsonProperty("lineCount") int lineCount, @JsonProperty("itemCount") int itemCount,
+            @JsonProperty("totalCost") @MonetaryAmount long totalCost) {
+        this.lineCount = lineCount;
+        this.itemCount = itemCount;
+        this.totalCost = totalCost;
+    }
+
+    /**
+     * Used by aggregate queries, sums over an empty cart are null
+     */
+    public CartSummary(Long lineCount, Long itemCount, Long totalCost) {
+        this(lineCount == null ? 0 : lineCount.intValue(), itemCount == null ? 0 : itemCount.intValue(),
+                totalCost == null ? 0L : totalCost);
+    }
+
+    /**
+     * @returns change of a single line, lines is +1 for a new line, -1 for a removed one and 0 otherwise
+     */
+    public static CartSummary ofChange(int lines, int items, long cost) {
+        return new CartSummary(lines, items, Money.times(cost, items));
+    }
+
+    public CartSummary plus(CartSummary change) {
+        return new CartSummary(lineCount + change.lineCount, itemCount + change.itemCount,
+                Money.plus(totalCost, change.totalCost));
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    @Override
+    public String toString() {
+        return "CartSummary{" +
+                "lineCount=" + lineCount +
+                ", itemCount=" + itemCount +
+                ", totalCost=" + totalCost +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.maersk.shoppingcart.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.maersk.shoppingcart.money.MonetaryAmount;
+
 /**
  * @author Sumit Kumar
  */
@@ -8,7 +11,23 @@ public class ProductDetails {
 
     private Integer productId;
     private Integer quantity;
-    private double cost;
+    // left out when lines are listed without the product join
+    @MonetaryAmount
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long cost;
+
+    public ProductDetails() {
+    }
+
+    public ProductDetails(Integer productId, Integer quantity, Long cost) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+
+    public ProductDetails(Integer productId, Integer quantity) {
+        this(productId, quantity, null);
+    }
 
     public Integer getProductId() {
         return productId;
@@ -26,11 +45,11 @@ public class ProductDetails {
         this.quantity = quantity;
     }
 
-    public double getCost() {
+    public Long getCost() {
         return cost;
     }
 
-    public void setCost(double cost) {
+    public void setCost(Long cost) {
         this.cost = cost;
     }
 
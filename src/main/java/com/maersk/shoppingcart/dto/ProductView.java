@@ -0,0 +1,49 @@
+package com.maersk.shoppingcart.dto;
+
+import com.maersk.shoppingcart.entity.Product;
+
+/**
+ * Immutable copy of a product as served from the products cache, the cached instance is shared by every request so
+ * the managed entity is never handed out
+ *
+ * @author Sumit Kumar
+ */
+public final class ProductView {
+
+    private final Integer productId;
+    private final String name;
+    private final String details;
+    private final long cost;
+
+    public ProductView(Product product) {
+        this.productId = product.getProductId();
+        this.name = product.getName();
+        this.details = product.getDetails();
+        this.cost = product.getCost();
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductView{" +
+                "productId=" + productId +
+                ", name='" + name + '\'' +
+                ", cost=" + cost +
+                '}';
+    }
+}
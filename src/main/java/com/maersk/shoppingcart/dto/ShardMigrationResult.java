@@ -0,0 +1,70 @@
+package com.maersk.shoppingcart.dto;
+
+/**
+ * Progress and outcome of moving carts onto a ring of shardCount shards, updated by the migrating thread while it
+ * runs
+ *
+ * @author Sumit Kumar
+ */
+@SuppressWarnings("unused")
+public class ShardMigrationResult {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private volatile int shardCount;
+    private volatile State state;
+    private volatile long movedUsers;
+    private volatile long movedLines;
+    // message of the exception a failed migration stopped on
+    private volatile String failure;
+
+    public ShardMigrationResult() {
+    }
+
+    public ShardMigrationResult(int shardCount) {
+        this.shardCount = shardCount;
+        this.state = State.RUNNING;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getMovedUsers() {
+        return movedUsers;
+    }
+
+    public void setMovedUsers(long movedUsers) {
+        this.movedUsers = movedUsers;
+    }
+
+    public long getMovedLines() {
+        return movedLines;
+    }
+
+    public void setMovedLines(long movedLines) {
+        this.movedLines = movedLines;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+}
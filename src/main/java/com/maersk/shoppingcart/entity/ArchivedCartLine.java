@@ -0,0 +1,67 @@
+package com.maersk.shoppingcart.entity;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Line of a cart purged for being idle, written by CartExpiryService with cart.expiry.archive set. Mapped so the table
+ * is defined along with the other entities, lines are only ever written and read with SQL.
+ *
+ * @author Sumit Kumar
+ */
+@Entity(name = "carts_archive")
+@Table(indexes = @Index(columnList = "userId"))
+@SuppressWarnings("unused")
+public class ArchivedCartLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long archiveId;
+
+    @Column(nullable = false)
+    private Integer userId;
+
+    @Column(nullable = false)
+    private Integer productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    // last modified time of the line when it was purged
+    @Column(nullable = false)
+    private LocalDateTime lastModified;
+
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "datetime default current_timestamp not null")
+    private LocalDateTime archivedAt;
+
+    public Long getArchiveId() {
+        return archiveId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
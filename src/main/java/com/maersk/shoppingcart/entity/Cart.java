@@ -1,16 +1,25 @@
 package com.maersk.shoppingcart.entity;
 
+import java.time.LocalDateTime;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 /**
+ * Implements Persistable so that saving a new cart line is a plain insert, otherwise an assigned composite id makes
+ * JPA look the row up before inserting it
+ *
  * @author Sumit Kumar
  */
 @IdClass(CartPrimaryKey.class)
 @Entity(name = "carts")
 @SuppressWarnings("unused")
-public class Cart {
+public class Cart implements Persistable<CartPrimaryKey> {
 
     @Id
     private Integer userId;
@@ -20,6 +29,15 @@ public class Cart {
 
     private Integer quantity;
 
+    // maintained by the database on every insert and update of the line, carts idle too long are purged by it. Bulk
+    // updates set it explicitly, on update current_timestamp only fires when a value of the line actually changes
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "datetime default current_timestamp on update current_timestamp not null")
+    private LocalDateTime lastModified;
+
+    @Transient
+    private boolean newLine = true;
+
     public Integer getUserId() {
         return userId;
     }
@@ -43,4 +61,27 @@ public class Cart {
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
     }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public CartPrimaryKey getId() {
+        CartPrimaryKey id = new CartPrimaryKey();
+        id.setUserId(userId);
+        id.setProductId(productId);
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newLine;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newLine = false;
+    }
 }
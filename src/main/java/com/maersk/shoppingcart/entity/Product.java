@@ -1,11 +1,17 @@
 package com.maersk.shoppingcart.entity;
 
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.money.MoneyConverter;
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
 /**
+ * Cost is held in minor units, see Money
+ *
  * @author Sumit Kumar
  */
 @SuppressWarnings("unused")
@@ -17,7 +23,10 @@ public class Product {
     private Integer productId;
     private String name;
     private String details;
-    private Double cost;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = Money.SCALE)
+    private long cost;
 
     public Integer getProductId() {
         return productId;
@@ -43,11 +52,11 @@ public class Product {
         this.details = details;
     }
 
-    public Double getCost() {
+    public long getCost() {
         return cost;
     }
 
-    public void setCost(Double cost) {
+    public void setCost(long cost) {
         this.cost = cost;
     }
 }
@@ -0,0 +1,13 @@
+package com.maersk.shoppingcart.exception;
+
+/**
+ * Thrown when another change to the same cart doesn't complete within the lock wait timeout
+ *
+ * @author Sumit Kumar
+ */
+public class CartLockTimeoutException extends RuntimeException {
+
+    public CartLockTimeoutException(String message) {
+        super(message);
+    }
+}
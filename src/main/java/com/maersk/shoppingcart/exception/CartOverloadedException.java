@@ -0,0 +1,13 @@
+package com.maersk.shoppingcart.exception;
+
+/**
+ * Thrown when a cart request can't be queued for execution as too many are in progress
+ *
+ * @author Sumit Kumar
+ */
+public class CartOverloadedException extends RuntimeException {
+
+    public CartOverloadedException(String message) {
+        super(message);
+    }
+}
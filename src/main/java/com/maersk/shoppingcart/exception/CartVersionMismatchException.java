@@ -0,0 +1,13 @@
+package com.maersk.shoppingcart.exception;
+
+/**
+ * Thrown when a change is conditional on a version of the cart that is no longer current
+ *
+ * @author Sumit Kumar
+ */
+public class CartVersionMismatchException extends RuntimeException {
+
+    public CartVersionMismatchException(String message) {
+        super(message);
+    }
+}
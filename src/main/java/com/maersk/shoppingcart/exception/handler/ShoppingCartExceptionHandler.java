@@ -1,12 +1,22 @@
 package com.maersk.shoppingcart.exception.handler;
 
 import com.maersk.shoppingcart.dto.ProblemDetails;
+import com.maersk.shoppingcart.exception.CartLockTimeoutException;
+import com.maersk.shoppingcart.exception.CartOverloadedException;
+import com.maersk.shoppingcart.exception.CartVersionMismatchException;
 import com.maersk.shoppingcart.exception.DuplicateDataException;
 import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.rest.AsyncShoppingCartEndpoint;
+import com.maersk.shoppingcart.rest.CartExportEndpoint;
+import com.maersk.shoppingcart.rest.CartShardEndpoint;
+import com.maersk.shoppingcart.rest.ProductAdminEndpoint;
 import com.maersk.shoppingcart.rest.ShoppingCartEndpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import javax.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,12 +29,21 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 /**
  * @author Sumit Kumar
  */
-@RestControllerAdvice(assignableTypes = {ShoppingCartEndpoint.class})
+@RestControllerAdvice(assignableTypes = {ShoppingCartEndpoint.class, AsyncShoppingCartEndpoint.class,
+        CartExportEndpoint.class, CartShardEndpoint.class, ProductAdminEndpoint.class})
 public class ShoppingCartExceptionHandler {
 
     public static final String INTERNAL_SERVER_ERROR_MESSAGE = "Something went wrong !! Please try later !!";
+    public static final String EXCEPTIONS_COUNTER = "cart.exceptions";
     private static final Logger logger = LoggerFactory.getLogger(ShoppingCartExceptionHandler.class);
 
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ShoppingCartExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public @ResponseBody
@@ -49,6 +68,52 @@ public class ShoppingCartExceptionHandler {
         return new ResponseEntity<>(problemDetails, headers, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Another change to the same cart took too long, the request can be retried
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public @ResponseBody
+    ResponseEntity<ProblemDetails> handleException(CartLockTimeoutException e, HttpServletRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        ProblemDetails problemDetails = new ProblemDetails();
+        problemDetails.setReason(e.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        return new ResponseEntity<>(problemDetails, headers, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Requests are coming in faster than they can be executed, the request can be retried
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public @ResponseBody
+    ResponseEntity<ProblemDetails> handleException(CartOverloadedException e, HttpServletRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        ProblemDetails problemDetails = new ProblemDetails();
+        problemDetails.setReason(e.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(problemDetails, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * The cart changed since the version the client sent in If-Match, it should be reloaded before retrying
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public @ResponseBody
+    ResponseEntity<ProblemDetails> handleException(CartVersionMismatchException e, HttpServletRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        ProblemDetails problemDetails = new ProblemDetails();
+        problemDetails.setReason(e.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        return new ResponseEntity<>(problemDetails, headers, HttpStatus.PRECONDITION_FAILED);
+    }
+
     /**
      * Catches all exception during rest api processing and returns a meaningful response to user
      */
@@ -65,6 +130,11 @@ public class ShoppingCartExceptionHandler {
     }
 
     private void logRequestAndExceptionDetails(Exception e, HttpServletRequest request) {
+        Counter.builder(EXCEPTIONS_COUNTER)
+                .description("Exceptions turned into error responses by the cart api")
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
         logger.error("Error processing request: {}, method={}, path={}", e.getMessage(),
                 request.getMethod(), request.getRequestURI(), e);
     }
@@ -0,0 +1,18 @@
+package com.maersk.shoppingcart.jpa;
+
+import com.maersk.shoppingcart.dto.CartExportLine;
+import java.util.stream.Stream;
+
+/**
+ * Streaming queries of {@link CartRepository} whose fetch size depends on configuration
+ *
+ * @author Sumit Kumar
+ */
+public interface CartExportRepository {
+
+    /**
+     * Streams every cart line joined with product cost, ordered by user and product. Rows are fetched from the
+     * database as the stream is consumed, the stream should be closed within the surrounding transaction.
+     */
+    Stream<CartExportLine> streamAllForExport();
+}
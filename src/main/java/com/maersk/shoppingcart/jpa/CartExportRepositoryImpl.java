@@ -0,0 +1,35 @@
+package com.maersk.shoppingcart.jpa;
+
+import com.maersk.shoppingcart.dto.CartExportLine;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Lines are selected as DTOs, so they are not kept in the persistence context while streaming. The default fetch size
+ * of Integer.MIN_VALUE makes the MySQL driver stream rows one by one instead of reading the whole result first, other
+ * drivers need a positive one.
+ *
+ * @author Sumit Kumar
+ */
+public class CartExportRepositoryImpl implements CartExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cart.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Override
+    public Stream<CartExportLine> streamAllForExport() {
+        return entityManager.createQuery("select new com.maersk.shoppingcart.dto.CartExportLine("
+                + "c.userId, c.productId, c.quantity, p.cost) "
+                + "from carts c, products p where p.productId = c.productId "
+                + "order by c.userId, c.productId", CartExportLine.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+}
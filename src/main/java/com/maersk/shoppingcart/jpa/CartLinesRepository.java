@@ -0,0 +1,16 @@
+package com.maersk.shoppingcart.jpa;
+
+import com.maersk.shoppingcart.dto.CartLines;
+
+/**
+ * Queries of {@link CartRepository} reading rows straight into primitive arrays through JDBC
+ *
+ * @author Sumit Kumar
+ */
+public interface CartLinesRepository {
+
+    /**
+     * Loads every line of users cart joined with the product cost in a single query, in productId order
+     */
+    CartLines findCartLinesByUserId(Integer userId);
+}
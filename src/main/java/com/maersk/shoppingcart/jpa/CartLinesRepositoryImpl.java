@@ -0,0 +1,40 @@
+package com.maersk.shoppingcart.jpa;
+
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import com.maersk.shoppingcart.money.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Columns are read as primitives and cost is scaled to minor units by the database, so no entity, DTO or boxed value
+ * is created per row. Shares the connection of the surrounding JPA transaction, if any. Statements are reported to
+ * {@link QueryCounter} as Hibernate doesn't see them.
+ *
+ * @author Sumit Kumar
+ */
+public class CartLinesRepositoryImpl implements CartLinesRepository {
+
+    private static final String FIND_CART_LINES = "select c.productId, c.quantity, p.cost * " + Money.ONE + " "
+            + "from carts c join products p on p.productId = c.productId where c.userId = ? order by c.productId";
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CartLinesRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public CartLines findCartLinesByUserId(Integer userId) {
+        QueryCounter.statementExecuted();
+        return jdbcTemplate.query(FIND_CART_LINES, resultSet -> {
+            CartLines lines = new CartLines(INITIAL_CAPACITY);
+            while (resultSet.next()) {
+                lines.add(resultSet.getInt(1), resultSet.getInt(2), resultSet.getLong(3));
+            }
+            return lines;
+        }, userId);
+    }
+}
@@ -1,20 +1,121 @@
 package com.maersk.shoppingcart.jpa;
 
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.dto.ProductDetails;
 import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.entity.CartPrimaryKey;
+import com.maersk.shoppingcart.money.Money;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * @author Sumit Kumar
  */
 @Repository
-public interface CartRepository extends CrudRepository<Cart, Integer> {
+public interface CartRepository extends CrudRepository<Cart, CartPrimaryKey>, CartExportRepository,
+        CartLinesRepository {
 
     Optional<Cart> findByUserIdAndProductId(Integer userId, Integer productId);
 
     void deleteByUserIdAndProductId(Integer userId, Integer productId);
 
     List<Cart> findAllByUserId(Integer userId);
+
+    /**
+     * Loads all lines of users cart and locks them till end of current transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from carts c where c.userId = :userId")
+    List<Cart> findAllByUserIdForUpdate(@Param("userId") Integer userId);
+
+    /**
+     * Plain insert without prior lookup, a line already present for the product violates the primary key
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into carts (userId, productId, quantity) values (:userId, :productId, :quantity)",
+            nativeQuery = true)
+    int insert(@Param("userId") Integer userId, @Param("productId") Integer productId,
+            @Param("quantity") int quantity);
+
+    /**
+     * Inserts the line or, if already present, adds quantity to it capped at maxAllowed. lastModified is set
+     * explicitly, on update current_timestamp doesn't fire when the quantity is already at maxAllowed.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into carts (userId, productId, quantity) values (:userId, :productId, :quantity) "
+            + "on duplicate key update quantity = least(quantity + values(quantity), :maxAllowed), "
+            + "lastModified = current_timestamp",
+            nativeQuery = true)
+    int insertOrMergeQuantity(@Param("userId") Integer userId, @Param("productId") Integer productId,
+            @Param("quantity") int quantity, @Param("maxAllowed") int maxAllowed);
+
+    /**
+     * Changes quantity in place, only if the new quantity stays between 1 and maxAllowed
+     *
+     * @return number of updated rows, zero if line is not present or new quantity is out of range
+     */
+    @Modifying
+    @Query("update carts c set c.quantity = c.quantity + :changed, c.lastModified = current_timestamp "
+            + "where c.userId = :userId and c.productId = :productId "
+            + "and c.quantity + :changed between 1 and :maxAllowed")
+    int updateQuantity(@Param("userId") Integer userId, @Param("productId") Integer productId,
+            @Param("changed") int changed, @Param("maxAllowed") int maxAllowed);
+
+    /**
+     * Deletes the line only if applying changed brings its quantity down to exactly zero
+     *
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("delete from carts c where c.userId = :userId and c.productId = :productId "
+            + "and c.quantity + :changed = 0")
+    int deleteIfQuantityDropsToZero(@Param("userId") Integer userId, @Param("productId") Integer productId,
+            @Param("changed") int changed);
+
+    /**
+     * Loads every line of users cart joined with the product cost in a single query
+     */
+    @Query("select new com.maersk.shoppingcart.dto.ProductDetails(c.productId, c.quantity, p.cost) "
+            + "from carts c, products p where p.productId = c.productId and c.userId = :userId "
+            + "order by c.productId")
+    List<ProductDetails> findProductDetailsByUserId(@Param("userId") Integer userId);
+
+    /**
+     * Keyset page of users cart joined with the product cost, lines after the given productId in productId order. The
+     * primary key (userId, productId) serves both the filter and the order, so a page costs the same wherever it
+     * starts.
+     */
+    @Query("select new com.maersk.shoppingcart.dto.ProductDetails(c.productId, c.quantity, p.cost) "
+            + "from carts c, products p where p.productId = c.productId and c.userId = :userId "
+            + "and c.productId > :after order by c.productId")
+    List<ProductDetails> findProductDetailsPageByUserId(@Param("userId") Integer userId,
+            @Param("after") Integer after, Pageable pageable);
+
+    /**
+     * Same page as findProductDetailsPageByUserId without the product join, lines carry no cost
+     */
+    @Query("select new com.maersk.shoppingcart.dto.ProductDetails(c.productId, c.quantity) "
+            + "from carts c where c.userId = :userId and c.productId > :after order by c.productId")
+    List<ProductDetails> findQuantitiesPageByUserId(@Param("userId") Integer userId, @Param("after") Integer after,
+            Pageable pageable);
+
+    /**
+     * Aggregates number of lines, items and total cost of users cart in the database. Cost is summed exactly as a
+     * decimal and scaled to minor units there, as the converter of Product.cost is not applied to expressions.
+     */
+    @Query("select new com.maersk.shoppingcart.dto.CartSummary(count(c), sum(c.quantity), "
+            + "cast(sum(c.quantity * p.cost) * " + Money.ONE + " as long)) "
+            + "from carts c, products p where p.productId = c.productId and c.userId = :userId")
+    CartSummary summarizeByUserId(@Param("userId") Integer userId);
 }
@@ -1,7 +1,11 @@
 package com.maersk.shoppingcart.jpa;
 
 import com.maersk.shoppingcart.entity.Product;
+import java.util.Collection;
+import java.util.Set;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,4 +14,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ProductRepository extends CrudRepository<Product, Integer> {
 
+    @Query("select p.productId from products p where p.productId in :productIds")
+    Set<Integer> findExistingProductIds(@Param("productIds") Collection<Integer> productIds);
 }
@@ -1,6 +1,8 @@
 package com.maersk.shoppingcart.jpa;
 
 import com.maersk.shoppingcart.entity.User;
+import java.util.List;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +12,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserRepository extends CrudRepository<User, Integer> {
 
+    @Query("select u.userId from users u")
+    List<Integer> findAllUserIds();
 }
@@ -0,0 +1,81 @@
+package com.maersk.shoppingcart.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records latency, SQL statement count and fetched rows of every cart operation, tagged by operation name and
+ * outcome. Meters are published on the management port with the rest of the actuator metrics.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartMetrics {
+
+    public static final String OPERATION_TIMER = "cart.operation";
+    public static final String STATEMENTS_SUMMARY = "cart.operation.statements";
+    public static final String ROWS_SUMMARY = "cart.operation.rows";
+    public static final String CART_SIZE_SUMMARY = "cart.size";
+    public static final String SUCCESS = "success";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary cartSize;
+
+    @Autowired
+    public CartMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cartSize = DistributionSummary.builder(CART_SIZE_SUMMARY)
+                .description("Number of distinct items in a cart when it is read")
+                .baseUnit("items")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+    }
+
+    public <T> T record(String operation, Supplier<T> action) {
+        QueryCounter.Counts counts = QueryCounter.open();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = SUCCESS;
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_TIMER)
+                    .description("Time taken by a cart operation including validation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            // nested operations are accounted to the outermost one
+            if (counts != null) {
+                QueryCounter.close();
+                summary(STATEMENTS_SUMMARY, operation).record(counts.getStatements());
+                summary(ROWS_SUMMARY, operation).record(counts.getRows());
+            }
+        }
+    }
+
+    public void record(String operation, Runnable action) {
+        record(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void recordCartSize(int items) {
+        cartSize.record(items);
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.maersk.shoppingcart.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts SQL statements prepared by Hibernate and rows fetched on the current thread while a scope opened by
+ * CartMetrics is active, outside of a scope counting is a no-op. Statements sent through JdbcTemplate bypass
+ * Hibernate and are reported by their callers.
+ *
+ * @author Sumit Kumar
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    /**
+     * Hook for JDBC callers to report a statement Hibernate doesn't see, a JDBC batch counts as one statement
+     */
+    public static void statementExecuted() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    /**
+     * Hook for repository callers to report the number of rows a query returned
+     */
+    public static void rowsFetched(int rows) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.rows += rows;
+        }
+    }
+
+    /**
+     * @returns counts of the new scope, null if a scope is already open on this thread
+     */
+    static Counts open() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    static final class Counts {
+
+        private int statements;
+        private int rows;
+
+        int getStatements() {
+            return statements;
+        }
+
+        int getRows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.maersk.shoppingcart.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts of money are kept as a primitive long count of minor units, ten thousandths of the currency unit so that
+ * every value of a DECIMAL(19, 4) column is represented exactly. Arithmetic is exact and fails on overflow instead of
+ * rounding, and summing amounts doesn't allocate.
+ *
+ * @author Sumit Kumar
+ */
+public final class Money {
+
+    public static final int SCALE = 4;
+    public static final long ONE = 10_000L;
+    // sign, 15 digits of the whole part of a long, decimal point and SCALE digits
+    public static final int MAX_LENGTH = 21;
+
+    private Money() {
+    }
+
+    /**
+     * @returns amount in minor units, fails if amount has more than four decimal places
+     */
+    public static long of(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static long of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public static BigDecimal toBigDecimal(long amount) {
+        return BigDecimal.valueOf(amount, SCALE);
+    }
+
+    public static long times(long amount, int quantity) {
+        return Math.multiplyExact(amount, quantity);
+    }
+
+    public static long plus(long amount, long other) {
+        return Math.addExact(amount, other);
+    }
+
+    /**
+     * @returns amount as a plain decimal without trailing zeros, e.g. 25.5 or 120
+     */
+    public static String toString(long amount) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(amount, buffer));
+    }
+
+    /**
+     * Writes amount as toString does into buffer, without allocating, so a buffer can be reused for many amounts
+     *
+     * @returns number of chars written, at most MAX_LENGTH
+     */
+    public static int format(long amount, char[] buffer) {
+        int length = 0;
+        if (amount < 0) {
+            buffer[length++] = '-';
+        }
+        // whole part of Long.MIN_VALUE still fits a long once divided by ONE
+        long whole = Math.abs(amount / ONE);
+        int start = length;
+        do {
+            buffer[length++] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+
+        long fraction = Math.abs(amount % ONE);
+        if (fraction != 0) {
+            int digits = SCALE;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            buffer[length++] = '.';
+            for (int i = length + digits - 1; i >= length; i--) {
+                buffer[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            length += digits;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,24 @@
+package com.maersk.shoppingcart.money;
+
+import java.math.BigDecimal;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Maps an amount in minor units to a DECIMAL(19, 4) column
+ *
+ * @author Sumit Kumar
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long amount) {
+        return amount == null ? null : Money.toBigDecimal(amount);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
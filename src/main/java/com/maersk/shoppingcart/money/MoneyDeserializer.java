@@ -0,0 +1,34 @@
+package com.maersk.shoppingcart.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a JSON number in currency units into minor units, amounts with more than four decimal places are rejected
+ * rather than rounded
+ *
+ * @author Sumit Kumar
+ */
+public class MoneyDeserializer extends StdDeserializer<Long> {
+
+    public MoneyDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.hasToken(JsonToken.VALUE_NUMBER_INT) && !parser.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+            return (Long) context.handleUnexpectedToken(Long.class, parser);
+        }
+        BigDecimal amount = parser.getDecimalValue();
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw context.weirdNumberException(amount, Long.class, "not a valid amount of money");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.maersk.shoppingcart.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * Writes an amount in minor units as a plain JSON number in currency units, e.g. 255000 as 25.5
+ *
+ * @author Sumit Kumar
+ */
+public class MoneySerializer extends StdSerializer<Long> {
+
+    public MoneySerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long amount, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(Money.toString(amount));
+    }
+}
@@ -0,0 +1,112 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.dto.CartSummary;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the paths of {@link ShoppingCartEndpoint} in async execution mode, requests are run on the pool of
+ * {@link CartRequestExecutor} and the request thread is returned to Tomcat meanwhile
+ *
+ * @author Sumit Kumar
+ */
+@RequestMapping("/cart")
+@RestController
+@ConditionalOnProperty(name = "cart.execution.mode", havingValue = "async")
+public class AsyncShoppingCartEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncShoppingCartEndpoint.class);
+
+    private final CartRequests cartRequests;
+    private final CartRequestExecutor cartRequestExecutor;
+
+    @Autowired
+    public AsyncShoppingCartEndpoint(CartRequests cartRequests, CartRequestExecutor cartRequestExecutor) {
+        this.cartRequests = cartRequests;
+        this.cartRequestExecutor = cartRequestExecutor;
+    }
+
+    @GetMapping("/{userId}")
+    public CompletableFuture<ResponseEntity<?>> getCartDetailsForUser(@PathVariable Integer userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("Fetching cart for user: {}, after: {}, limit: {}, fields: {}", userId, after, limit, fields);
+        return cartRequestExecutor.execute("get_cart",
+                () -> cartRequests.getCartDetails(userId, after, limit, fields, ifNoneMatch));
+    }
+
+    @GetMapping(value = "/{userId}", params = "summary=true")
+    public CompletableFuture<ResponseEntity<CartSummary>> getCartSummaryForUser(@PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("Fetching cart summary for user: {}", userId);
+        return cartRequestExecutor.execute("get_cart_summary", () -> cartRequests.getCartSummary(userId, ifNoneMatch));
+    }
+
+    @GetMapping("/{userId}/total")
+    public CompletableFuture<ResponseEntity<CartSummary>> getCartTotalForUser(@PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getCartSummaryForUser(userId, ifNoneMatch);
+    }
+
+    @GetMapping("/{userId}/{productId}/")
+    public CompletableFuture<Integer> getCountOfItemInCart(@PathVariable Integer userId,
+            @PathVariable Integer productId) {
+        logger.debug("Fetching count of product: {} in cart of user : {}", productId, userId);
+        return cartRequestExecutor.execute("get_item_count", () -> cartRequests.getCountOfItem(userId, productId));
+    }
+
+    @DeleteMapping("/{userId}/{productId}/")
+    public CompletableFuture<ResponseEntity<Void>> deleteItemFromCart(@PathVariable Integer userId,
+            @PathVariable Integer productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("Delete product: {} from user: {} cart", productId, userId);
+        return cartRequestExecutor.execute("delete_item", () -> cartRequests.deleteItem(userId, productId, ifMatch));
+    }
+
+    @PutMapping("/{userId}/{productId}/")
+    public CompletableFuture<ResponseEntity<Void>> updateItemInCart(@PathVariable Integer userId,
+            @PathVariable Integer productId,
+            @RequestParam Integer changed,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("Updating product : {} count by {} in user : {} cart", productId, changed, userId);
+        return cartRequestExecutor.execute("update_item",
+                () -> cartRequests.updateItem(userId, productId, changed, ifMatch));
+    }
+
+    @PostMapping("/{userId}/{productId}/")
+    public CompletableFuture<Void> addItemToCart(@PathVariable Integer userId, @PathVariable Integer productId,
+            @RequestParam Integer quantity, @RequestParam(defaultValue = "false") boolean merge) {
+
+        logger.debug("Adding product : {} with quantity : {} to user : {} cart", productId, quantity, userId);
+        return cartRequestExecutor.execute(merge ? "merge_item" : "add_item",
+                () -> cartRequests.addItem(userId, productId, quantity, merge));
+    }
+
+    @PostMapping("/{userId}/batch")
+    public CompletableFuture<List<CartOperationResult>> applyOperationsToCart(@PathVariable Integer userId,
+            @RequestBody List<CartOperation> operations) {
+        logger.debug("Applying {} operations to user : {} cart", operations.size(), userId);
+        return cartRequestExecutor.execute("apply_operations",
+                () -> cartRequests.applyOperations(userId, operations));
+    }
+}
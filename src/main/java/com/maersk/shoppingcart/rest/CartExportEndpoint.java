@@ -0,0 +1,57 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.service.CartExportService;
+import com.maersk.shoppingcart.service.CartExportService.Format;
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoints for bulk access to carts, restricted to the ADMIN role
+ *
+ * @author Sumit Kumar
+ */
+@RequestMapping("/admin/carts")
+@RestController
+public class CartExportEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartExportEndpoint.class);
+
+    private final CartExportService cartExportService;
+
+    @Autowired
+    public CartExportEndpoint(CartExportService cartExportService) {
+        this.cartExportService = cartExportService;
+    }
+
+    /**
+     * streams every cart line with the cost of its product as NDJSON (default) or CSV, sent chunked as it is read
+     */
+    @GetMapping("/export")
+    public void exportCarts(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+            throws IOException {
+        logger.debug("Exporting all carts as {}", format);
+        Format exportFormat = parseFormat(format);
+        response.setContentType(exportFormat == Format.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"carts." + exportFormat.name().toLowerCase() + "\"");
+        cartExportService.export(exportFormat, response.getOutputStream());
+    }
+
+    private static Format parseFormat(String format) {
+        for (Format value : Format.values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new InvalidDataException("Export format should be ndjson or csv !!");
+    }
+}
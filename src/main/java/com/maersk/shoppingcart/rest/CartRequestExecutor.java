@@ -0,0 +1,77 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.exception.CartOverloadedException;
+import com.maersk.shoppingcart.metrics.CartMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs cart operations of {@link AsyncShoppingCartEndpoint}, recorded by {@link CartMetrics}, on a bounded pool so the
+ * request thread is returned to Tomcat while the operation waits for locks and JDBC. Requests beyond pool threads and
+ * queue capacity are rejected right away instead of piling up in Tomcat.
+ *
+ * <p>Pool size, queue length, queue wait (executor.idle) and execution time are published as cart.requests executor
+ * metrics.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+@ConditionalOnProperty(name = "cart.execution.mode", havingValue = "async")
+public class CartRequestExecutor {
+
+    public static final String EXECUTOR_METRICS_NAME = "cart.requests";
+
+    private final CartMetrics cartMetrics;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+
+    @Autowired
+    public CartRequestExecutor(CartMetrics cartMetrics, MeterRegistry meterRegistry,
+            @Value("${cart.execution.async.threads:32}") int threads,
+            @Value("${cart.execution.async.queue-capacity:1000}") int queueCapacity) {
+        this.cartMetrics = cartMetrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "cart-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, EXECUTOR_METRICS_NAME);
+    }
+
+    public <T> CompletableFuture<T> execute(String operation, Supplier<T> action) {
+        try {
+            // recorded on the pool thread, statements are counted per thread
+            return CompletableFuture.supplyAsync(() -> cartMetrics.record(operation, action), executor);
+        } catch (RejectedExecutionException e) {
+            throw new CartOverloadedException("Too many cart requests in progress, please retry later !!");
+        }
+    }
+
+    public CompletableFuture<Void> execute(String operation, Runnable action) {
+        return execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,223 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.exception.CartVersionMismatchException;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.metrics.CartMetrics;
+import com.maersk.shoppingcart.service.CartLocks;
+import com.maersk.shoppingcart.service.CartService;
+import com.maersk.shoppingcart.service.CartVersions;
+import com.maersk.shoppingcart.service.CartWriteBehindService;
+import com.maersk.shoppingcart.service.ProductService;
+import com.maersk.shoppingcart.service.UserService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cart requests served by {@link ShoppingCartEndpoint} in blocking mode and {@link AsyncShoppingCartEndpoint} in
+ * async mode, validated and run on the calling thread
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartRequests {
+
+    private static final String FIELD_PRODUCT_ID = "productId";
+    private static final String FIELD_QUANTITY = "quantity";
+    private static final String FIELD_COST = "cost";
+
+    private final CartService cartService;
+    private final CartWriteBehindService cartWriteBehindService;
+    private final UserService userService;
+    private final ProductService productService;
+    private final CartMetrics cartMetrics;
+    private final CartLocks cartLocks;
+    private final CartVersions cartVersions;
+
+    @Value("${cart.item.max.allowed:5}")
+    private int itemMaxAllowed;
+
+    @Value("${cart.batch.max.operations:100}")
+    private int batchMaxOperations;
+
+    @Value("${cart.page.max-limit:100}")
+    private int pageMaxLimit;
+
+    @Autowired
+    public CartRequests(CartService cartService, CartWriteBehindService cartWriteBehindService,
+            UserService userService, ProductService productService, CartMetrics cartMetrics, CartLocks cartLocks,
+            CartVersions cartVersions) {
+        this.cartService = cartService;
+        this.cartWriteBehindService = cartWriteBehindService;
+        this.userService = userService;
+        this.productService = productService;
+        this.cartMetrics = cartMetrics;
+        this.cartLocks = cartLocks;
+        this.cartVersions = cartVersions;
+    }
+
+    public ResponseEntity<?> getCartDetails(Integer userId, Integer after, Integer limit, String fields,
+            String ifNoneMatch) {
+        if (limit != null && (limit <= 0 || limit > pageMaxLimit)) {
+            throw new InvalidDataException("Limit should be greater than zero and at most " + pageMaxLimit + " !!");
+        }
+        boolean withCost = includesCost(fields);
+        validateUser(userId);
+        String etag = cartVersions.etag(userId);
+        if (CartVersions.noneMatchHits(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        if (after == null && limit == null && withCost) {
+            // whole cart is read into primitive arrays and streamed as the same JSON
+            CartLines cartLines = cartService.getCartLines(userId);
+            cartMetrics.recordCartSize(cartLines.size());
+            return eTag(ResponseEntity.ok(), etag).cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(cartLines);
+        }
+        CartDetails cartDetails = cartService.getCartDetails(userId, after, limit, withCost);
+        if (after == null && limit == null) {
+            cartMetrics.recordCartSize(cartDetails.getProductDetails().size());
+        }
+        return eTag(ResponseEntity.ok(), etag).cacheControl(CacheControl.noCache().cachePrivate())
+                .body(cartDetails);
+    }
+
+    public ResponseEntity<CartSummary> getCartSummary(Integer userId, String ifNoneMatch) {
+        validateUser(userId);
+        String etag = cartVersions.etag(userId);
+        if (CartVersions.noneMatchHits(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return eTag(ResponseEntity.ok(), etag).cacheControl(CacheControl.noCache().cachePrivate())
+                .body(cartService.getCartSummary(userId));
+    }
+
+    public Integer getCountOfItem(Integer userId, Integer productId) {
+        validateUserAndProduct(userId, productId);
+        return cartService.getCountOfItem(userId, productId);
+    }
+
+    public ResponseEntity<Void> deleteItem(Integer userId, Integer productId, String ifMatch) {
+        validateUserAndProduct(userId, productId);
+        String etag = cartLocks.withLock(userId, () -> {
+            checkVersion(userId, ifMatch);
+            cartService.deleteItemFromCart(userId, productId);
+            return cartVersions.etag(userId);
+        });
+        return eTag(ResponseEntity.ok(), etag).build();
+    }
+
+    public ResponseEntity<Void> updateItem(Integer userId, Integer productId, Integer changed, String ifMatch) {
+        validateUserAndProduct(userId, productId);
+        if (changed == 0) {
+            throw new InvalidDataException("Changed should not be zero !!");
+        }
+        String etag = cartLocks.withLock(userId, () -> {
+            checkVersion(userId, ifMatch);
+            if (cartWriteBehindService.isEnabled()) {
+                cartWriteBehindService.updateCart(userId, productId, changed);
+            } else {
+                cartService.updateCart(userId, productId, changed);
+            }
+            return cartVersions.etag(userId);
+        });
+        return eTag(ResponseEntity.ok(), etag).build();
+    }
+
+    public void addItem(Integer userId, Integer productId, Integer quantity, boolean merge) {
+        // perform validations : ensure user and product exists and valid quantity value
+        if (quantity <= 0 || quantity > itemMaxAllowed) {
+            throw new InvalidDataException(
+                    "Quantity should be greater than zero and less than " + itemMaxAllowed + " !!");
+        }
+        validateUserAndProduct(userId, productId);
+
+        cartLocks.withLock(userId, () -> {
+            if (merge) {
+                cartService.mergeProductIntoCart(userId, productId, quantity);
+            } else {
+                cartService.addProductToCart(userId, productId, quantity);
+            }
+        });
+    }
+
+    public List<CartOperationResult> applyOperations(Integer userId, List<CartOperation> operations) {
+        if (operations.isEmpty() || operations.size() > batchMaxOperations) {
+            throw new InvalidDataException(
+                    "Number of operations should be between 1 and " + batchMaxOperations + " !!");
+        }
+        validateUser(userId);
+
+        return cartLocks.withLock(userId, () -> cartService.applyOperations(userId, operations));
+    }
+
+    /**
+     * To be called holding the cart lock, so the cart can't change between the check and the change
+     */
+    private void checkVersion(Integer userId, String ifMatch) {
+        if (!CartVersions.ifMatchHolds(ifMatch, cartVersions.etag(userId))) {
+            throw new CartVersionMismatchException(
+                    "Cart of user " + userId + " has changed since version " + ifMatch + ", please reload !!");
+        }
+    }
+
+    /**
+     * Lines always carry productId and quantity, cost only when fields is absent or lists it
+     */
+    private static boolean includesCost(String fields) {
+        if (fields == null) {
+            return true;
+        }
+        boolean withCost = false;
+        for (String field : fields.split(",")) {
+            switch (field.trim()) {
+                case FIELD_PRODUCT_ID:
+                case FIELD_QUANTITY:
+                    break;
+                case FIELD_COST:
+                    withCost = true;
+                    break;
+                default:
+                    throw new InvalidDataException("Unknown field " + field.trim() + ", fields should be out of "
+                            + FIELD_PRODUCT_ID + ", " + FIELD_QUANTITY + " and " + FIELD_COST + " !!");
+            }
+        }
+        return withCost;
+    }
+
+    /**
+     * Tags the response with the cart version, kept with cart.single-instance only
+     */
+    private static <B extends ResponseEntity.HeadersBuilder<B>> B eTag(B builder, String etag) {
+        return etag == null ? builder : builder.eTag(etag);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate()).build();
+    }
+
+    private void validateUser(Integer userId) {
+        if (!userService.userExists(userId)) {
+            throw new InvalidDataException("User corresponding to id " + userId + " doesn't exist !!");
+        }
+    }
+
+    private void validateUserAndProduct(Integer userId, Integer productId) {
+
+        validateUser(userId);
+
+        if (productService.getProductById(productId) == null) {
+            throw new InvalidDataException("Product corresponding to id " + productId + " doesn't exist !!");
+        }
+    }
+}
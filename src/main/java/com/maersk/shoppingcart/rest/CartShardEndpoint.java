@@ -0,0 +1,58 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.dto.ShardMigrationResult;
+import com.maersk.shoppingcart.service.CartShardMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Admin endpoints for the shards carts are spread over, restricted to the ADMIN role
+ *
+ * @author Sumit Kumar
+ */
+@RequestMapping("/admin/shards")
+@RestController
+public class CartShardEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartShardEndpoint.class);
+
+    private final CartShardMigrationService cartShardMigrationService;
+
+    @Autowired
+    public CartShardEndpoint(CartShardMigrationService cartShardMigrationService) {
+        this.cartShardMigrationService = cartShardMigrationService;
+    }
+
+    /**
+     * starts moving carts onto the given number of shards in the background, a migration can take as long as there
+     * are carts to move so the request doesn't wait for it
+     *
+     * @returns 202 with the migration just started, its progress is served by the Location of the response
+     */
+    @PostMapping("/migrate")
+    public ResponseEntity<ShardMigrationResult> migrate(@RequestParam int count) {
+        logger.info("Migrating carts onto {} shards", count);
+        ShardMigrationResult result = cartShardMigrationService.startMigration(count);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/admin/shards/migration")
+                        .build().toUri())
+                .body(result);
+    }
+
+    /**
+     * @returns state and progress of the running or last migration, 404 if there was none since startup
+     */
+    @GetMapping("/migration")
+    public ResponseEntity<ShardMigrationResult> getMigration() {
+        ShardMigrationResult result = cartShardMigrationService.getLastMigration();
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,51 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoints for products, restricted to the ADMIN role. Products are maintained in the database directly, these
+ * tell the application a product changed so its cost shows up right away instead of after the cache expiry.
+ *
+ * @author Sumit Kumar
+ */
+@RequestMapping("/admin/products")
+@RestController
+public class ProductAdminEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductAdminEndpoint.class);
+
+    private final ProductService productService;
+
+    @Autowired
+    public ProductAdminEndpoint(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * drops the cached product along with cart summaries and cart versions based on its old cost
+     */
+    @PostMapping("/{productId}/evict")
+    public ResponseEntity<Void> evictProduct(@PathVariable Integer productId) {
+        logger.info("Evicting product: {}", productId);
+        productService.evictProduct(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * same as {@link #evictProduct} for every product, after bulk price changes
+     */
+    @PostMapping("/evict")
+    public ResponseEntity<Void> evictAllProducts() {
+        logger.info("Evicting all products");
+        productService.evictAllProducts();
+        return ResponseEntity.noContent().build();
+    }
+}
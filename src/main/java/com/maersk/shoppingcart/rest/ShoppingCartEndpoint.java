@@ -1,55 +1,84 @@
 package com.maersk.shoppingcart.rest;
 
-import com.maersk.shoppingcart.dto.CartDetails;
-import com.maersk.shoppingcart.exception.InvalidDataException;
-import com.maersk.shoppingcart.service.CartService;
-import com.maersk.shoppingcart.service.ProductService;
-import com.maersk.shoppingcart.service.UserService;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.metrics.CartMetrics;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
+ * Serves cart requests on the request thread in blocking execution mode, {@link AsyncShoppingCartEndpoint} serves the
+ * same paths in async mode
+ *
  * @author Sumit Kumar
  */
 @RequestMapping("/cart")
 @RestController
+@ConditionalOnProperty(name = "cart.execution.mode", havingValue = "blocking", matchIfMissing = true)
 public class ShoppingCartEndpoint {
 
     private static final Logger logger = LoggerFactory.getLogger(ShoppingCartEndpoint.class);
 
-    private final CartService cartService;
-    private final UserService userService;
-    private final ProductService productService;
-
-    @Value("${cart.item.max.allowed:5}")
-    private int itemMaxAllowed;
+    private final CartRequests cartRequests;
+    private final CartMetrics cartMetrics;
 
     @Autowired
-    public ShoppingCartEndpoint(CartService cartService, UserService userService,
-            ProductService productService) {
-        this.cartService = cartService;
-        this.userService = userService;
-        this.productService = productService;
+    public ShoppingCartEndpoint(CartRequests cartRequests, CartMetrics cartMetrics) {
+        this.cartRequests = cartRequests;
+        this.cartMetrics = cartMetrics;
     }
 
     /**
-     * @returns all items in users cart with cumulative cost
+     * @returns items in users cart with cumulative cost of the whole cart, tagged with the cart version. With limit
+     * the items come in pages of productIds after the given one, nextAfter of the response leads to the next page. With
+     * fields not listing cost the items only carry productId and quantity. Not modified without reading the cart if
+     * If-None-Match has the current version.
      */
     @GetMapping("/{userId}")
-    public CartDetails getCartDetailsForUser(@PathVariable Integer userId) {
-        logger.debug("Fetching full cart for user: {}", userId);
-        validateUser(userId);
-        return cartService.getCartDetails(userId);
+    public ResponseEntity<?> getCartDetailsForUser(@PathVariable Integer userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("Fetching cart for user: {}, after: {}, limit: {}, fields: {}", userId, after, limit, fields);
+        return cartMetrics.record("get_cart",
+                () -> cartRequests.getCartDetails(userId, after, limit, fields, ifNoneMatch));
+    }
+
+    /**
+     * @returns number of lines, number of items and total cost of users cart without listing the items, tagged with
+     * the cart version like the full cart
+     */
+    @GetMapping(value = "/{userId}", params = "summary=true")
+    public ResponseEntity<CartSummary> getCartSummaryForUser(@PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("Fetching cart summary for user: {}", userId);
+        return cartMetrics.record("get_cart_summary", () -> cartRequests.getCartSummary(userId, ifNoneMatch));
+    }
+
+    /**
+     * Alias of {@link #getCartSummaryForUser} kept for clients only showing totals (checkout, header widgets)
+     */
+    @GetMapping("/{userId}/total")
+    public ResponseEntity<CartSummary> getCartTotalForUser(@PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getCartSummaryForUser(userId, ifNoneMatch);
     }
 
     /**
@@ -58,66 +87,59 @@ public class ShoppingCartEndpoint {
     @GetMapping("/{userId}/{productId}/")
     public Integer getCountOfItemInCart(@PathVariable Integer userId, @PathVariable Integer productId) {
         logger.debug("Fetching count of product: {} in cart of user : {}", productId, userId);
-        validateUserAndProduct(userId, productId);
-        return cartService.getCountOfItem(userId, productId);
+        return cartMetrics.record("get_item_count", () -> cartRequests.getCountOfItem(userId, productId));
     }
 
     /**
-     * clears the given product from users cart throws exception if not present
+     * clears the given product from users cart throws exception if not present. With If-Match the cart should still
+     * be at that version.
+     *
+     * @returns ETag of the changed cart
      */
     @DeleteMapping("/{userId}/{productId}/")
-    public void deleteItemFromCart(@PathVariable Integer userId, @PathVariable Integer productId) {
+    public ResponseEntity<Void> deleteItemFromCart(@PathVariable Integer userId,
+            @PathVariable Integer productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.debug("Delete product: {} from user: {} cart", productId, userId);
-        validateUserAndProduct(userId, productId);
-
-        cartService.deleteItemFromCart(userId, productId);
+        return cartMetrics.record("delete_item", () -> cartRequests.deleteItem(userId, productId, ifMatch));
     }
 
     /**
-     * updates quantity of items in cart, ensures number of items remains valid post update
+     * updates quantity of items in cart, ensures number of items remains valid post update. In write-behind mode the
+     * change is buffered and written to DB shortly after. With If-Match the cart should still be at that version.
+     *
+     * @returns ETag of the changed cart
      */
     @PutMapping("/{userId}/{productId}/")
-    public void updateItemInCart(@PathVariable Integer userId, @PathVariable Integer productId,
-            @RequestParam Integer changed) {
+    public ResponseEntity<Void> updateItemInCart(@PathVariable Integer userId,
+            @PathVariable Integer productId,
+            @RequestParam Integer changed,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.debug("Updating product : {} count by {} in user : {} cart", productId, changed, userId);
-        validateUserAndProduct(userId, productId);
-        if (changed == 0) {
-            throw new InvalidDataException("Changed should not be zero !!");
-        }
-        cartService.updateCart(userId, productId, changed);
-
+        return cartMetrics.record("update_item", () -> cartRequests.updateItem(userId, productId, changed, ifMatch));
     }
 
     /**
-     * adds new item to cart
+     * adds new item to cart, with merge=true quantity is added to the item if already present in cart
      */
     @PostMapping("/{userId}/{productId}/")
     public void addItemToCart(@PathVariable Integer userId, @PathVariable Integer productId,
-            @RequestParam Integer quantity) {
+            @RequestParam Integer quantity, @RequestParam(defaultValue = "false") boolean merge) {
 
         logger.debug("Adding product : {} with quantity : {} to user : {} cart", productId, quantity, userId);
-        // perform validations : ensure user and product exists and valid quantity value
-        if (quantity <= 0 && quantity > itemMaxAllowed) {
-            throw new InvalidDataException(
-                    "Quantity should be greater than zero and less than " + itemMaxAllowed + " !!");
-        }
-        validateUserAndProduct(userId, productId);
-
-        cartService.addProductToCart(userId, productId, quantity);
-    }
-
-    private void validateUser(Integer userId) {
-        if (userService.getUserById(userId) == null) {
-            throw new InvalidDataException("User corresponding to id " + userId + " doesn't exist !!");
-        }
+        cartMetrics.record(merge ? "merge_item" : "add_item",
+                () -> cartRequests.addItem(userId, productId, quantity, merge));
     }
 
-    private void validateUserAndProduct(Integer userId, Integer productId) {
-
-        validateUser(userId);
-
-        if (productService.getProductById(productId) == null) {
-            throw new InvalidDataException("Product corresponding to id " + productId + " doesn't exist !!");
-        }
+    /**
+     * applies a list of add/update/delete operations to users cart in a single request
+     *
+     * @returns outcome of every operation in the order they were sent
+     */
+    @PostMapping("/{userId}/batch")
+    public List<CartOperationResult> applyOperationsToCart(@PathVariable Integer userId,
+            @RequestBody List<CartOperation> operations) {
+        logger.debug("Applying {} operations to user : {} cart", operations.size(), userId);
+        return cartMetrics.record("apply_operations", () -> cartRequests.applyOperations(userId, operations));
     }
 }
@@ -0,0 +1,93 @@
+package com.maersk.shoppingcart.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Remembers successful username/password authentications for a short while, so HTTP Basic requests do not pay a full
+ * password hash verification every time. Entries are keyed on an HMAC-SHA256 digest of the credentials with a key
+ * generated at startup, plain passwords are never kept. Failed attempts are never cached and always reach the
+ * delegate.
+ *
+ * @author Sumit Kumar
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> authentications;
+    private final SecretKeySpec digestKey;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, long maxSize, Duration ttl) {
+        this.delegate = delegate;
+        this.authentications = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        byte[] key = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String key = digest(authentication.getName(), authentication.getCredentials().toString());
+        Authentication cached = authentications.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            authentications.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication)
+                && delegate.supports(authentication);
+    }
+
+    /**
+     * Forgets all cached authentications, to be called whenever credentials or authorities change
+     */
+    public void invalidateAll() {
+        authentications.invalidateAll();
+    }
+
+    Cache<String, Authentication> getCache() {
+        return authentications;
+    }
+
+    private String digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            // separator keeps ("ab", "c") and ("a", "bc") apart
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
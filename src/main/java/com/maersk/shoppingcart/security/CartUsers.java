@@ -0,0 +1,43 @@
+package com.maersk.shoppingcart.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+/**
+ * Users of the cart api, shared by the servlet and the reactive application so both check the same users the same
+ * way. Free of the servlet api, which the reactive application does not have.
+ *
+ * @author Sumit Kumar
+ */
+public final class CartUsers {
+
+    // bcrypt hash of "password"
+    private static final String ADMIN_PASSWORD = "{bcrypt}$2a$10$sVwMc4cHSPGRURCF9GMojO68..9T/3skX542gqGfsMe30M6Fn7w8O";
+
+    private CartUsers() {
+    }
+
+    /**
+     * Basic auth sends credentials with every request, verified credentials are cached so that only the first request
+     * within the ttl pays for the bcrypt check
+     */
+    public static CachingAuthenticationProvider authenticationProvider(MeterRegistry meterRegistry, long cacheMaxSize,
+            Duration cacheTtl) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        daoAuthenticationProvider.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername("admin")
+                .password(ADMIN_PASSWORD)
+                .roles("USER", "ADMIN")
+                .build()));
+
+        CachingAuthenticationProvider authenticationProvider =
+                new CachingAuthenticationProvider(daoAuthenticationProvider, cacheMaxSize, cacheTtl);
+        CaffeineCacheMetrics.monitor(meterRegistry, authenticationProvider.getCache(), "authentication");
+        return authenticationProvider;
+    }
+}
@@ -1,6 +1,10 @@
 package com.maersk.shoppingcart.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -18,16 +22,24 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     protected void configure(HttpSecurity http) throws Exception {
         http
                 .csrf().disable()
-                .authorizeRequests().anyRequest().authenticated()
+                .authorizeRequests()
+                .antMatchers("/admin/**").hasRole("ADMIN")
+                .anyRequest().authenticated()
                 .and()
                 .httpBasic();
     }
 
     @Autowired
-    public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
-        auth.inMemoryAuthentication()
-                .withUser("admin")
-                .password("{noop}password")
-                .roles("USER");
+    public void configureGlobal(AuthenticationManagerBuilder auth,
+            CachingAuthenticationProvider authenticationProvider) {
+        auth.authenticationProvider(authenticationProvider);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public CachingAuthenticationProvider authenticationProvider(MeterRegistry meterRegistry,
+            @Value("${security.auth.cache.max-size:1000}") long cacheMaxSize,
+            @Value("${security.auth.cache.ttl:60s}") Duration cacheTtl) {
+        return CartUsers.authenticationProvider(meterRegistry, cacheMaxSize, cacheTtl);
+    }
+}
+
@@ -0,0 +1,308 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.exception.CartLockTimeoutException;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Purges carts none of whose lines has changed for longer than ttl, optionally keeping their lines in carts_archive.
+ * Every shard is scanned in userId order a batch of carts at a time, each idle cart is then deleted in a short
+ * transaction of its own under the cart lock of the user, at no more than max-carts-per-second. Carts locked by live
+ * requests are skipped till the next run.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class CartExpiryService {
+
+    public static final String PURGED_CARTS_COUNTER = "cart.expiry.purged.carts";
+    public static final String PURGED_LINES_COUNTER = "cart.expiry.purged.lines";
+    public static final String SKIPPED_CARTS_COUNTER = "cart.expiry.skipped";
+    public static final String RUN_TIMER = "cart.expiry.run";
+    public static final String LAG_GAUGE = "cart.expiry.lag";
+
+    private static final Logger logger = LoggerFactory.getLogger(CartExpiryService.class);
+
+    private static final String SELECT_NOW = "select current_timestamp";
+    private static final String SELECT_CARTS = "select userId, max(lastModified) from carts where userId > ? "
+            + "group by userId order by userId limit ?";
+    private static final String SELECT_LAST_MODIFIED_FOR_UPDATE =
+            "select lastModified from carts where userId = ? for update";
+    private static final String ARCHIVE_CART = "insert into carts_archive (userId, productId, quantity, lastModified) "
+            + "select userId, productId, quantity, lastModified from carts where userId = ?";
+    private static final String DELETE_CART = "delete from carts where userId = ?";
+
+    private final CartShards cartShards;
+    private final CartLocks cartLocks;
+    private final CartWriteBehindService cartWriteBehindService;
+    private final CartSummaryService cartSummaryService;
+    private final CartVersions cartVersions;
+    private final CartStore cartStore;
+    private final ReadYourWrites readYourWrites;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int batchSize;
+    private final int maxCartsPerSecond;
+    private final boolean archive;
+    private final ScheduledExecutorService purger;
+    private final ReentrantLock runLock = new ReentrantLock();
+    // carts idle since before this were purged by the last complete run unless in use, epoch millis
+    private volatile long purgedUpTo = System.currentTimeMillis();
+
+    private final Counter purgedCartsCounter;
+    private final Counter purgedLinesCounter;
+    private final Counter skippedCartsCounter;
+    private final Timer runTimer;
+
+    @Autowired
+    public CartExpiryService(CartShards cartShards, CartLocks cartLocks, CartWriteBehindService cartWriteBehindService,
+            CartSummaryService cartSummaryService, CartVersions cartVersions, CartStore cartStore,
+            ReadYourWrites readYourWrites, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cart.expiry.enabled:false}") boolean enabled,
+            @Value("${cart.expiry.ttl:30d}") Duration ttl,
+            @Value("${cart.expiry.interval:1h}") Duration interval,
+            @Value("${cart.expiry.batch-size:100}") int batchSize,
+            @Value("${cart.expiry.max-carts-per-second:50}") int maxCartsPerSecond,
+            @Value("${cart.expiry.archive:false}") boolean archive) {
+        if (batchSize <= 0 || maxCartsPerSecond <= 0) {
+            throw new IllegalArgumentException("Cart expiry batch size and carts per second should be positive");
+        }
+        this.cartShards = cartShards;
+        this.cartLocks = cartLocks;
+        this.cartWriteBehindService = cartWriteBehindService;
+        this.cartSummaryService = cartSummaryService;
+        this.cartVersions = cartVersions;
+        this.cartStore = cartStore;
+        this.readYourWrites = readYourWrites;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.maxCartsPerSecond = maxCartsPerSecond;
+        this.archive = archive;
+
+        this.purgedCartsCounter = Counter.builder(PURGED_CARTS_COUNTER)
+                .description("Idle carts purged")
+                .register(meterRegistry);
+        this.purgedLinesCounter = Counter.builder(PURGED_LINES_COUNTER)
+                .description("Lines of idle carts purged")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.skippedCartsCounter = Counter.builder(SKIPPED_CARTS_COUNTER)
+                .description("Idle carts left for the next run as they were locked")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder(RUN_TIMER).register(meterRegistry);
+        TimeGauge.builder(LAG_GAUGE, this, TimeUnit.MILLISECONDS,
+                service -> System.currentTimeMillis() - service.purgedUpTo)
+                .description("How long carts idle for more than ttl may have been left unpurged")
+                .register(meterRegistry);
+
+        if (enabled) {
+            purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = interval.toMillis();
+            purger.scheduleWithFixedDelay(this::scheduledPurge, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            purger = null;
+        }
+    }
+
+    /**
+     * Purges carts idle for longer than ttl on every shard, waits for a run already in progress first
+     *
+     * @returns number of carts purged
+     */
+    public long purgeIdleCarts() {
+        runLock.lock();
+        try {
+            long startMillis = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Run run = new Run();
+            int shards = cartShards.isEnabled() ? cartShards.getConfiguredShards() : 1;
+            for (int shard = 0; shard < shards && !run.interrupted; shard++) {
+                purgeShard(shard, run);
+            }
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!run.interrupted) {
+                purgedUpTo = startMillis;
+            }
+            logger.info("Purged {} idle carts with {} lines, skipped {} in {} ms", run.purgedCarts, run.purgedLines,
+                    run.skipped, (System.nanoTime() - start) / 1_000_000);
+            return run.purgedCarts;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (purger == null) {
+            return;
+        }
+        // interrupts the pause between carts, the cart being purged is finished first
+        purger.shutdownNow();
+        try {
+            purger.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduledPurge() {
+        try {
+            purgeIdleCarts();
+        } catch (RuntimeException e) {
+            // carts left behind are picked up by the next run
+            logger.error("Purging idle carts failed", e);
+        }
+    }
+
+    /**
+     * Cutoff is taken from the clock of the database writing lastModified, so it doesn't depend on the time zone of
+     * the application
+     */
+    private void purgeShard(int shard, Run run) {
+        Timestamp now = onShard(shard, () -> {
+            QueryCounter.statementExecuted();
+            return jdbcTemplate.queryForObject(SELECT_NOW, Timestamp.class);
+        });
+        Timestamp cutoff = new Timestamp(now.getTime() - ttl.toMillis());
+        int after = Integer.MIN_VALUE;
+        while (true) {
+            int from = after;
+            List<Integer> idle = new ArrayList<>();
+            List<Integer> userIds = onShard(shard, () -> {
+                QueryCounter.statementExecuted();
+                return jdbcTemplate.query(SELECT_CARTS, (rs, row) -> {
+                    int userId = rs.getInt(1);
+                    if (rs.getTimestamp(2).before(cutoff)) {
+                        idle.add(userId);
+                    }
+                    return userId;
+                }, from, batchSize);
+            });
+            for (Integer userId : idle) {
+                if (!run.pace()) {
+                    return;
+                }
+                purgeCart(shard, userId, cutoff, run);
+            }
+            if (userIds.size() < batchSize) {
+                return;
+            }
+            after = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    private void purgeCart(int shard, Integer userId, Timestamp cutoff, Run run) {
+        int lines;
+        try {
+            lines = cartLocks.withLock(userId, () -> {
+                // changes still pending in write-behind mode make the cart active again once written
+                cartWriteBehindService.flush(userId);
+                Integer deleted = onShard(shard, () -> transactionTemplate.execute(status ->
+                        deleteIfIdle(userId, cutoff)));
+                return deleted == null ? 0 : deleted;
+            });
+        } catch (CartLockTimeoutException e) {
+            skippedCartsCounter.increment();
+            run.skipped++;
+            return;
+        }
+        if (lines > 0) {
+            purgedCartsCounter.increment();
+            purgedLinesCounter.increment(lines);
+            run.purgedCarts++;
+            run.purgedLines += lines;
+        }
+    }
+
+    /**
+     * Lines are locked in DB before they are checked again, so a change from another instance either comes first and
+     * keeps the cart or waits for it to be deleted
+     *
+     * @returns number of lines deleted
+     */
+    private int deleteIfIdle(Integer userId, Timestamp cutoff) {
+        QueryCounter.statementExecuted();
+        List<Timestamp> lastModified = jdbcTemplate.queryForList(SELECT_LAST_MODIFIED_FOR_UPDATE, Timestamp.class,
+                userId);
+        if (lastModified.isEmpty() || lastModified.stream().anyMatch(modified -> !modified.before(cutoff))) {
+            return 0;
+        }
+        if (archive) {
+            QueryCounter.statementExecuted();
+            jdbcTemplate.update(ARCHIVE_CART, userId);
+        }
+        QueryCounter.statementExecuted();
+        int lines = jdbcTemplate.update(DELETE_CART, userId);
+        cartSummaryService.onCartChange(userId, null);
+        cartVersions.onCartChange(userId);
+        cartStore.evict(userId);
+        readYourWrites.onWrite(userId);
+        return lines;
+    }
+
+    private <T> T onShard(int shard, Supplier<T> action) {
+        return cartShards.isEnabled() ? cartShards.onShard(shard, action) : action.get();
+    }
+
+    /**
+     * Progress of one run, spacing the carts it purges out to at most maxCartsPerSecond
+     */
+    private final class Run {
+
+        private final long spacingNanos = 1_000_000_000L / maxCartsPerSecond;
+        private long next = System.nanoTime();
+        private long purgedCarts;
+        private long purgedLines;
+        private long skipped;
+        private boolean interrupted;
+
+        /**
+         * Waits for the turn of the next cart, a slow cart doesn't let the ones after it catch up
+         *
+         * @returns false once the run is to stop, on shutdown
+         */
+        private boolean pace() {
+            long wait = next - System.nanoTime();
+            try {
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            next = Math.max(next, System.nanoTime()) + spacingNanos;
+            return !interrupted;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.maersk.shoppingcart.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maersk.shoppingcart.dto.CartExportLine;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes every cart line joined with product cost to a stream as NDJSON or CSV. Lines are read through a database
+ * cursor and written as they arrive, so memory use does not depend on the number of carts. With shards, they are
+ * exported one shard after the other.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class CartExportService {
+
+    public static final String EXPORT_TIMER = "cart.export";
+    public static final String EXPORT_ROWS_COUNTER = "cart.export.rows";
+
+    private static final Logger logger = LoggerFactory.getLogger(CartExportService.class);
+    private static final String CSV_HEADER = "userId,productId,quantity,cost";
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final CartRepository cartRepository;
+    private final CartShards cartShards;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter lineWriter;
+    private final MeterRegistry meterRegistry;
+    private final Counter rowsCounter;
+
+    @Autowired
+    public CartExportService(CartRepository cartRepository, CartShards cartShards,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.cartShards = cartShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // output is flushed as the buffer fills up, not after every line
+        this.lineWriter = objectMapper.writerFor(CartExportLine.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+        this.rowsCounter = Counter.builder(EXPORT_ROWS_COUNTER)
+                .description("Cart lines written by exports, its rate is the export throughput in rows per second")
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes all cart lines to out, which is flushed but not closed
+     *
+     * @returns number of lines written
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        String outcome = "success";
+        long rows = 0;
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            if (cartShards.isEnabled()) {
+                for (int shard = 0; shard < cartShards.getConfiguredShards(); shard++) {
+                    rows += cartShards.onShard(shard, () -> exportLines(format, writer));
+                }
+            } else {
+                rows = exportLines(format, writer);
+            }
+            writer.flush();
+            return rows;
+        } catch (UncheckedIOException e) {
+            outcome = e.getCause().getClass().getSimpleName();
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            Timer.builder(EXPORT_TIMER)
+                    .description("Time taken by an export of all cart lines")
+                    .tag("format", format.name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            logger.info("Exported {} cart lines as {} in {} ms, {} rows/s", rows, format, nanos / 1_000_000,
+                    nanos == 0 ? rows : rows * 1_000_000_000L / nanos);
+        }
+    }
+
+    private long exportLines(Format format, Writer writer) {
+        return transactionTemplate.execute(status -> {
+            try (Stream<CartExportLine> lines = cartRepository.streamAllForExport()) {
+                return format == Format.CSV ? writeCsv(lines.iterator(), writer) : writeNdjson(lines.iterator(), writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long writeNdjson(Iterator<CartExportLine> lines, Writer writer) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = lineWriter.createGenerator(writer)) {
+            // the writer is closed by the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (lines.hasNext()) {
+                lineWriter.writeValue(generator, lines.next());
+                generator.writeRaw('\n');
+                rows = counted(rows);
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<CartExportLine> lines, Writer writer) throws IOException {
+        long rows = 0;
+        while (lines.hasNext()) {
+            CartExportLine line = lines.next();
+            writer.write(Integer.toString(line.getUserId()));
+            writer.write(',');
+            writer.write(Integer.toString(line.getProductId()));
+            writer.write(',');
+            writer.write(Integer.toString(line.getQuantity()));
+            writer.write(',');
+            writer.write(Money.toString(line.getCost()));
+            writer.write('\n');
+            rows = counted(rows);
+        }
+        return rows;
+    }
+
+    private long counted(long rows) {
+        rowsCounter.increment();
+        return rows + 1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.exception.CartLockTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes changes to a cart with a fixed set of locks striped by user id, changes of users on different stripes
+ * run in parallel. Locks are to be taken before the transaction starts, so waiting threads don't hold a connection.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartLocks {
+
+    public static final String LOCK_WAIT_TIMER = "cart.lock.wait";
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final long timeoutNanos;
+    private final Timer acquiredTimer;
+    private final Timer timedOutTimer;
+
+    @Autowired
+    public CartLocks(MeterRegistry meterRegistry, @Value("${cart.lock.stripes:256}") int stripes,
+            @Value("${cart.lock.timeout:2s}") Duration timeout) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of lock stripes should be positive");
+        }
+        // rounded up to a power of two so that a stripe is picked with a mask
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = timeout.toNanos();
+        this.acquiredTimer = lockWaitTimer(meterRegistry, "acquired");
+        this.timedOutTimer = lockWaitTimer(meterRegistry, "timeout");
+    }
+
+    public <T> T withLock(Integer userId, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(userId)];
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CartLockTimeoutException("Interrupted while waiting for cart of user " + userId);
+        }
+        (acquired ? acquiredTimer : timedOutTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw new CartLockTimeoutException(
+                    "Cart of user " + userId + " is being changed by another request, please retry !!");
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withLock(Integer userId, Runnable action) {
+        withLock(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    int stripeCount() {
+        return locks.length;
+    }
+
+    int stripe(Integer userId) {
+        int hash = userId.hashCode();
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private static Timer lockWaitTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(LOCK_WAIT_TIMER)
+                .description("Time spent waiting for the lock of a cart before changing it")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,114 +1,398 @@
 package com.maersk.shoppingcart.service;
 
 import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.dto.CartSummary;
 import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.dto.ProductView;
 import com.maersk.shoppingcart.entity.Cart;
-import com.maersk.shoppingcart.entity.Product;
 import com.maersk.shoppingcart.exception.DuplicateDataException;
 import com.maersk.shoppingcart.exception.InvalidDataException;
-import com.maersk.shoppingcart.jpa.CartRepository;
-import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartWriteBehindService.PendingLine;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import javax.transaction.Transactional;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
+ * Lines are read and written through the configured {@link CartStore}. Reads run in read-only transactions, which
+ * are served by replicas when configured. With shards, every transaction runs on the shard of the user.
+ *
  * @author Sumit Kumar
  */
 @Service
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
-
-
-    @Value("${cart.item.max.allowed:5}")
-    private int itemMaxAllowed;
+    private final CartStore cartStore;
+    private final ProductService productService;
+    private final CartSummaryService cartSummaryService;
+    private final CartVersions cartVersions;
+    private final CartWriteBehindService cartWriteBehindService;
+    private final ReadYourWrites readYourWrites;
+    private final CartShards cartShards;
+    private final int itemMaxAllowed;
 
     @Autowired
-    public CartService(CartRepository cartRepository, ProductRepository productRepository) {
-        this.cartRepository = cartRepository;
-        this.productRepository = productRepository;
+    public CartService(CartStore cartStore, ProductService productService,
+            CartSummaryService cartSummaryService, CartVersions cartVersions,
+            CartWriteBehindService cartWriteBehindService, ReadYourWrites readYourWrites, CartShards cartShards,
+            @Value("${cart.item.max.allowed:5}") int itemMaxAllowed) {
+        this.cartStore = cartStore;
+        this.productService = productService;
+        this.cartSummaryService = cartSummaryService;
+        this.cartVersions = cartVersions;
+        this.cartWriteBehindService = cartWriteBehindService;
+        this.readYourWrites = readYourWrites;
+        this.cartShards = cartShards;
+        this.itemMaxAllowed = itemMaxAllowed;
     }
 
+    @Transactional
     public void addProductToCart(Integer userId, Integer productId, int quantity) {
-        cartRepository.findByUserIdAndProductId(userId, productId).ifPresent(s -> {
+        cartShards.route(userId);
+        cartWriteBehindService.flush(userId);
+        try {
+            cartStore.insert(userId, productId, quantity);
+        } catch (DataIntegrityViolationException e) {
+            // user and product are validated upfront, so the only constraint left to violate is the primary key
             throw new DuplicateDataException("This item is already present in users cart !!");
-        });
-
-        Cart cart = new Cart();
-        cart.setProductId(productId);
-        cart.setUserId(userId);
-        cart.setQuantity(quantity);
+        }
+        cartChanged(userId, productId, 1, quantity);
+    }
 
-        cartRepository.save(cart);
+    /**
+     * adds new item to cart or increases quantity of existing one, quantity is capped at max allowed
+     */
+    @Transactional
+    public void mergeProductIntoCart(Integer userId, Integer productId, int quantity) {
+        cartShards.route(userId);
+        cartWriteBehindService.flush(userId);
+        cartStore.insertOrMergeQuantity(userId, productId, quantity, itemMaxAllowed);
+        // whether a line was added and how much of quantity was taken is not known, summary is reloaded
+        cartChanged(userId, null);
     }
 
     @Transactional
     public void deleteItemFromCart(Integer userId, Integer productId) {
-        cartRepository.findByUserIdAndProductId(userId, productId).orElseThrow(() ->
-                new InvalidDataException("Item with id: " + productId + " is not present in user's cart !"));
+        cartShards.route(userId);
+        cartWriteBehindService.flush(userId);
+        Integer quantity = cartStore.findQuantity(userId, productId);
+        if (quantity == null) {
+            throw new InvalidDataException("Item with id: " + productId + " is not present in user's cart !");
+        }
 
-        cartRepository.deleteByUserIdAndProductId(userId, productId);
+        cartStore.delete(userId, productId);
+        cartChanged(userId, productId, -1, -quantity);
     }
 
+    /**
+     * Applies change with a conditional update so that concurrent changes to same line are never lost, line is
+     * removed when its quantity drops to zero. In write-behind mode changes are buffered by CartWriteBehindService
+     * instead.
+     */
     @Transactional
     public void updateCart(Integer userId, Integer productId, Integer changed) {
-        Cart cart = cartRepository.findByUserIdAndProductId(userId, productId).orElseThrow(() ->
-                new InvalidDataException("Item with id: " + productId + " is not present in user's cart !"));
+        cartShards.route(userId);
+        cartWriteBehindService.flush(userId);
+        if (changed < 0 && cartStore.deleteIfQuantityDropsToZero(userId, productId, changed) == 1) {
+            cartChanged(userId, productId, -1, changed);
+            return;
+        }
+        if (cartStore.updateQuantity(userId, productId, changed, itemMaxAllowed) == 1) {
+            cartChanged(userId, productId, 0, changed);
+            return;
+        }
+
+        // nothing changed, find out whether item is missing or new quantity is out of the allowed range
+        if (cartStore.findQuantity(userId, productId) == null) {
+            throw new InvalidDataException("Item with id: " + productId + " is not present in user's cart !");
+        }
+        throw new InvalidDataException("Updated item quantity should be within 0 and " + itemMaxAllowed);
+    }
+
+    /**
+     * Applies operations in given order within one transaction. Products are validated with a single query and
+     * users cart is loaded once, resulting inserts, updates and deletes are sent as JDBC batches on flush.
+     *
+     * @returns outcome of every operation, failed operations (including null ones) don't affect the rest of the
+     * batch. The cart is left untouched when every operation failed.
+     */
+    @Transactional
+    public List<CartOperationResult> applyOperations(Integer userId, List<CartOperation> operations) {
+        cartShards.route(userId);
+        cartWriteBehindService.flush(userId);
+        Set<Integer> productIds = new HashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation != null && operation.getProductId() != null) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        Set<Integer> existingProductIds = productService.findExistingProductIds(productIds);
+
+        Map<Integer, Cart> originalLines = new HashMap<>();
+        for (Cart cart : cartStore.findAllForUpdate(userId)) {
+            originalLines.put(cart.getProductId(), cart);
+        }
+        QueryCounter.rowsFetched(existingProductIds.size());
+        Map<Integer, Cart> lines = new HashMap<>(originalLines);
+
+        List<CartOperationResult> results = new ArrayList<>(operations.size());
+        int applied = 0;
+        for (CartOperation operation : operations) {
+            if (operation == null) {
+                results.add(new CartOperationResult(null, null, false,
+                        "Operation type and product id are mandatory !!"));
+                continue;
+            }
+            try {
+                applyOperation(userId, operation, existingProductIds, originalLines, lines);
+                results.add(new CartOperationResult(operation.getType(), operation.getProductId(), true, null));
+                applied++;
+            } catch (InvalidDataException | DuplicateDataException e) {
+                results.add(new CartOperationResult(operation.getType(), operation.getProductId(), false,
+                        e.getMessage()));
+            }
+        }
+        if (applied == 0) {
+            return results;
+        }
+
+        List<Cart> removedLines = new ArrayList<>();
+        for (Cart cart : originalLines.values()) {
+            if (!lines.containsKey(cart.getProductId())) {
+                removedLines.add(cart);
+            }
+        }
+        List<Cart> addedLines = new ArrayList<>();
+        for (Cart cart : lines.values()) {
+            if (!originalLines.containsKey(cart.getProductId())) {
+                addedLines.add(cart);
+            }
+        }
+        // quantity changes of loaded lines are picked up by dirty checking
+        cartStore.saveLines(userId, removedLines, addedLines);
+        cartChanged(userId, null);
+        return results;
+    }
 
-        // make sure quantity remains within the allowed range ie. 0 to maxAllowed after change
-        int updatedQuantity = cart.getQuantity() + changed;
-        if (updatedQuantity < 0 || updatedQuantity > itemMaxAllowed) {
-            throw new InvalidDataException("Updated item quantity should be within 0 and " + itemMaxAllowed);
+    private void applyOperation(Integer userId, CartOperation operation, Set<Integer> existingProductIds,
+            Map<Integer, Cart> originalLines, Map<Integer, Cart> lines) {
+        Integer productId = operation.getProductId();
+        if (operation.getType() == null || productId == null) {
+            throw new InvalidDataException("Operation type and product id are mandatory !!");
+        }
+        if (!existingProductIds.contains(productId)) {
+            throw new InvalidDataException("Product corresponding to id " + productId + " doesn't exist !!");
         }
 
-        // delete cart row for current item if updated quantity is zero
-        if (updatedQuantity == 0) {
-            deleteItemFromCart(userId, productId);
-        } else {
-            cart.setQuantity(cart.getQuantity() + changed);
-            cartRepository.save(cart);
+        Cart cart = lines.get(productId);
+        switch (operation.getType()) {
+            case ADD:
+                Integer quantity = operation.getQuantity();
+                if (quantity == null || quantity <= 0 || quantity > itemMaxAllowed) {
+                    throw new InvalidDataException(
+                            "Quantity should be greater than zero and less than " + itemMaxAllowed + " !!");
+                }
+                if (cart != null) {
+                    throw new DuplicateDataException("This item is already present in users cart !!");
+                }
+                // line removed earlier in this batch is reused so that it turns into an update
+                cart = originalLines.get(productId);
+                if (cart == null) {
+                    cart = new Cart();
+                    cart.setUserId(userId);
+                    cart.setProductId(productId);
+                }
+                cart.setQuantity(quantity);
+                lines.put(productId, cart);
+                break;
+            case UPDATE:
+                Integer changed = operation.getChanged();
+                if (changed == null || changed == 0) {
+                    throw new InvalidDataException("Changed should not be zero !!");
+                }
+                if (cart == null) {
+                    throw new InvalidDataException("Item with id: " + productId + " is not present in user's cart !");
+                }
+                int updatedQuantity = cart.getQuantity() + changed;
+                if (updatedQuantity < 0 || updatedQuantity > itemMaxAllowed) {
+                    throw new InvalidDataException("Updated item quantity should be within 0 and " + itemMaxAllowed);
+                }
+                if (updatedQuantity == 0) {
+                    lines.remove(productId);
+                } else {
+                    cart.setQuantity(updatedQuantity);
+                }
+                break;
+            case DELETE:
+                if (cart == null) {
+                    throw new InvalidDataException("Item with id: " + productId + " is not present in user's cart !");
+                }
+                lines.remove(productId);
+                break;
         }
     }
 
+    /**
+     * Reads of a cart include changes not yet written in write-behind mode
+     */
+    @Transactional(readOnly = true)
     public int getCountOfItem(Integer userId, Integer productId) {
-        Cart cart = cartRepository.findByUserIdAndProductId(userId, productId).orElse(null);
-        if (cart == null) {
-            return 0;
+        cartShards.route(userId);
+        readYourWrites.onRead(userId);
+        return cartWriteBehindService.read(userId, pendingLines -> {
+            PendingLine pendingLine = pendingLines.get(productId);
+            if (pendingLine != null) {
+                return pendingLine.getQuantity();
+            }
+            Integer quantity = cartStore.findQuantity(userId, productId);
+            return quantity == null ? 0 : quantity;
+        });
+    }
+
+    /**
+     * @returns line count, item count and total cost of users cart, served from memory once loaded
+     */
+    public CartSummary getCartSummary(Integer userId) {
+        return cartWriteBehindService.read(userId, pendingLines -> getCartSummary(userId, pendingLines));
+    }
+
+    private CartSummary getCartSummary(Integer userId, Map<Integer, PendingLine> pendingLines) {
+        CartSummary summary = cartSummaryService.getSummary(userId);
+        if (pendingLines.isEmpty()) {
+            return summary;
         }
-        return cart.getQuantity();
+        return summary.plus(cartWriteBehindService.summaryChange(pendingLines));
     }
 
+    @Transactional(readOnly = true)
     public CartDetails getCartDetails(Integer userId) {
-        List<Cart> carts = cartRepository.findAllByUserId(userId);
+        cartShards.route(userId);
+        readYourWrites.onRead(userId);
+        return cartWriteBehindService.read(userId, pendingLines -> {
+            List<ProductDetails> productDetailsList = cartStore.findProductDetails(userId);
+            if (!pendingLines.isEmpty()) {
+                applyPendingLines(productDetailsList, pendingLines);
+            }
+            return toCartDetails(productDetailsList);
+        });
+    }
 
-        CartDetails cartDetails = new CartDetails();
-        if (carts == null) {
-            return cartDetails;
+    /**
+     * Same as getCartDetails with lines held in primitive arrays, for reads of the whole cart on hot paths
+     */
+    @Transactional(readOnly = true)
+    public CartLines getCartLines(Integer userId) {
+        cartShards.route(userId);
+        readYourWrites.onRead(userId);
+        return cartWriteBehindService.read(userId, pendingLines -> {
+            CartLines lines = cartStore.findCartLines(userId);
+            if (!pendingLines.isEmpty()) {
+                for (Map.Entry<Integer, PendingLine> entry : pendingLines.entrySet()) {
+                    int index = lines.indexOf(entry.getKey());
+                    if (index >= 0) {
+                        lines.setQuantity(index, entry.getValue().getQuantity());
+                    }
+                }
+                lines.removeEmptyLines();
+            }
+            return lines;
+        });
+    }
+
+    /**
+     * Keyset page of users cart, lines after the given productId (from the start when null), at most limit of them
+     * (all when null). Without cost the product join is skipped. Total cost is always that of the whole cart, taken
+     * from its summary.
+     *
+     * @returns lines of the page, nextAfter is set when more lines may follow
+     */
+    @Transactional(readOnly = true)
+    public CartDetails getCartDetails(Integer userId, Integer after, Integer limit, boolean withCost) {
+        cartShards.route(userId);
+        if (after == null && limit == null && withCost) {
+            return getCartDetails(userId);
         }
+        readYourWrites.onRead(userId);
+        return cartWriteBehindService.read(userId, pendingLines -> {
+            // one line more than asked for tells whether there is a next page
+            List<ProductDetails> productDetailsList = cartStore.findProductDetailsPage(userId, after,
+                    limit == null ? null : limit + 1, withCost);
 
-        double totalCost = 0.0;
+            Integer nextAfter = null;
+            if (limit != null && productDetailsList.size() > limit) {
+                productDetailsList.remove((int) limit);
+                nextAfter = productDetailsList.get(limit - 1).getProductId();
+            }
+            if (!pendingLines.isEmpty()) {
+                applyPendingLines(productDetailsList, pendingLines);
+            }
 
-        List<ProductDetails> productDetailsList = new ArrayList<>();
-        for (Cart cart : carts) {
-            ProductDetails productDetails = new ProductDetails();
-            productDetails.setProductId(cart.getProductId());
-            productDetails.setQuantity(cart.getQuantity());
-            // Exception should never happen as we maintain data integrity at DB level via constraints
-            // However we need to add this exception as Spring JPA returns Optional
-            Product product = productRepository.findById(cart.getProductId()).orElseThrow(
-                    () -> new InvalidDataException("Found product in cart which does not exist in system !!"));
-            productDetails.setCost(product.getCost());
-            productDetailsList.add(productDetails);
-            totalCost += cart.getQuantity() * product.getCost();
+            CartDetails cartDetails = new CartDetails();
+            cartDetails.setProductDetails(productDetailsList);
+            cartDetails.setTotalCost(getCartSummary(userId, pendingLines).getTotalCost());
+            cartDetails.setNextAfter(nextAfter);
+            return cartDetails;
+        });
+    }
+
+    private static void applyPendingLines(List<ProductDetails> productDetailsList,
+            Map<Integer, PendingLine> pendingLines) {
+        productDetailsList.removeIf(productDetails -> {
+            PendingLine pendingLine = pendingLines.get(productDetails.getProductId());
+            if (pendingLine == null) {
+                return false;
+            }
+            productDetails.setQuantity(pendingLine.getQuantity());
+            return pendingLine.getQuantity() == 0;
+        });
+    }
+
+    private static CartDetails toCartDetails(List<ProductDetails> productDetailsList) {
+        // indexed loop over primitive minor units, summing doesn't allocate however large the cart
+        long totalCost = 0;
+        for (int i = 0; i < productDetailsList.size(); i++) {
+            ProductDetails productDetails = productDetailsList.get(i);
+            totalCost = Money.plus(totalCost, Money.times(productDetails.getCost(), productDetails.getQuantity()));
         }
 
+        CartDetails cartDetails = new CartDetails();
         cartDetails.setProductDetails(productDetailsList);
         cartDetails.setTotalCost(totalCost);
         return cartDetails;
     }
+
+    /**
+     * Passes change of a line on to the cart summary, cost is only looked up when the users summary is cached
+     */
+    private void cartChanged(Integer userId, Integer productId, int lines, int items) {
+        CartSummary change = null;
+        if (cartSummaryService.isCached(userId)) {
+            ProductView product = productService.getProductById(productId);
+            if (product != null) {
+                change = CartSummary.ofChange(lines, items, product.getCost());
+            }
+        }
+        cartChanged(userId, change);
+    }
+
+    /**
+     * Applies change to the cart summary, a null change reloads it, and bumps the cart version
+     */
+    private void cartChanged(Integer userId, CartSummary change) {
+        cartSummaryService.onCartChange(userId, change);
+        cartVersions.onCartChange(userId);
+        readYourWrites.onWrite(userId);
+    }
 }
@@ -0,0 +1,269 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.datasource.ConsistentHashRing;
+import com.maersk.shoppingcart.dto.ShardMigrationResult;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves carts between shards while they are in use, so the number of shards can be grown or shrunk. Each shard is
+ * scanned in userId order and the cart of every user belonging elsewhere on the new ring is copied under the cart
+ * lock of the user, then routed to its new shard and deleted from the old one. Users passed by the scan are routed to
+ * their new shard whether they had a cart or not, a second scan picks up carts started on the old shard meanwhile.
+ *
+ * <p>Routing state lives in this instance only, so no other instance is to serve carts while a migration runs, and
+ * cart.shards.count is to be set to the new number of shards before they do again. Migrations started by the admin
+ * endpoint run on a background thread of their own, one at a time, progress is kept in the last migration result.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class CartShardMigrationService {
+
+    public static final String MOVED_USERS_COUNTER = "cart.shard.migration.users";
+    public static final String MOVED_LINES_COUNTER = "cart.shard.migration.lines";
+
+    private static final Logger logger = LoggerFactory.getLogger(CartShardMigrationService.class);
+
+    private static final String SELECT_USERS =
+            "select distinct userId from carts where userId > ? order by userId limit ?";
+    private static final String SELECT_LINES =
+            "select productId, quantity, lastModified from carts where userId = ?";
+    private static final String SELECT_PRODUCT_IDS = "select productId from carts where userId = ?";
+    private static final String INSERT_LINE =
+            "insert into carts (userId, productId, quantity, lastModified) values (?, ?, ?, ?)";
+    private static final String DELETE_CART = "delete from carts where userId = ?";
+
+    private final CartShards cartShards;
+    private final CartLocks cartLocks;
+    private final CartWriteBehindService cartWriteBehindService;
+    private final CartSummaryService cartSummaryService;
+    private final CartVersions cartVersions;
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter movedUsersCounter;
+    private final Counter movedLinesCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService migrator;
+    private volatile ShardMigrationResult lastMigration;
+
+    @Autowired
+    public CartShardMigrationService(CartShards cartShards, CartLocks cartLocks,
+            CartWriteBehindService cartWriteBehindService, CartSummaryService cartSummaryService,
+            CartVersions cartVersions, CartStore cartStore, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${cart.shards.migration.batch-size:100}") int batchSize) {
+        this.cartShards = cartShards;
+        this.cartLocks = cartLocks;
+        this.cartWriteBehindService = cartWriteBehindService;
+        this.cartSummaryService = cartSummaryService;
+        this.cartVersions = cartVersions;
+        this.cartStore = cartStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.movedUsersCounter = Counter.builder(MOVED_USERS_COUNTER)
+                .description("Carts moved to another shard")
+                .register(meterRegistry);
+        this.movedLinesCounter = Counter.builder(MOVED_LINES_COUNTER)
+                .description("Cart lines moved to another shard")
+                .baseUnit("rows")
+                .register(meterRegistry);
+
+        if (cartShards.isEnabled()) {
+            migrator = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-shard-migration");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            migrator = null;
+        }
+    }
+
+    /**
+     * Moves carts onto a ring of shardCount shards and routes by it once done. A migration that failed, e.g. on a
+     * cart lock timeout, is resumed by calling this again with the same shardCount.
+     */
+    public ShardMigrationResult migrate(int shardCount) {
+        ConsistentHashRing target = begin(shardCount);
+        ShardMigrationResult result = new ShardMigrationResult(shardCount);
+        lastMigration = result;
+        moveAll(target, result);
+        return result;
+    }
+
+    /**
+     * Same as migrate, run in the background. The request is validated and a second migration rejected right away.
+     *
+     * @returns result of the started migration, updated as carts are moved
+     */
+    public ShardMigrationResult startMigration(int shardCount) {
+        ConsistentHashRing target = begin(shardCount);
+        ShardMigrationResult result = new ShardMigrationResult(shardCount);
+        lastMigration = result;
+        migrator.execute(() -> {
+            try {
+                moveAll(target, result);
+            } catch (RuntimeException e) {
+                // routing keeps the carts moved so far, the migration is resumed by starting it again
+                logger.error("Migrating carts onto {} shards failed", shardCount, e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @returns result of the running or last finished migration, null if there was none since startup
+     */
+    public ShardMigrationResult getLastMigration() {
+        return lastMigration;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (migrator == null) {
+            return;
+        }
+        // the cart being moved is finished first, the migration is resumed after restart
+        migrator.shutdownNow();
+        try {
+            migrator.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ConsistentHashRing begin(int shardCount) {
+        if (!cartShards.isEnabled()) {
+            throw new InvalidDataException("Carts are not sharded !!");
+        }
+        if (shardCount < 1 || shardCount > cartShards.getConfiguredShards()) {
+            throw new InvalidDataException("Number of shards should be within 1 and "
+                    + cartShards.getConfiguredShards());
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new InvalidDataException("A shard migration is already running !!");
+        }
+        try {
+            return cartShards.startMigration(shardCount);
+        } catch (IllegalStateException e) {
+            running.set(false);
+            throw new InvalidDataException(e.getMessage());
+        }
+    }
+
+    private void moveAll(ConsistentHashRing target, ShardMigrationResult result) {
+        try {
+            long start = System.nanoTime();
+            for (int shard = 0; shard < cartShards.getConfiguredShards(); shard++) {
+                moveCarts(shard, target, result);
+                cartShards.movedUpTo(shard, Integer.MAX_VALUE);
+                moveCarts(shard, target, result);
+            }
+            cartShards.finishMigration();
+            result.setState(ShardMigrationResult.State.COMPLETED);
+            logger.info("Moved {} carts with {} lines onto {} shards in {} ms", result.getMovedUsers(),
+                    result.getMovedLines(), result.getShardCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            result.setState(ShardMigrationResult.State.FAILED);
+            result.setFailure(e.getMessage());
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void moveCarts(int shard, ConsistentHashRing target, ShardMigrationResult result) {
+        int after = Integer.MIN_VALUE;
+        while (true) {
+            int from = after;
+            List<Integer> userIds = cartShards.onShard(shard, () -> {
+                QueryCounter.statementExecuted();
+                return jdbcTemplate.queryForList(SELECT_USERS, Integer.class, from, batchSize);
+            });
+            for (Integer userId : userIds) {
+                int targetShard = target.shardOf(userId);
+                if (targetShard != shard) {
+                    int lines = moveCart(userId, shard, targetShard);
+                    result.setMovedUsers(result.getMovedUsers() + 1);
+                    result.setMovedLines(result.getMovedLines() + lines);
+                }
+            }
+            if (userIds.size() < batchSize) {
+                return;
+            }
+            after = userIds.get(userIds.size() - 1);
+            cartShards.movedUpTo(shard, after);
+        }
+    }
+
+    /**
+     * @returns number of lines moved
+     */
+    private int moveCart(Integer userId, int from, int to) {
+        return cartLocks.withLock(userId, () -> {
+            // changes still pending in write-behind mode are written to the shard the cart is on first
+            cartWriteBehindService.flush(userId);
+            List<Object[]> lines = cartShards.onShard(from, () -> {
+                QueryCounter.statementExecuted();
+                return jdbcTemplate.query(SELECT_LINES,
+                        (rs, row) -> new Object[]{userId, rs.getInt(1), rs.getInt(2), rs.getTimestamp(3)}, userId);
+            });
+            cartShards.onShard(to, () -> transactionTemplate.executeWithoutResult(status -> copyLines(userId, lines)));
+            cartShards.movedUpTo(from, userId);
+            cartShards.onShard(from, () -> transactionTemplate.executeWithoutResult(status -> {
+                QueryCounter.statementExecuted();
+                jdbcTemplate.update(DELETE_CART, userId);
+            }));
+
+            movedUsersCounter.increment();
+            movedLinesCounter.increment(lines.size());
+            return lines.size();
+        });
+    }
+
+    /**
+     * Lines the user already has on the new shard, added once the scan had passed them, are kept. Copied lines keep
+     * their last modified time so moving carts doesn't keep them from expiring. Cached state of the cart is dropped as
+     * it may have been read from the new shard before all lines arrived.
+     */
+    private void copyLines(Integer userId, List<Object[]> lines) {
+        QueryCounter.statementExecuted();
+        Set<Integer> present = new HashSet<>(jdbcTemplate.queryForList(SELECT_PRODUCT_IDS, Integer.class, userId));
+        List<Object[]> missing = new ArrayList<>(lines.size());
+        for (Object[] line : lines) {
+            if (!present.contains(line[1])) {
+                missing.add(line);
+            }
+        }
+        if (!missing.isEmpty()) {
+            QueryCounter.statementExecuted();
+            jdbcTemplate.batchUpdate(INSERT_LINE, missing);
+        }
+        cartSummaryService.onCartChange(userId, null);
+        cartVersions.onCartChange(userId);
+        cartStore.evict(userId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.datasource.ConsistentHashRing;
+import com.maersk.shoppingcart.datasource.ShardRoutingDataSource;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks the shard holding the cart of a user, out of a consistent hash ring over the first cart.shards.count shards
+ * (all of them by default). While a migration is moving carts to another ring, users whose cart has been moved are
+ * routed by the new ring. Only relevant with shards, otherwise everything stays on the one database.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartShards {
+
+    private final int configuredShards;
+    private final int virtualNodes;
+    private volatile Routing routing;
+
+    @Autowired
+    public CartShards(@Value("${cart.shards.urls:}") String[] shardUrls,
+            @Value("${cart.shards.count:0}") int shardCount,
+            @Value("${cart.shards.virtual-nodes:160}") int virtualNodes) {
+        if (shardCount < 0 || shardCount > shardUrls.length) {
+            throw new IllegalArgumentException("Number of shards should be within 1 and " + shardUrls.length);
+        }
+        this.configuredShards = shardUrls.length;
+        this.virtualNodes = virtualNodes;
+        int ringShards = shardCount > 0 ? shardCount : Math.max(shardUrls.length, 1);
+        this.routing = new Routing(new ConsistentHashRing(ringShards, virtualNodes), null, null);
+    }
+
+    public boolean isEnabled() {
+        return configuredShards > 0;
+    }
+
+    public int getConfiguredShards() {
+        return configuredShards;
+    }
+
+    /**
+     * @returns ring carts are routed by, the one being migrated to while a migration is running
+     */
+    public ConsistentHashRing getRing() {
+        Routing current = routing;
+        return current.target != null ? current.target : current.ring;
+    }
+
+    public int shardOf(Integer userId) {
+        return routing.shardOf(userId);
+    }
+
+    /**
+     * To be called within a transaction reading or changing users cart, before its first statement. Connections of
+     * the transaction are taken from the shard of the user.
+     */
+    public void route(Integer userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Cart of user " + userId + " can only be routed within a transaction");
+        }
+        Integer previous = ShardRoutingDataSource.currentShard();
+        Integer shard = shardOf(userId);
+        // nested calls for the same user leave the selection alone
+        if (!Objects.equals(previous, shard)) {
+            ShardRoutingDataSource.selectShard(shard);
+            TransactionCallbacks.afterCompletion(committed -> ShardRoutingDataSource.selectShard(previous));
+        }
+    }
+
+    /**
+     * Runs action outside of any transaction, or in one it starts, with connections taken from the shard of the user
+     */
+    public <T> T onShardOf(Integer userId, Supplier<T> action) {
+        return isEnabled() ? onShard(shardOf(userId), action) : action.get();
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = ShardRoutingDataSource.currentShard();
+        ShardRoutingDataSource.selectShard(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardRoutingDataSource.selectShard(previous);
+        }
+    }
+
+    public void onShardOf(Integer userId, Runnable action) {
+        onShardOf(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void onShard(int shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts routing moved users by a ring of shardCount shards, a migration left unfinished to the same ring is
+     * resumed
+     *
+     * @returns ring being migrated to
+     */
+    synchronized ConsistentHashRing startMigration(int shardCount) {
+        Routing current = routing;
+        if (current.target != null) {
+            if (current.target.getShardCount() != shardCount) {
+                throw new IllegalStateException("Migration to " + current.target.getShardCount()
+                        + " shards has to be finished first");
+            }
+            return current.target;
+        }
+        AtomicIntegerArray movedUpTo = new AtomicIntegerArray(configuredShards);
+        for (int i = 0; i < configuredShards; i++) {
+            movedUpTo.set(i, Integer.MIN_VALUE);
+        }
+        ConsistentHashRing target = new ConsistentHashRing(shardCount, virtualNodes);
+        routing = new Routing(current.ring, target, movedUpTo);
+        return target;
+    }
+
+    /**
+     * Users of shard up to userId leaving it are routed to their new shard from now on, whether they had a cart or not
+     */
+    void movedUpTo(int shard, int userId) {
+        routing.movedUpTo.accumulateAndGet(shard, userId, Math::max);
+    }
+
+    synchronized void finishMigration() {
+        routing = new Routing(routing.target, null, null);
+    }
+
+    private static final class Routing {
+
+        private final ConsistentHashRing ring;
+        private final ConsistentHashRing target;
+        // per shard, users up to this id have been moved off it in userId order
+        private final AtomicIntegerArray movedUpTo;
+
+        private Routing(ConsistentHashRing ring, ConsistentHashRing target, AtomicIntegerArray movedUpTo) {
+            this.ring = ring;
+            this.target = target;
+            this.movedUpTo = movedUpTo;
+        }
+
+        private int shardOf(int userId) {
+            int shard = ring.shardOf(userId);
+            if (target == null) {
+                return shard;
+            }
+            int targetShard = target.shardOf(userId);
+            return targetShard != shard && userId <= movedUpTo.get(shard) ? targetShard : shard;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.entity.Cart;
+import java.util.List;
+
+/**
+ * Lines of users carts as read and written by {@link CartService}. Writes are to be made within the transaction of
+ * the change, the database stays the system of record whichever store is used.
+ *
+ * @author Sumit Kumar
+ */
+public interface CartStore {
+
+    /**
+     * @returns quantity of the product in users cart, null if not present
+     */
+    Integer findQuantity(Integer userId, Integer productId);
+
+    /**
+     * Lines in productId order joined with the product cost, lines of products that no longer exist are left out
+     */
+    List<ProductDetails> findProductDetails(Integer userId);
+
+    /**
+     * Same lines as findProductDetails held in primitive arrays
+     */
+    CartLines findCartLines(Integer userId);
+
+    /**
+     * Lines after the given productId in productId order, at most maxLines of them (all when null). Without cost the
+     * lines carry quantities only.
+     */
+    List<ProductDetails> findProductDetailsPage(Integer userId, Integer after, Integer maxLines, boolean withCost);
+
+    /**
+     * Plain insert, a line already present for the product fails with DataIntegrityViolationException
+     */
+    void insert(Integer userId, Integer productId, int quantity);
+
+    /**
+     * Inserts the line or, if already present, adds quantity to it capped at maxAllowed
+     */
+    void insertOrMergeQuantity(Integer userId, Integer productId, int quantity, int maxAllowed);
+
+    /**
+     * @return number of updated rows, zero if line is not present or new quantity is not between 1 and maxAllowed
+     */
+    int updateQuantity(Integer userId, Integer productId, int changed, int maxAllowed);
+
+    /**
+     * @return number of deleted rows, one only if applying changed brings the quantity down to exactly zero
+     */
+    int deleteIfQuantityDropsToZero(Integer userId, Integer productId, int changed);
+
+    void delete(Integer userId, Integer productId);
+
+    /**
+     * Loads all lines of users cart locked till end of current transaction, to be changed in place and passed back
+     * with {@link #saveLines}
+     */
+    List<Cart> findAllForUpdate(Integer userId);
+
+    /**
+     * Deletes removed lines and inserts added ones, quantity changes of lines from {@link #findAllForUpdate} are
+     * written on flush
+     */
+    void saveLines(Integer userId, List<Cart> removedLines, List<Cart> addedLines);
+
+    /**
+     * Drops anything held in memory for users cart, to be called within the transaction changing it behind the store
+     */
+    void evict(Integer userId);
+}
@@ -0,0 +1,118 @@
+package com.maersk.shoppingcart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps line count, item count and total cost of recently read carts in memory. Summaries are loaded with one
+ * aggregate query on first read and from then on maintained incrementally as lines are added, changed or removed, so
+ * reading a summary does not depend on cart size.
+ *
+ * <p>Changes are applied once the surrounding transaction has committed, loads racing with a change are not cached,
+ * see {@link StripedChangeTracker}. A price change invalidates every summary.
+ *
+ * <p>Cached summaries only see changes made through this instance, so they are kept with cart.single-instance only,
+ * otherwise every read loads the summary. Changes made to the database directly are picked up once the summary
+ * expires after ttl.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class CartSummaryService {
+
+    private final CartRepository cartRepository;
+    private final CartShards cartShards;
+    private final Cache<Integer, CartSummary> summaries;
+    private final boolean enabled;
+    private final StripedChangeTracker changes = new StripedChangeTracker();
+    // bumped when product prices change, which affects all carts
+    private final AtomicLong priceEpoch = new AtomicLong();
+    private final AtomicInteger priceChangesInFlight = new AtomicInteger();
+
+    @Autowired
+    public CartSummaryService(CartRepository cartRepository, CartShards cartShards,
+            @Value("${cart.summary.cache.max-size:100000}") long maxSize,
+            @Value("${cart.summary.cache.ttl:10m}") Duration ttl,
+            @Value("${cart.single-instance:true}") boolean singleInstance) {
+        this.cartRepository = cartRepository;
+        this.cartShards = cartShards;
+        this.enabled = singleInstance;
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public CartSummary getSummary(Integer userId) {
+        if (!enabled) {
+            return load(userId);
+        }
+        CartSummary summary = summaries.getIfPresent(userId);
+        if (summary != null) {
+            return summary;
+        }
+
+        long load = changes.beginLoad(userId);
+        boolean cacheable = load != StripedChangeTracker.NOT_CACHEABLE && priceChangesInFlight.get() == 0;
+        long epoch = priceEpoch.get();
+        CartSummary loaded = load(userId);
+        if (!cacheable) {
+            return loaded;
+        }
+        CartSummary fresh = loaded;
+        CartSummary cached = summaries.asMap().compute(userId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return changes.mayCache(userId, load) && priceEpoch.get() == epoch ? fresh : null;
+        });
+        return cached != null ? cached : loaded;
+    }
+
+    private CartSummary load(Integer userId) {
+        CartSummary loaded = cartShards.onShardOf(userId, () -> cartRepository.summarizeByUserId(userId));
+        return loaded == null ? CartSummary.EMPTY : loaded;
+    }
+
+    public boolean isCached(Integer userId) {
+        return summaries.getIfPresent(userId) != null;
+    }
+
+    /**
+     * To be called within the transaction changing users cart, after the change has been written. The change is
+     * added to the cached summary once the transaction commits, a null change drops the cached summary instead. Changes
+     * should only be computed for cached summaries, a summary loaded in the meantime is not cached.
+     */
+    public void onCartChange(Integer userId, CartSummary change) {
+        changes.onChange(summaries.asMap(), userId, change == null ? null : current -> current.plus(change));
+    }
+
+    /**
+     * To be called within the transaction changing a product price, every summary is dropped once it completes
+     */
+    public void onPriceChange() {
+        priceChangesInFlight.incrementAndGet();
+        priceEpoch.incrementAndGet();
+        TransactionCallbacks.afterCompletion(committed -> {
+            try {
+                priceEpoch.incrementAndGet();
+                summaries.invalidateAll();
+            } finally {
+                priceChangesInFlight.decrementAndGet();
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        summaries.invalidateAll();
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.maersk.shoppingcart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a version per cart in memory to be sent as ETag, so unchanged carts can be answered without reading the
+ * database. Versions are bumped once a change has committed and are never reused: a cart without a known version gets
+ * a new one, and tags handed out by an earlier start of the application never match. Price changes affect every cart
+ * and bump a version shared by all of them. Prices changed in the database directly aren't seen, so versions expire
+ * after ttl, kept at the expiry of the products cache: an unchanged cart then gets a new tag about when its costs
+ * are read afresh.
+ *
+ * <p>A tag is to be taken before the cart is read, a change completing in between then only costs a full response on
+ * the next request.
+ *
+ * <p>Versions only see changes made through this instance, so they are kept with cart.single-instance only. Otherwise
+ * no tag is handed out, conditional GETs always read the cart and an If-Match other than * fails, as it can't be
+ * checked.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartVersions {
+
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() >>> 1, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong priceVersion = new AtomicLong();
+    private final Cache<Integer, Long> versions;
+
+    @Autowired
+    public CartVersions(@Value("${cart.version.cache.max-size:100000}") long maxSize,
+            @Value("${cart.version.cache.ttl:10m}") Duration ttl,
+            @Value("${cart.single-instance:true}") boolean singleInstance) {
+        this.versions = singleInstance ? Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build() : null;
+    }
+
+    public boolean isEnabled() {
+        return versions != null;
+    }
+
+    /**
+     * @returns strong entity tag of the current version of users cart, null when versions aren't kept
+     */
+    public String etag(Integer userId) {
+        if (versions == null) {
+            return null;
+        }
+        long version = versions.get(userId, id -> sequence.incrementAndGet());
+        return "\"" + instanceId + "-" + priceVersion.get() + "-" + version + "\"";
+    }
+
+    /**
+     * To be called within the transaction changing users cart, the version is bumped once it has committed
+     */
+    public void onCartChange(Integer userId) {
+        if (versions == null) {
+            return;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                versions.put(userId, sequence.incrementAndGet());
+            }
+        });
+    }
+
+    /**
+     * To be called within the transaction changing product prices, bumps the version of all carts once it committed
+     */
+    public void onPriceChange() {
+        if (versions == null) {
+            return;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                priceVersion.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @returns true if the If-None-Match header lists the tag, compared weakly as for conditional GET, never without a
+     * tag
+     */
+    public static boolean noneMatchHits(String ifNoneMatch, String etag) {
+        return etag != null && matches(ifNoneMatch, etag, true);
+    }
+
+    /**
+     * @returns true if the If-Match header is absent, a wildcard or lists the tag compared strongly
+     */
+    public static boolean ifMatchHolds(String ifMatch, String etag) {
+        return ifMatch == null || matches(ifMatch, etag, false);
+    }
+
+    private static boolean matches(String header, String etag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (etag == null) {
+                continue;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,483 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.dto.ProductView;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Opt-in write-behind mode for quantity changes. A change is validated against users pending cart state and applied
+ * there immediately, changes to the same line are coalesced and written to carts as JDBC batches across users, every
+ * flush interval or as soon as the number of pending lines reaches the threshold, and once more on shutdown.
+ *
+ * <p>Pending state of a user is guarded by its own lock, which a flush holds until its transaction completes. Reads
+ * of a user overlay the pending lines while holding that lock, so they never miss a change or count it twice, and
+ * every other write to a user's cart flushes the user first within its own transaction to keep changes in order.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class CartWriteBehindService {
+
+    public static final String FLUSH_TIMER = "cart.write_behind.flush";
+    public static final String FLUSH_LINES_SUMMARY = "cart.write_behind.flush.lines";
+    public static final String PENDING_LINES_GAUGE = "cart.write_behind.pending";
+    public static final String DROPPED_COUNTER = "cart.write_behind.dropped";
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteBehindService.class);
+
+    private static final String UPDATE_QUANTITY = "update carts set quantity = quantity + ?, "
+            + "lastModified = current_timestamp where userId = ? and productId = ? and quantity + ? between 1 and ?";
+    private static final String DELETE_IF_QUANTITY_DROPS_TO_ZERO = "delete from carts "
+            + "where userId = ? and productId = ? and quantity + ? = 0";
+
+    private final CartRepository cartRepository;
+    private final ProductService productService;
+    private final CartSummaryService cartSummaryService;
+    private final CartVersions cartVersions;
+    private final ReadYourWrites readYourWrites;
+    private final CartShards cartShards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int itemMaxAllowed;
+    private final int maxPendingLines;
+
+    private final Map<Integer, PendingCart> pendingCarts = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingLines = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private volatile boolean enabled;
+
+    private final Timer flushTimer;
+    private final DistributionSummary flushLinesSummary;
+    private final Counter droppedCounter;
+
+    @Autowired
+    public CartWriteBehindService(CartRepository cartRepository, ProductService productService,
+            CartSummaryService cartSummaryService, CartVersions cartVersions, ReadYourWrites readYourWrites,
+            CartShards cartShards, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cart.item.max.allowed:5}") int itemMaxAllowed,
+            @Value("${cart.write-behind.enabled:false}") boolean enabled,
+            @Value("${cart.write-behind.flush-interval:100ms}") Duration flushInterval,
+            @Value("${cart.write-behind.max-pending-lines:1000}") int maxPendingLines) {
+        this.cartRepository = cartRepository;
+        this.productService = productService;
+        this.cartSummaryService = cartSummaryService;
+        this.cartVersions = cartVersions;
+        this.readYourWrites = readYourWrites;
+        this.cartShards = cartShards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.itemMaxAllowed = itemMaxAllowed;
+        this.maxPendingLines = maxPendingLines;
+        this.enabled = enabled;
+
+        this.flushTimer = Timer.builder(FLUSH_TIMER).register(meterRegistry);
+        this.flushLinesSummary = DistributionSummary.builder(FLUSH_LINES_SUMMARY).register(meterRegistry);
+        this.droppedCounter = Counter.builder(DROPPED_COUNTER).register(meterRegistry);
+        Gauge.builder(PENDING_LINES_GAUGE, pendingLines, AtomicInteger::get).register(meterRegistry);
+
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::scheduledFlush, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Applies change to users pending cart state, it is written to DB by a later flush. Fails the same way as a
+     * direct update if the line is missing or the new quantity is out of range.
+     */
+    public void updateCart(Integer userId, Integer productId, int changed) {
+        PendingCart cart = lockPendingCart(userId, true);
+        if (cart == null) {
+            throw new IllegalStateException("Cart changes can't be buffered by a transaction that has flushed them");
+        }
+        try {
+            PendingLine line = cart.lines.get(productId);
+            if (line == null) {
+                // called outside of any transaction, so the line is looked up on the shard of the user here
+                Cart stored = cartShards.onShardOf(userId, () ->
+                        cartRepository.findByUserIdAndProductId(userId, productId)).orElseThrow(() ->
+                        new InvalidDataException("Item with id: " + productId + " is not present in user's cart !"));
+                QueryCounter.rowsFetched(1);
+                line = new PendingLine(stored.getQuantity());
+            } else if (line.quantity == 0) {
+                throw new InvalidDataException("Item with id: " + productId + " is not present in user's cart !");
+            }
+
+            int updatedQuantity = line.quantity + changed;
+            if (updatedQuantity < 0 || updatedQuantity > itemMaxAllowed) {
+                throw new InvalidDataException("Updated item quantity should be within 0 and " + itemMaxAllowed);
+            }
+            line.quantity = updatedQuantity;
+            line.delta += changed;
+
+            // changes cancelling each other out leave nothing to write
+            if (line.delta == 0) {
+                if (cart.lines.remove(productId) != null) {
+                    pendingLines.decrementAndGet();
+                }
+            } else if (cart.lines.put(productId, line) == null) {
+                pendingLines.incrementAndGet();
+            }
+        } finally {
+            // a cart left without lines is dropped right away, e.g. when its first change is rejected
+            if (cart.lines.isEmpty()) {
+                cart.retired = true;
+                pendingCarts.remove(userId, cart);
+            }
+            cart.lock.unlock();
+        }
+        // reads include pending lines, so the cart has changed for clients right away
+        cartVersions.onCartChange(userId);
+
+        if (pendingLines.get() >= maxPendingLines) {
+            flushAll(false);
+        }
+    }
+
+    /**
+     * Runs reader with pending lines of user by product id, while pending state can't be flushed. Reader should
+     * read the cart from DB and apply the pending lines on top.
+     */
+    public <T> T read(Integer userId, Function<Map<Integer, PendingLine>, T> reader) {
+        PendingCart cart = lockPendingCart(userId, false);
+        if (cart == null) {
+            return reader.apply(Collections.emptyMap());
+        }
+        try {
+            return reader.apply(Collections.unmodifiableMap(cart.lines));
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * @returns change pending lines make to the cart summary, cost of a product that no longer exists counts as zero
+     */
+    public CartSummary summaryChange(Map<Integer, PendingLine> lines) {
+        CartSummary change = CartSummary.EMPTY;
+        for (Map.Entry<Integer, PendingLine> entry : lines.entrySet()) {
+            PendingLine line = entry.getValue();
+            ProductView product = productService.getProductById(entry.getKey());
+            change = change.plus(CartSummary.ofChange(line.quantity == 0 ? -1 : 0, line.delta,
+                    product == null ? 0L : product.getCost()));
+        }
+        return change;
+    }
+
+    /**
+     * Writes pending changes of user, to be called before any other change to users cart. Within a transaction the
+     * changes are written as part of it and user stays locked till it completes.
+     */
+    public void flush(Integer userId) {
+        PendingCart cart = lockPendingCart(userId, false);
+        if (cart != null) {
+            cartShards.onShardOf(userId, () -> write(Collections.singletonList(cart)));
+        }
+    }
+
+    /**
+     * Writes pending changes of all users in one transaction per shard, users currently locked by a read or another
+     * flush are left for the next one
+     */
+    public void flushAll() {
+        flushAll(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        // changes arriving from now on are written directly
+        enabled = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll(true);
+        if (!pendingCarts.isEmpty()) {
+            logger.error("{} pending cart changes could not be written on shutdown", pendingLines.get());
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flushAll(false);
+        } catch (RuntimeException e) {
+            // changes are kept and retried with the next flush
+            logger.error("Flushing pending cart changes failed", e);
+        }
+    }
+
+    private void flushAll(boolean waitForLocks) {
+        flushLock.lock();
+        try {
+            Map<Integer, List<PendingCart>> lockedByShard = new HashMap<>();
+            for (Integer userId : pendingCarts.keySet()) {
+                PendingCart cart = waitForLocks ? lockPendingCart(userId, false) : tryLockPendingCart(userId);
+                if (cart != null) {
+                    lockedByShard.computeIfAbsent(cartShards.shardOf(userId), shard -> new ArrayList<>()).add(cart);
+                }
+            }
+            // a failed write leaves its carts for the next flush, carts of other shards are still written
+            RuntimeException failure = null;
+            for (Map.Entry<Integer, List<PendingCart>> entry : lockedByShard.entrySet()) {
+                try {
+                    if (cartShards.isEnabled()) {
+                        cartShards.onShard(entry.getKey(), () -> write(entry.getValue()));
+                    } else {
+                        write(entry.getValue());
+                    }
+                } catch (RuntimeException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes changes of carts locked by the current thread, they stay locked until the transaction completes and are
+     * dropped from memory only if it commits
+     */
+    private void write(List<PendingCart> carts) {
+        Completion completion = new Completion(carts);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    long start = System.nanoTime();
+                    writeBatches(carts);
+                    flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } finally {
+                    // registered after summary changes so summaries are updated before users are unlocked
+                    TransactionSynchronizationManager.registerSynchronization(completion);
+                    completion.registered = true;
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!completion.registered) {
+                completion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            throw e;
+        }
+    }
+
+    private void writeBatches(List<PendingCart> carts) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<PendingCart> updatedCarts = new ArrayList<>();
+        List<PendingCart> deletedCarts = new ArrayList<>();
+        for (PendingCart cart : carts) {
+            for (Map.Entry<Integer, PendingLine> entry : cart.lines.entrySet()) {
+                PendingLine line = entry.getValue();
+                if (line.quantity == 0) {
+                    deletes.add(new Object[]{cart.userId, entry.getKey(), line.delta});
+                    deletedCarts.add(cart);
+                } else {
+                    updates.add(new Object[]{line.delta, cart.userId, entry.getKey(), line.delta, itemMaxAllowed});
+                    updatedCarts.add(cart);
+                }
+            }
+        }
+
+        // a line changed directly in the meantime may no longer take the change, such a cart is reloaded, as is a cart
+        // with a line whose outcome the driver didn't report
+        Map<Integer, Boolean> unconfirmed = new HashMap<>();
+        markUnconfirmed(batchUpdate(UPDATE_QUANTITY, updates), updatedCarts, unconfirmed);
+        markUnconfirmed(batchUpdate(DELETE_IF_QUANTITY_DROPS_TO_ZERO, deletes), deletedCarts, unconfirmed);
+        flushLinesSummary.record(updates.size() + deletes.size());
+
+        for (PendingCart cart : carts) {
+            CartSummary change = null;
+            if (unconfirmed.containsKey(cart.userId)) {
+                cartVersions.onCartChange(cart.userId);
+            } else if (cartSummaryService.isCached(cart.userId)) {
+                change = summaryChange(cart.lines);
+            }
+            cartSummaryService.onCartChange(cart.userId, change);
+            readYourWrites.onWrite(cart.userId);
+            cart.flushed = true;
+        }
+    }
+
+    private int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return new int[0];
+        }
+        QueryCounter.statementExecuted();
+        return jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
+    /**
+     * Only a count of 1 confirms that a line took its change. A count of 0 means the change no longer applies and was
+     * dropped. Any other count leaves the outcome unknown, e.g. SUCCESS_NO_INFO of drivers sending the batch as one
+     * statement (rewriteBatchedStatements).
+     */
+    private void markUnconfirmed(int[] counts, List<PendingCart> carts, Map<Integer, Boolean> unconfirmed) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                continue;
+            }
+            Integer userId = carts.get(i).userId;
+            unconfirmed.put(userId, Boolean.TRUE);
+            if (counts[i] == 0) {
+                droppedCounter.increment();
+                logger.warn("Pending change to cart of user {} no longer applies and was dropped", userId);
+            }
+        }
+    }
+
+    /**
+     * @returns pending cart of user locked by the current thread, null if user has nothing pending unless create
+     */
+    private PendingCart lockPendingCart(Integer userId, boolean create) {
+        while (true) {
+            PendingCart cart = create
+                    ? pendingCarts.computeIfAbsent(userId, PendingCart::new)
+                    : pendingCarts.get(userId);
+            if (cart == null) {
+                return null;
+            }
+            cart.lock.lock();
+            if (cart.isLive()) {
+                return cart;
+            }
+            cart.lock.unlock();
+            if (cart.lock.isHeldByCurrentThread()) {
+                // already flushed by the current transaction, which is not complete yet
+                return null;
+            }
+        }
+    }
+
+    private PendingCart tryLockPendingCart(Integer userId) {
+        PendingCart cart = pendingCarts.get(userId);
+        if (cart == null || !cart.lock.tryLock()) {
+            return null;
+        }
+        if (cart.isLive()) {
+            return cart;
+        }
+        cart.lock.unlock();
+        return null;
+    }
+
+    /**
+     * Quantity of a line after its pending changes, zero once removed, and the change to be written
+     */
+    public static final class PendingLine {
+
+        private int quantity;
+        private int delta;
+
+        private PendingLine(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+    }
+
+    private static final class PendingCart {
+
+        private final Integer userId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Integer, PendingLine> lines = new HashMap<>();
+        // written by a transaction not yet completed
+        private boolean flushed;
+        // dropped from pendingCarts, a new one is created for later changes
+        private boolean retired;
+
+        private PendingCart(Integer userId) {
+            this.userId = userId;
+        }
+
+        private boolean isLive() {
+            return !retired && !flushed;
+        }
+    }
+
+    private final class Completion implements TransactionSynchronization {
+
+        private final List<PendingCart> carts;
+        private boolean registered;
+
+        private Completion(List<PendingCart> carts) {
+            this.carts = carts;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            for (PendingCart cart : carts) {
+                try {
+                    if (status == STATUS_COMMITTED && cart.flushed) {
+                        cart.retired = true;
+                        pendingCarts.remove(cart.userId, cart);
+                        pendingLines.addAndGet(-cart.lines.size());
+                    }
+                    // rolled back changes stay pending for the next flush
+                    cart.flushed = false;
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.maersk.shoppingcart.service;
+
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Reads and writes every line through {@link CartRepository}, the default store
+ *
+ * @author Sumit Kumar
+ */
+public class DatabaseCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+
+    public DatabaseCartStore(CartRepository cartRepository) {
+        this.cartRepository = cartRepository;
+    }
+
+    @Override
+    public Integer findQuantity(Integer userId, Integer productId) {
+        Cart cart = cartRepository.findByUserIdAndProductId(userId, productId).orElse(null);
+        if (cart == null) {
+            return null;
+        }
+        QueryCounter.rowsFetched(1);
+        return cart.getQuantity();
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetails(Integer userId) {
+        // product cost is joined in the same query, so cart size doesn't change the number of round trips
+        List<ProductDetails> productDetailsList = cartRepository.findProductDetailsByUserId(userId);
+        QueryCounter.rowsFetched(productDetailsList.size());
+        return productDetailsList;
+    }
+
+    @Override
+    public CartLines findCartLines(Integer userId) {
+        CartLines lines = cartRepository.findCartLinesByUserId(userId);
+        QueryCounter.rowsFetched(lines.size());
+        return lines;
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetailsPage(Integer userId, Integer after, Integer maxLines,
+            boolean withCost) {
+        Pageable pageable = maxLines == null ? Pageable.unpaged() : PageRequest.of(0, maxLines);
+        Integer from = after == null ? Integer.valueOf(Integer.MIN_VALUE) : after;
+        List<ProductDetails> productDetailsList = withCost
+                ? cartRepository.findProductDetailsPageByUserId(userId, from, pageable)
+                : cartRepository.findQuantitiesPageByUserId(userId, from, pageable);
+        QueryCounter.rowsFetched(productDetailsList.size());
+        return productDetailsList;
+    }
+
+    @Override
+    public void insert(Integer userId, Integer productId, int quantity) {
+        cartRepository.insert(userId, productId, quantity);
+    }
+
+    @Override
+    public void insertOrMergeQuantity(Integer userId, Integer productId, int quantity, int maxAllowed) {
+        cartRepository.insertOrMergeQuantity(userId, productId, quantity, maxAllowed);
+    }
+
+    @Override
+    public int updateQuantity(Integer userId, Integer productId, int changed, int maxAllowed) {
+        return cartRepository.updateQuantity(userId, productId, changed, maxAllowed);
+    }
+
+    @Override
+    public int deleteIfQuantityDropsToZero(Integer userId, Integer productId, int changed) {
+        return cartRepository.deleteIfQuantityDropsToZero(userId, productId, changed);
+    }
+
+    @Override
+    public void delete(Integer userId, Integer productId) {
+        cartRepository.deleteByUserIdAndProductId(userId, productId);
+    }
+
+    @Override
+    public List<Cart> findAllForUpdate(Integer userId) {
+        List<Cart> lines = cartRepository.findAllByUserIdForUpdate(userId);
+        QueryCounter.rowsFetched(lines.size());
+        return lines;
+    }
+
+    @Override
+    public void saveLines(Integer userId, List<Cart> removedLines, List<Cart> addedLines) {
+        cartRepository.deleteAll(removedLines);
+        cartRepository.saveAll(addedLines);
+    }
+
+    @Override
+    public void evict(Integer userId) {
+        // nothing is held in memory
+    }
+}
@@ -0,0 +1,327 @@
+package com.maersk.shoppingcart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.dto.ProductView;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.metrics.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps carts of active users in memory as sorted productId and quantity arrays, so reads of a cached cart don't touch
+ * the database. A cart is loaded with one query on first access and dropped when the user has been idle for the idle
+ * timeout or when the cache is full, least recently used first. Costs are taken from the products cache.
+ *
+ * <p>Writes go to the database within the transaction of the change and are applied to the cached cart once it has
+ * committed, loads racing with a change are not cached, see {@link StripedChangeTracker}. Carts are loaded outside of
+ * the read-only transaction of the read, so from the primary and never from a replica lagging behind, as a loaded
+ * cart is kept until idle.
+ *
+ * <p>Cached carts don't see changes made through other instances or to the database directly, the store is only
+ * created with cart.single-instance, see {@link com.maersk.shoppingcart.config.CartStoreConfig}.
+ *
+ * @author Sumit Kumar
+ */
+public class MemoryCartStore implements CartStore {
+
+    public static final String CACHE_NAME = "cartStore";
+    public static final String CART_BYTES_SUMMARY = "cart.store.cart.bytes";
+    public static final String CACHED_BYTES_GAUGE = "cart.store.cached.bytes";
+
+    private final DatabaseCartStore database;
+    private final CartRepository cartRepository;
+    private final ProductService productService;
+    private final TransactionTemplate loadTemplate;
+    private final Cache<Integer, CachedCart> carts;
+    private final DistributionSummary cartBytes;
+    private final StripedChangeTracker changes = new StripedChangeTracker();
+
+    public MemoryCartStore(CartRepository cartRepository, ProductService productService,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, long maxCarts,
+            Duration idleTimeout) {
+        this.database = new DatabaseCartStore(cartRepository);
+        this.cartRepository = cartRepository;
+        this.productService = productService;
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        this.cartBytes = DistributionSummary.builder(CART_BYTES_SUMMARY)
+                .description("Estimated memory taken by a cart when loaded into the cart store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(CACHED_BYTES_GAUGE, this, MemoryCartStore::cachedBytes)
+                .description("Estimated memory taken by all carts in the cart store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, CACHE_NAME);
+    }
+
+    @Override
+    public Integer findQuantity(Integer userId, Integer productId) {
+        CachedCart cart = cart(userId);
+        int index = cart.indexOf(productId);
+        return index < 0 ? null : cart.quantities[index];
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetails(Integer userId) {
+        return findProductDetailsPage(userId, null, null, true);
+    }
+
+    @Override
+    public CartLines findCartLines(Integer userId) {
+        CachedCart cart = cart(userId);
+        CartLines lines = new CartLines(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            ProductView product = productService.getProductById(cart.productIds[i]);
+            if (product != null) {
+                lines.add(cart.productIds[i], cart.quantities[i], product.getCost());
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public List<ProductDetails> findProductDetailsPage(Integer userId, Integer after, Integer maxLines,
+            boolean withCost) {
+        CachedCart cart = cart(userId);
+        int index = after == null ? 0 : cart.indexAfter(after);
+        int size = Math.min(cart.size() - index, maxLines == null ? Integer.MAX_VALUE : maxLines);
+        List<ProductDetails> productDetailsList = new ArrayList<>(Math.max(size, 0));
+        for (; index < cart.size() && productDetailsList.size() < size; index++) {
+            int productId = cart.productIds[index];
+            if (!withCost) {
+                productDetailsList.add(new ProductDetails(productId, cart.quantities[index]));
+                continue;
+            }
+            // same as the join, lines of products that no longer exist are left out
+            ProductView product = productService.getProductById(productId);
+            if (product != null) {
+                productDetailsList.add(new ProductDetails(productId, cart.quantities[index], product.getCost()));
+            }
+        }
+        return productDetailsList;
+    }
+
+    @Override
+    public void insert(Integer userId, Integer productId, int quantity) {
+        database.insert(userId, productId, quantity);
+        onCartChange(userId, cart -> cart.with(productId, quantity));
+    }
+
+    @Override
+    public void insertOrMergeQuantity(Integer userId, Integer productId, int quantity, int maxAllowed) {
+        database.insertOrMergeQuantity(userId, productId, quantity, maxAllowed);
+        onCartChange(userId, cart -> {
+            int index = cart.indexOf(productId);
+            return cart.with(productId, index < 0 ? quantity : Math.min(cart.quantities[index] + quantity, maxAllowed));
+        });
+    }
+
+    @Override
+    public int updateQuantity(Integer userId, Integer productId, int changed, int maxAllowed) {
+        int updated = database.updateQuantity(userId, productId, changed, maxAllowed);
+        if (updated == 1) {
+            onCartChange(userId, cart -> {
+                int index = cart.indexOf(productId);
+                // a cart not knowing the updated line is out of date and reloaded
+                return index < 0 ? null : cart.with(productId, cart.quantities[index] + changed);
+            });
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteIfQuantityDropsToZero(Integer userId, Integer productId, int changed) {
+        int deleted = database.deleteIfQuantityDropsToZero(userId, productId, changed);
+        if (deleted == 1) {
+            onCartChange(userId, cart -> cart.without(productId));
+        }
+        return deleted;
+    }
+
+    @Override
+    public void delete(Integer userId, Integer productId) {
+        database.delete(userId, productId);
+        onCartChange(userId, cart -> cart.without(productId));
+    }
+
+    @Override
+    public List<Cart> findAllForUpdate(Integer userId) {
+        return database.findAllForUpdate(userId);
+    }
+
+    /**
+     * Quantity changes of loaded lines are only known on flush, the cart is reloaded on next access instead
+     */
+    @Override
+    public void saveLines(Integer userId, List<Cart> removedLines, List<Cart> addedLines) {
+        database.saveLines(userId, removedLines, addedLines);
+        onCartChange(userId, null);
+    }
+
+    @Override
+    public void evict(Integer userId) {
+        onCartChange(userId, null);
+    }
+
+    public void invalidateAll() {
+        carts.invalidateAll();
+    }
+
+    private CachedCart cart(Integer userId) {
+        CachedCart cart = carts.getIfPresent(userId);
+        if (cart != null) {
+            return cart;
+        }
+
+        long load = changes.beginLoad(userId);
+        CachedCart loaded = CachedCart.of(loadTemplate.execute(status -> cartRepository.findQuantitiesPageByUserId(
+                userId, Integer.MIN_VALUE, Pageable.unpaged())));
+        QueryCounter.rowsFetched(loaded.size());
+        if (load == StripedChangeTracker.NOT_CACHEABLE) {
+            return loaded;
+        }
+        CachedCart cached = carts.asMap().compute(userId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            if (!changes.mayCache(userId, load)) {
+                return null;
+            }
+            cartBytes.record(loaded.estimatedBytes());
+            return loaded;
+        });
+        return cached != null ? cached : loaded;
+    }
+
+    /**
+     * To be called within the transaction after the change has been written, a null change drops the cached cart
+     */
+    private void onCartChange(Integer userId, UnaryOperator<CachedCart> change) {
+        changes.onChange(carts.asMap(), userId, change);
+    }
+
+    private double cachedBytes() {
+        long bytes = 0;
+        for (CachedCart cart : carts.asMap().values()) {
+            bytes += cart.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Immutable lines of a cart in productId order, changes return a copy so reads need no locking
+     */
+    static final class CachedCart {
+
+        private static final CachedCart EMPTY = new CachedCart(new int[0], new int[0]);
+
+        private final int[] productIds;
+        private final int[] quantities;
+
+        private CachedCart(int[] productIds, int[] quantities) {
+            this.productIds = productIds;
+            this.quantities = quantities;
+        }
+
+        static CachedCart of(List<ProductDetails> lines) {
+            if (lines.isEmpty()) {
+                return EMPTY;
+            }
+            int[] productIds = new int[lines.size()];
+            int[] quantities = new int[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                productIds[i] = lines.get(i).getProductId();
+                quantities[i] = lines.get(i).getQuantity();
+            }
+            return new CachedCart(productIds, quantities);
+        }
+
+        int size() {
+            return productIds.length;
+        }
+
+        int indexOf(int productId) {
+            return Arrays.binarySearch(productIds, productId);
+        }
+
+        /**
+         * @returns index of the first line after productId
+         */
+        int indexAfter(int productId) {
+            int index = indexOf(productId);
+            return index < 0 ? -index - 1 : index + 1;
+        }
+
+        /**
+         * @returns cart with the line set to quantity, without the line when quantity is zero
+         */
+        CachedCart with(int productId, int quantity) {
+            if (quantity == 0) {
+                return without(productId);
+            }
+            int index = indexOf(productId);
+            if (index >= 0) {
+                int[] changedQuantities = quantities.clone();
+                changedQuantities[index] = quantity;
+                return new CachedCart(productIds, changedQuantities);
+            }
+            int insertAt = -index - 1;
+            return new CachedCart(insert(productIds, insertAt, productId), insert(quantities, insertAt, quantity));
+        }
+
+        CachedCart without(int productId) {
+            int index = indexOf(productId);
+            if (index < 0) {
+                return this;
+            }
+            return new CachedCart(remove(productIds, index), remove(quantities, index));
+        }
+
+        /**
+         * Object header and two array references plus both arrays, assuming compressed references
+         */
+        long estimatedBytes() {
+            return 24 + 2 * align(16 + 4L * productIds.length);
+        }
+
+        private static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+
+        private static int[] insert(int[] values, int index, int value) {
+            int[] inserted = new int[values.length + 1];
+            System.arraycopy(values, 0, inserted, 0, index);
+            inserted[index] = value;
+            System.arraycopy(values, index, inserted, index + 1, values.length - index);
+            return inserted;
+        }
+
+        private static int[] remove(int[] values, int index) {
+            int[] removed = new int[values.length - 1];
+            System.arraycopy(values, 0, removed, 0, index);
+            System.arraycopy(values, index + 1, removed, index, values.length - index - 1);
+            return removed;
+        }
+    }
+}
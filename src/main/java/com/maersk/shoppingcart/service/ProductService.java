@@ -1,8 +1,16 @@
 package com.maersk.shoppingcart.service;
 
-import com.maersk.shoppingcart.entity.Product;
+import static com.maersk.shoppingcart.config.CacheConfig.PRODUCTS_CACHE;
+
+import com.maersk.shoppingcart.dto.ProductView;
 import com.maersk.shoppingcart.jpa.ProductRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 /**
@@ -12,13 +20,66 @@ import org.springframework.stereotype.Service;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CartSummaryService cartSummaryService;
+    private final CartVersions cartVersions;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CartSummaryService cartSummaryService,
+            CartVersions cartVersions, CacheManager cacheManager) {
         this.productRepository = productRepository;
+        this.cartSummaryService = cartSummaryService;
+        this.cartVersions = cartVersions;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Served from products cache as an immutable view, unknown products are not cached so newly added products show up
+     * right away
+     */
+    @Cacheable(cacheNames = PRODUCTS_CACHE, unless = "#result == null")
+    public ProductView getProductById(Integer productId) {
+        return productRepository.findById(productId).map(ProductView::new).orElse(null);
+    }
+
+    /**
+     * @returns ids out of given ones which belong to an existing product, looked up with a single query
+     */
+    public Set<Integer> findExistingProductIds(Collection<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return productRepository.findExistingProductIds(productIds);
+    }
+
+    /**
+     * Called through /admin/products once a product was changed in the database, or within the transaction changing
+     * it. The product is evicted once the transaction completes, so that a lookup made before the commit can't cache
+     * the old cost again. Cart summaries are dropped and cart versions bumped as their total cost may be based on the
+     * old one.
+     */
+    public void evictProduct(Integer productId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            Cache products = cacheManager.getCache(PRODUCTS_CACHE);
+            if (products != null) {
+                products.evict(productId);
+            }
+        });
+        cartSummaryService.onPriceChange();
+        cartVersions.onPriceChange();
     }
 
-    public Product getProductById(Integer productId) {
-        return productRepository.findById(productId).orElse(null);
+    /**
+     * Same as {@link #evictProduct} for every product
+     */
+    public void evictAllProducts() {
+        TransactionCallbacks.afterCompletion(committed -> {
+            Cache products = cacheManager.getCache(PRODUCTS_CACHE);
+            if (products != null) {
+                products.clear();
+            }
+        });
+        cartSummaryService.onPriceChange();
+        cartVersions.onPriceChange();
     }
 }
@@ -0,0 +1,59 @@
+package com.maersk.shoppingcart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maersk.shoppingcart.datasource.ReadWriteRoutingDataSource;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps reads of a user on the primary for a while after a change to their cart has committed, so users see their own
+ * changes although replicas lag behind. Users are remembered by this instance only, only relevant with replicas.
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class ReadYourWrites {
+
+    private final boolean enabled;
+    private final Cache<Integer, Boolean> recentWriters;
+
+    @Autowired
+    public ReadYourWrites(@Value("${cart.datasource.replica-urls:}") String[] replicaUrls,
+            @Value("${cart.datasource.read-your-writes.window:5s}") Duration window,
+            @Value("${cart.datasource.read-your-writes.max-size:100000}") long maxSize) {
+        this.enabled = replicaUrls.length > 0;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * To be called within the transaction changing users cart, user is remembered once it has committed
+     */
+    public void onWrite(Integer userId) {
+        if (enabled) {
+            TransactionCallbacks.afterCompletion(committed -> {
+                if (committed) {
+                    recentWriters.put(userId, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    /**
+     * To be called at the start of a read-only transaction reading users cart, before its first statement. Routes it
+     * to the primary if user has changed their cart within the window.
+     */
+    public void onRead(Integer userId) {
+        if (enabled && TransactionSynchronizationManager.isSynchronizationActive()
+                && recentWriters.getIfPresent(userId) != null) {
+            ReadWriteRoutingDataSource.requirePrimary();
+            TransactionCallbacks.afterCompletion(committed -> ReadWriteRoutingDataSource.releasePrimary());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.maersk.shoppingcart.service;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps values cached per user in step with changes to their carts. Changes are applied once the surrounding
+ * transaction has completed. A load racing with a change could read the database before or after the commit, so loaded
+ * values may only be cached when no change to a cart in the same stripe of user ids was in flight or completed while
+ * loading.
+ *
+ * <p>Loads call {@link #beginLoad} before reading the database and {@link #mayCache} from within a compute on the
+ * cached map, which serializes with the changes applied by {@link #onChange}.
+ *
+ * @author Sumit Kumar
+ */
+final class StripedChangeTracker {
+
+    static final long NOT_CACHEABLE = -1;
+
+    private static final int STRIPES = 1024;
+
+    // per stripe of user ids: changes not yet completed and a sequence bumped whenever a change starts or completes
+    private final AtomicIntegerArray changesInFlight = new AtomicIntegerArray(STRIPES);
+    private final AtomicLongArray changeSequence = new AtomicLongArray(STRIPES);
+
+    /**
+     * @returns token of a load about to read the database, {@link #NOT_CACHEABLE} while a change is in flight
+     */
+    long beginLoad(Integer userId) {
+        int stripe = stripe(userId);
+        boolean cacheable = changesInFlight.get(stripe) == 0;
+        long sequence = changeSequence.get(stripe);
+        return cacheable ? sequence : NOT_CACHEABLE;
+    }
+
+    /**
+     * To be called from within a compute on the key of the user
+     *
+     * @returns whether the value read by the load may be cached, no change having started or completed since
+     */
+    boolean mayCache(Integer userId, long load) {
+        return load != NOT_CACHEABLE && changeSequence.get(stripe(userId)) == load;
+    }
+
+    /**
+     * To be called within the transaction changing users cart, after the change has been written. The change is
+     * applied to the value cached in values once the transaction commits, a null change drops the cached value instead.
+     */
+    <V> void onChange(ConcurrentMap<Integer, V> values, Integer userId, UnaryOperator<V> change) {
+        int stripe = stripe(userId);
+        changesInFlight.incrementAndGet(stripe);
+        changeSequence.incrementAndGet(stripe);
+        TransactionCallbacks.afterCompletion(committed -> {
+            try {
+                values.compute(userId, (id, current) -> {
+                    changeSequence.incrementAndGet(stripe);
+                    if (current == null || !committed) {
+                        return current;
+                    }
+                    return change == null ? null : change.apply(current);
+                });
+            } finally {
+                changesInFlight.decrementAndGet(stripe);
+            }
+        });
+    }
+
+    private static int stripe(Integer userId) {
+        return Math.floorMod(userId.hashCode(), STRIPES);
+    }
+}
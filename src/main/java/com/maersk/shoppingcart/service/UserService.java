@@ -1,8 +1,19 @@
 package com.maersk.shoppingcart.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.maersk.shoppingcart.entity.User;
 import com.maersk.shoppingcart.jpa.UserRepository;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 /**
@@ -11,14 +22,106 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
 
+    // one bit per known user id, seeded at startup and updated as users are looked up or registered
+    private final ReadWriteLock userIndexLock = new ReentrantReadWriteLock();
+    private BitSet userIndex = new BitSet();
+
+    // ids recently confirmed to not exist, so repeated lookups of unknown users don't reach DB
+    private final Cache<Integer, Boolean> missingUsers;
+
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+            @Value("${cart.user.index.negative-cache.max-size:10000}") long negativeCacheMaxSize,
+            @Value("${cart.user.index.negative-cache.ttl:60s}") Duration negativeCacheTtl) {
         this.userRepository = userRepository;
+        this.missingUsers = Caffeine.newBuilder()
+                .maximumSize(negativeCacheMaxSize)
+                .expireAfterWrite(negativeCacheTtl)
+                .build();
     }
 
     public User getUserById(Integer userId) {
         return userRepository.findById(userId).orElse(null);
     }
+
+    /**
+     * checks existence of user without loading user entity, DB is only consulted for ids not seen so far
+     */
+    public boolean userExists(Integer userId) {
+        if (userId == null || userId < 0) {
+            return false;
+        }
+        if (isIndexed(userId)) {
+            return true;
+        }
+        if (missingUsers.getIfPresent(userId) != null) {
+            return false;
+        }
+
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            registerUser(userId);
+        } else {
+            missingUsers.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    /**
+     * Hook to be called whenever a new user is created
+     */
+    public void registerUser(Integer userId) {
+        userIndexLock.writeLock().lock();
+        try {
+            userIndex.set(userId);
+        } finally {
+            userIndexLock.writeLock().unlock();
+        }
+        missingUsers.invalidate(userId);
+    }
+
+    /**
+     * Hook to be called whenever a user is removed
+     */
+    public void unregisterUser(Integer userId) {
+        userIndexLock.writeLock().lock();
+        try {
+            userIndex.clear(userId);
+        } finally {
+            userIndexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds user index from users table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadUserIndex() {
+        BitSet reloaded = new BitSet();
+        for (Integer userId : userRepository.findAllUserIds()) {
+            reloaded.set(userId);
+        }
+
+        userIndexLock.writeLock().lock();
+        try {
+            userIndex = reloaded;
+        } finally {
+            userIndexLock.writeLock().unlock();
+        }
+        missingUsers.invalidateAll();
+        logger.info("Loaded {} user ids in user index", reloaded.cardinality());
+    }
+
+    private boolean isIndexed(int userId) {
+        userIndexLock.readLock().lock();
+        try {
+            return userIndex.get(userId);
+        } finally {
+            userIndexLock.readLock().unlock();
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.maersk.shoppingcart.reactive;
+
+import java.util.Collections;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+
+/**
+ * Reactive variant of the cart api, WebFlux on Netty with R2DBC instead of Tomcat with JPA. Built from its own source
+ * set (src/reactive) with its own dependencies and configured by reactive.properties, nothing outside this package is
+ * scanned.
+ *
+ * @author Sumit Kumar
+ */
+@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+public class ReactiveShoppingCartApplication {
+
+    public static final String CONFIG_NAME = "reactive";
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactiveShoppingCartApplication.class);
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.setDefaultProperties(Collections.singletonMap("spring.config.name", CONFIG_NAME));
+        application.run(args);
+    }
+}
@@ -0,0 +1,76 @@
+package com.maersk.shoppingcart.reactive.exception.handler;
+
+import com.maersk.shoppingcart.dto.ProblemDetails;
+import com.maersk.shoppingcart.exception.DuplicateDataException;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.exception.handler.ShoppingCartExceptionHandler;
+import com.maersk.shoppingcart.reactive.rest.ReactiveShoppingCartEndpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Same error responses and {@link ShoppingCartExceptionHandler#EXCEPTIONS_COUNTER} metric as the servlet application
+ *
+ * @author Sumit Kumar
+ */
+@RestControllerAdvice(assignableTypes = {ReactiveShoppingCartEndpoint.class})
+public class ReactiveShoppingCartExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveShoppingCartExceptionHandler.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ReactiveShoppingCartExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetails> handleException(InvalidDataException e, ServerHttpRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        return problem(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetails> handleException(DuplicateDataException e, ServerHttpRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        return problem(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Catches all exception during rest api processing and returns a meaningful response to user
+     */
+    @ExceptionHandler
+    public ResponseEntity<ProblemDetails> handleException(Exception e, ServerHttpRequest request) {
+        logRequestAndExceptionDetails(e, request);
+        return problem(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private static ResponseEntity<ProblemDetails> problem(String reason, HttpStatus status) {
+        ProblemDetails problemDetails = new ProblemDetails();
+        problemDetails.setReason(reason);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        return new ResponseEntity<>(problemDetails, headers, status);
+    }
+
+    private void logRequestAndExceptionDetails(Exception e, ServerHttpRequest request) {
+        Counter.builder(ShoppingCartExceptionHandler.EXCEPTIONS_COUNTER)
+                .description("Exceptions turned into error responses by the cart api")
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        logger.error("Error processing request: {}, method={}, path={}", e.getMessage(),
+                request.getMethod(), request.getURI().getPath(), e);
+    }
+}
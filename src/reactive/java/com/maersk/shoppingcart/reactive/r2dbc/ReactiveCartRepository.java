@@ -0,0 +1,152 @@
+package com.maersk.shoppingcart.reactive.r2dbc;
+
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.money.Money;
+import java.math.BigDecimal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link com.maersk.shoppingcart.jpa.CartRepository}, same statements on the carts
+ * table run through R2DBC. Costs are read as decimals and turned into minor units here.
+ *
+ * @author Sumit Kumar
+ */
+@Repository
+public class ReactiveCartRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveCartRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * @returns quantity of the product in users cart, empty if not present
+     */
+    public Mono<Integer> findQuantityByUserIdAndProductId(Integer userId, Integer productId) {
+        return databaseClient.sql("select quantity from carts where userId = :userId and productId = :productId")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .map(row -> row.get("quantity", Integer.class))
+                .one();
+    }
+
+    /**
+     * Plain insert without prior lookup, a line already present for the product violates the primary key
+     */
+    public Mono<Integer> insert(Integer userId, Integer productId, int quantity) {
+        return databaseClient.sql("insert into carts (userId, productId, quantity) "
+                + "values (:userId, :productId, :quantity)")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .bind("quantity", quantity)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Inserts the line or, if already present, adds quantity to it capped at maxAllowed. lastModified is set
+     * explicitly, on update current_timestamp doesn't fire when the quantity is already at maxAllowed.
+     */
+    public Mono<Integer> insertOrMergeQuantity(Integer userId, Integer productId, int quantity, int maxAllowed) {
+        return databaseClient.sql("insert into carts (userId, productId, quantity) "
+                + "values (:userId, :productId, :quantity) "
+                + "on duplicate key update quantity = least(quantity + values(quantity), :maxAllowed), "
+                + "lastModified = current_timestamp")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .bind("quantity", quantity)
+                .bind("maxAllowed", maxAllowed)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Changes quantity in place, only if the new quantity stays between 1 and maxAllowed
+     *
+     * @return number of updated rows, zero if line is not present or new quantity is out of range
+     */
+    public Mono<Integer> updateQuantity(Integer userId, Integer productId, int changed, int maxAllowed) {
+        return databaseClient.sql("update carts set quantity = quantity + :changed, lastModified = current_timestamp "
+                + "where userId = :userId and productId = :productId "
+                + "and quantity + :changed between 1 and :maxAllowed")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .bind("changed", changed)
+                .bind("maxAllowed", maxAllowed)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Deletes the line only if applying changed brings its quantity down to exactly zero
+     *
+     * @return number of deleted rows
+     */
+    public Mono<Integer> deleteIfQuantityDropsToZero(Integer userId, Integer productId, int changed) {
+        return databaseClient.sql("delete from carts where userId = :userId and productId = :productId "
+                + "and quantity + :changed = 0")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .bind("changed", changed)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @return number of deleted rows, zero if line is not present
+     */
+    public Mono<Integer> deleteByUserIdAndProductId(Integer userId, Integer productId) {
+        return databaseClient.sql("delete from carts where userId = :userId and productId = :productId")
+                .bind("userId", userId)
+                .bind("productId", productId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Streams every line of users cart joined with the product cost, rows are emitted as the driver reads them
+     */
+    public Flux<ProductDetails> findProductDetailsByUserId(Integer userId) {
+        return databaseClient.sql("select c.productId, c.quantity, p.cost from carts c "
+                + "join products p on p.productId = c.productId where c.userId = :userId order by c.productId")
+                .bind("userId", userId)
+                .map(row -> new ProductDetails(intValue(row.get("productId")), row.get("quantity", Integer.class),
+                        Money.of(row.get("cost", BigDecimal.class))))
+                .all();
+    }
+
+    /**
+     * Aggregates number of lines, items and total cost of users cart in the database
+     */
+    public Mono<CartSummary> summarizeByUserId(Integer userId) {
+        return databaseClient.sql("select count(*) as lineCount, sum(c.quantity) as itemCount, "
+                + "sum(c.quantity * p.cost) as totalCost from carts c "
+                + "join products p on p.productId = c.productId where c.userId = :userId")
+                .bind("userId", userId)
+                .map(row -> {
+                    BigDecimal totalCost = row.get("totalCost", BigDecimal.class);
+                    return new CartSummary(longValue(row.get("lineCount")), longValue(row.get("itemCount")),
+                            totalCost == null ? null : Money.of(totalCost));
+                })
+                .one();
+    }
+
+    /**
+     * Ids are INT or BIGINT depending on who created the schema and MySQL sums integers as DECIMAL, drivers only
+     * decode such columns to their own type
+     */
+    private static Integer intValue(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    private static Long longValue(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,29 @@
+package com.maersk.shoppingcart.reactive.r2dbc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link com.maersk.shoppingcart.jpa.ProductRepository}
+ *
+ * @author Sumit Kumar
+ */
+@Repository
+public class ReactiveProductRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Boolean> existsById(Integer productId) {
+        return databaseClient.sql("select count(*) as found from products where productId = :productId")
+                .bind("productId", productId)
+                .map(row -> row.get("found", Long.class) > 0)
+                .one();
+    }
+}
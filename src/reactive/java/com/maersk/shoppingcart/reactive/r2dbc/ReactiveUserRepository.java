@@ -0,0 +1,29 @@
+package com.maersk.shoppingcart.reactive.r2dbc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link com.maersk.shoppingcart.jpa.UserRepository}
+ *
+ * @author Sumit Kumar
+ */
+@Repository
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Boolean> existsById(Integer userId) {
+        return databaseClient.sql("select count(*) as found from users where userId = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get("found", Long.class) > 0)
+                .one();
+    }
+}
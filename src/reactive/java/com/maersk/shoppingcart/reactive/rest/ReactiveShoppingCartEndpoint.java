@@ -0,0 +1,138 @@
+package com.maersk.shoppingcart.reactive.rest;
+
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.reactive.r2dbc.ReactiveProductRepository;
+import com.maersk.shoppingcart.reactive.r2dbc.ReactiveUserRepository;
+import com.maersk.shoppingcart.reactive.service.ReactiveCartService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same paths and responses as {@link com.maersk.shoppingcart.rest.ShoppingCartEndpoint} except batches, ETags and
+ * write-behind, which need the in-memory state of the servlet application
+ *
+ * @author Sumit Kumar
+ */
+@RequestMapping("/cart")
+@RestController
+public class ReactiveShoppingCartEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveShoppingCartEndpoint.class);
+
+    private final ReactiveCartService cartService;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveProductRepository productRepository;
+
+    @Value("${cart.item.max.allowed:5}")
+    private int itemMaxAllowed;
+
+    @Autowired
+    public ReactiveShoppingCartEndpoint(ReactiveCartService cartService, ReactiveUserRepository userRepository,
+            ReactiveProductRepository productRepository) {
+        this.cartService = cartService;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @returns all items in users cart with cumulative cost
+     */
+    @GetMapping("/{userId}")
+    public Mono<CartDetails> getCartDetailsForUser(@PathVariable Integer userId) {
+        logger.debug("Fetching full cart for user: {}", userId);
+        return validateUser(userId).then(cartService.getCartDetails(userId));
+    }
+
+    /**
+     * @returns number of lines, number of items and total cost of users cart without listing the items
+     */
+    @GetMapping(value = "/{userId}", params = "summary=true")
+    public Mono<CartSummary> getCartSummaryForUser(@PathVariable Integer userId) {
+        logger.debug("Fetching cart summary for user: {}", userId);
+        return validateUser(userId).then(cartService.getCartSummary(userId));
+    }
+
+    /**
+     * Alias of {@link #getCartSummaryForUser} kept for clients only showing totals (checkout, header widgets)
+     */
+    @GetMapping("/{userId}/total")
+    public Mono<CartSummary> getCartTotalForUser(@PathVariable Integer userId) {
+        return getCartSummaryForUser(userId);
+    }
+
+    /**
+     * @returns Quantity of products of given Id in users cart, zero if not present
+     */
+    @GetMapping("/{userId}/{productId}/")
+    public Mono<Integer> getCountOfItemInCart(@PathVariable Integer userId, @PathVariable Integer productId) {
+        logger.debug("Fetching count of product: {} in cart of user : {}", productId, userId);
+        return validateUserAndProduct(userId, productId).then(cartService.getCountOfItem(userId, productId));
+    }
+
+    /**
+     * clears the given product from users cart throws exception if not present
+     */
+    @DeleteMapping("/{userId}/{productId}/")
+    public Mono<Void> deleteItemFromCart(@PathVariable Integer userId, @PathVariable Integer productId) {
+        logger.debug("Delete product: {} from user: {} cart", productId, userId);
+        return validateUserAndProduct(userId, productId).then(cartService.deleteItemFromCart(userId, productId));
+    }
+
+    /**
+     * updates quantity of items in cart, ensures number of items remains valid post update
+     */
+    @PutMapping("/{userId}/{productId}/")
+    public Mono<Void> updateItemInCart(@PathVariable Integer userId, @PathVariable Integer productId,
+            @RequestParam Integer changed) {
+        logger.debug("Updating product : {} count by {} in user : {} cart", productId, changed, userId);
+        return validateUserAndProduct(userId, productId)
+                .then(changed == 0
+                        ? Mono.error(new InvalidDataException("Changed should not be zero !!"))
+                        : cartService.updateCart(userId, productId, changed));
+    }
+
+    /**
+     * adds new item to cart, with merge=true quantity is added to the item if already present in cart
+     */
+    @PostMapping("/{userId}/{productId}/")
+    public Mono<Void> addItemToCart(@PathVariable Integer userId, @PathVariable Integer productId,
+            @RequestParam Integer quantity, @RequestParam(defaultValue = "false") boolean merge) {
+        logger.debug("Adding product : {} with quantity : {} to user : {} cart", productId, quantity, userId);
+        if (quantity <= 0 || quantity > itemMaxAllowed) {
+            return Mono.error(new InvalidDataException(
+                    "Quantity should be greater than zero and less than " + itemMaxAllowed + " !!"));
+        }
+        return validateUserAndProduct(userId, productId).then(merge
+                ? cartService.mergeProductIntoCart(userId, productId, quantity)
+                : cartService.addProductToCart(userId, productId, quantity));
+    }
+
+    private Mono<Void> validateUser(Integer userId) {
+        return userRepository.existsById(userId)
+                .flatMap(exists -> exists
+                        ? Mono.empty()
+                        : Mono.error(new InvalidDataException(
+                        "User corresponding to id " + userId + " doesn't exist !!")));
+    }
+
+    private Mono<Void> validateUserAndProduct(Integer userId, Integer productId) {
+        return validateUser(userId).then(productRepository.existsById(productId)
+                .flatMap(exists -> exists
+                        ? Mono.empty()
+                        : Mono.error(new InvalidDataException(
+                        "Product corresponding to id " + productId + " doesn't exist !!"))));
+    }
+}
@@ -0,0 +1,48 @@
+package com.maersk.shoppingcart.reactive.security;
+
+import com.maersk.shoppingcart.security.CartUsers;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * Basic auth with the same users and credential cache as the servlet application
+ *
+ * @author Sumit Kumar
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveWebSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf().disable()
+                .authorizeExchange()
+                .pathMatchers("/admin/**").hasRole("ADMIN")
+                .anyExchange().authenticated()
+                .and()
+                .httpBasic()
+                .and()
+                .build();
+    }
+
+    /**
+     * Checks run on a worker thread, as a cache miss pays for bcrypt which must not block the event loop
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(MeterRegistry meterRegistry,
+            @Value("${security.auth.cache.max-size:1000}") long cacheMaxSize,
+            @Value("${security.auth.cache.ttl:60s}") Duration cacheTtl) {
+        return new ReactiveAuthenticationManagerAdapter(new ProviderManager(
+                CartUsers.authenticationProvider(meterRegistry, cacheMaxSize, cacheTtl)));
+    }
+}
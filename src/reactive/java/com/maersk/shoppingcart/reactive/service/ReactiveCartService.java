@@ -0,0 +1,119 @@
+package com.maersk.shoppingcart.reactive.service;
+
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.exception.DuplicateDataException;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.reactive.r2dbc.ReactiveCartRepository;
+import java.util.ArrayList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link com.maersk.shoppingcart.service.CartService} for single item changes, with the
+ * same conditional statements so concurrent changes to a line are never lost. Carts are read from DB every time,
+ * there is no summary cache or write-behind.
+ *
+ * @author Sumit Kumar
+ */
+@Service
+public class ReactiveCartService {
+
+    private final ReactiveCartRepository cartRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final int itemMaxAllowed;
+
+    @Autowired
+    public ReactiveCartService(ReactiveCartRepository cartRepository, TransactionalOperator transactionalOperator,
+            @Value("${cart.item.max.allowed:5}") int itemMaxAllowed) {
+        this.cartRepository = cartRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.itemMaxAllowed = itemMaxAllowed;
+    }
+
+    public Mono<Void> addProductToCart(Integer userId, Integer productId, int quantity) {
+        return cartRepository.insert(userId, productId, quantity)
+                // user and product are validated upfront, so the only constraint left to violate is the primary key
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new DuplicateDataException("This item is already present in users cart !!"))
+                .then();
+    }
+
+    /**
+     * adds new item to cart or increases quantity of existing one, quantity is capped at max allowed
+     */
+    public Mono<Void> mergeProductIntoCart(Integer userId, Integer productId, int quantity) {
+        return cartRepository.insertOrMergeQuantity(userId, productId, quantity, itemMaxAllowed).then();
+    }
+
+    public Mono<Void> deleteItemFromCart(Integer userId, Integer productId) {
+        return cartRepository.deleteByUserIdAndProductId(userId, productId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new InvalidDataException(
+                        "Item with id: " + productId + " is not present in user's cart !"))
+                        : Mono.empty());
+    }
+
+    /**
+     * Applies change with a conditional update, line is removed when its quantity drops to zero
+     */
+    public Mono<Void> updateCart(Integer userId, Integer productId, Integer changed) {
+        Mono<Integer> deleted = changed < 0
+                ? cartRepository.deleteIfQuantityDropsToZero(userId, productId, changed)
+                : Mono.just(0);
+        return deleted
+                .flatMap(rows -> rows == 1
+                        ? Mono.just(rows)
+                        : cartRepository.updateQuantity(userId, productId, changed, itemMaxAllowed))
+                .flatMap(rows -> rows == 1 ? Mono.<Void>empty() : rejectUpdate(userId, productId))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * nothing changed, find out whether item is missing or new quantity is out of the allowed range
+     */
+    private Mono<Void> rejectUpdate(Integer userId, Integer productId) {
+        return cartRepository.findQuantityByUserIdAndProductId(userId, productId)
+                .switchIfEmpty(Mono.error(new InvalidDataException(
+                        "Item with id: " + productId + " is not present in user's cart !")))
+                .then(Mono.error(new InvalidDataException(
+                        "Updated item quantity should be within 0 and " + itemMaxAllowed)));
+    }
+
+    /**
+     * @returns quantity of the product in users cart, zero if not present
+     */
+    public Mono<Integer> getCountOfItem(Integer userId, Integer productId) {
+        return cartRepository.findQuantityByUserIdAndProductId(userId, productId).defaultIfEmpty(0);
+    }
+
+    public Mono<CartSummary> getCartSummary(Integer userId) {
+        return cartRepository.summarizeByUserId(userId);
+    }
+
+    /**
+     * Product rows of the join are added to the cart and its total as they arrive, nothing waits for the full result
+     */
+    public Mono<CartDetails> getCartDetails(Integer userId) {
+        return cartRepository.findProductDetailsByUserId(userId)
+                .collect(ReactiveCartService::emptyCartDetails, ReactiveCartService::addProductDetails);
+    }
+
+    private static CartDetails emptyCartDetails() {
+        CartDetails cartDetails = new CartDetails();
+        cartDetails.setProductDetails(new ArrayList<>());
+        return cartDetails;
+    }
+
+    private static void addProductDetails(CartDetails cartDetails, ProductDetails productDetails) {
+        cartDetails.getProductDetails().add(productDetails);
+        cartDetails.setTotalCost(Money.plus(cartDetails.getTotalCost(),
+                Money.times(productDetails.getCost(), productDetails.getQuantity())));
+    }
+}
@@ -0,0 +1,174 @@
+package com.maersk.shoppingcart.reactive.rest;
+
+import com.maersk.shoppingcart.reactive.ReactiveShoppingCartApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the reactive application on Netty against H2 through its R2DBC driver
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReactiveShoppingCartApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = {"spring.config.name=" + ReactiveShoppingCartApplication.CONFIG_NAME,
+                "spring.profiles.active:test",
+                "management.server.port=0"})
+class ReactiveShoppingCartEndpointTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final Integer TEST_PRODUCT_ID = 10;
+    private static final Integer TEST_SECOND_PRODUCT_ID = 20;
+    private static final Integer TEST_MISSING_ID = 99;
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setup() {
+        execute("delete from carts");
+        execute("delete from products");
+        execute("delete from users");
+        execute("insert into users (userid, email, password) values (1, 'user@test.com', 'secret')");
+        execute("insert into products (productid, name, cost) values (10, 'first', 25.5)");
+        execute("insert into products (productid, name, cost) values (20, 'second', 0.1)");
+    }
+
+    @Test
+    void testGetCartDetailsForUser_LinesJoinedAndTotalledExactly() {
+        // ARRANGE
+        addLine(TEST_PRODUCT_ID, 2);
+        addLine(TEST_SECOND_PRODUCT_ID, 3);
+
+        // ACT & ASSERT
+        client().get().uri("/cart/{userId}", TEST_USER_ID).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.productDetails.length()").isEqualTo(2)
+                .jsonPath("$.productDetails[0].productId").isEqualTo(TEST_PRODUCT_ID)
+                .jsonPath("$.productDetails[0].cost").isEqualTo(25.5)
+                .jsonPath("$.productDetails[1].quantity").isEqualTo(3)
+                .jsonPath("$.totalCost").isEqualTo(51.3);
+    }
+
+    @Test
+    void testGetCartSummaryForUser_AggregatedInDatabase() {
+        // ARRANGE
+        addLine(TEST_PRODUCT_ID, 2);
+        addLine(TEST_SECOND_PRODUCT_ID, 3);
+
+        // ACT & ASSERT
+        client().get().uri("/cart/{userId}?summary=true", TEST_USER_ID).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"lineCount\":2,\"itemCount\":5,\"totalCost\":51.3}");
+        client().get().uri("/cart/{userId}/total", TEST_USER_ID).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"lineCount\":2,\"itemCount\":5,\"totalCost\":51.3}");
+        execute("delete from carts");
+        client().get().uri("/cart/{userId}?summary=true", TEST_USER_ID).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"lineCount\":0,\"itemCount\":0,\"totalCost\":0}");
+    }
+
+    @Test
+    void testAddItemToCart_DuplicateFailsWith400AndMergeCapsQuantity() {
+        // ACT & ASSERT
+        addLine(TEST_PRODUCT_ID, 2);
+        client().post().uri("/cart/{userId}/{productId}/?quantity=1", TEST_USER_ID, TEST_PRODUCT_ID).exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody().jsonPath("$.reason").isEqualTo("This item is already present in users cart !!");
+        client().post().uri("/cart/{userId}/{productId}/?quantity=9&merge=true", TEST_USER_ID, TEST_PRODUCT_ID)
+                .exchange()
+                .expectStatus().isOk();
+        assertCount(TEST_PRODUCT_ID, 10);
+    }
+
+    @Test
+    void testUpdateItemInCart_ChangedInRangeAndLineDeletedAtZero() {
+        // ARRANGE
+        addLine(TEST_PRODUCT_ID, 2);
+
+        // ACT & ASSERT
+        update(TEST_PRODUCT_ID, 3).expectStatus().isOk();
+        assertCount(TEST_PRODUCT_ID, 5);
+        update(TEST_PRODUCT_ID, 6).expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.reason").isEqualTo("Updated item quantity should be within 0 and 10");
+        update(TEST_PRODUCT_ID, -5).expectStatus().isOk();
+        assertCount(TEST_PRODUCT_ID, 0);
+        update(TEST_PRODUCT_ID, 1).expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.reason")
+                .isEqualTo("Item with id: " + TEST_PRODUCT_ID + " is not present in user's cart !");
+    }
+
+    @Test
+    void testDeleteItemFromCart_MissingItemFailsWith400() {
+        // ARRANGE
+        addLine(TEST_PRODUCT_ID, 2);
+
+        // ACT & ASSERT
+        client().delete().uri("/cart/{userId}/{productId}/", TEST_USER_ID, TEST_PRODUCT_ID).exchange()
+                .expectStatus().isOk();
+        client().delete().uri("/cart/{userId}/{productId}/", TEST_USER_ID, TEST_PRODUCT_ID).exchange()
+                .expectStatus().isBadRequest();
+        assertCount(TEST_PRODUCT_ID, 0);
+    }
+
+    @Test
+    void testUnknownUserAndProduct_FailureWith400() {
+        client().get().uri("/cart/{userId}", TEST_MISSING_ID).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.reason")
+                .isEqualTo("User corresponding to id " + TEST_MISSING_ID + " doesn't exist !!");
+        client().get().uri("/cart/{userId}/{productId}/", TEST_USER_ID, TEST_MISSING_ID).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.reason")
+                .isEqualTo("Product corresponding to id " + TEST_MISSING_ID + " doesn't exist !!");
+    }
+
+    @Test
+    void testWithoutCredentials_FailureWith401() {
+        webTestClient.get().uri("/cart/{userId}", TEST_USER_ID).exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private WebTestClient client() {
+        return webTestClient.mutate()
+                .defaultHeaders(headers -> headers.setBasicAuth(USERNAME, PASSWORD))
+                .build();
+    }
+
+    private WebTestClient.ResponseSpec update(Integer productId, int changed) {
+        return client().put().uri("/cart/{userId}/{productId}/?changed={changed}", TEST_USER_ID, productId, changed)
+                .exchange();
+    }
+
+    private void addLine(Integer productId, int quantity) {
+        client().post().uri("/cart/{userId}/{productId}/?quantity={quantity}", TEST_USER_ID, productId, quantity)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private void assertCount(Integer productId, int quantity) {
+        client().get().uri("/cart/{userId}/{productId}/", TEST_USER_ID, productId).exchange()
+                .expectStatus().isOk()
+                .expectBody(Integer.class).isEqualTo(quantity);
+    }
+
+    private void execute(String sql) {
+        databaseClient.sql(sql).then().block();
+    }
+}
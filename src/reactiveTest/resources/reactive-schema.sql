@@ -0,0 +1,28 @@
+-- tables of sql/init.sql for the reactive tests, which don't have JPA to generate them
+CREATE TABLE IF NOT EXISTS products
+(
+    productid BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name      VARCHAR(200)   NOT NULL,
+    cost      DECIMAL(19, 4) NOT NULL,
+    details   VARCHAR(1000)
+);
+
+CREATE TABLE IF NOT EXISTS users
+(
+    userid    BIGINT AUTO_INCREMENT PRIMARY KEY,
+    email     VARCHAR(50)  NOT NULL,
+    password  VARCHAR(200) NOT NULL,
+    firstname VARCHAR(50),
+    lastname  VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS carts
+(
+    userid    BIGINT NOT NULL,
+    productid BIGINT NOT NULL,
+    quantity  INT    NOT NULL,
+    lastmodified DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (userid, productid),
+    FOREIGN KEY (productid) REFERENCES products (productid),
+    FOREIGN KEY (userid) REFERENCES users (userid)
+);
@@ -0,0 +1,59 @@
+package com.maersk.shoppingcart;
+
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.service.CartStore;
+import com.maersk.shoppingcart.service.CartSummaryService;
+import com.maersk.shoppingcart.service.MemoryCartStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Products and cart lines written straight through the repositories for tests, deleteAll leaves the database and the
+ * caches of cart state as they were before
+ *
+ * @author Sumit Kumar
+ */
+@Component
+public class CartTestData {
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final CartSummaryService cartSummaryService;
+    private final CartStore cartStore;
+
+    @Autowired
+    public CartTestData(CartRepository cartRepository, ProductRepository productRepository,
+            CartSummaryService cartSummaryService, CartStore cartStore) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.cartSummaryService = cartSummaryService;
+        this.cartStore = cartStore;
+    }
+
+    public Integer createProduct(long cost) {
+        Product product = new Product();
+        product.setName("product");
+        product.setCost(cost);
+        return productRepository.save(product).getProductId();
+    }
+
+    public void createCartLine(Integer userId, Integer productId, int quantity) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.setProductId(productId);
+        cart.setQuantity(quantity);
+        cartRepository.save(cart);
+    }
+
+    public void deleteAll() {
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        cartSummaryService.invalidateAll();
+        if (cartStore instanceof MemoryCartStore) {
+            ((MemoryCartStore) cartStore).invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.maersk.shoppingcart.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sumit Kumar
+ */
+class ConsistentHashRingTest {
+
+    private static final int USERS = 100_000;
+    private static final int VIRTUAL_NODES = 160;
+
+    @Test
+    void testShardOf_UsersSpreadEvenly() {
+        // ARRANGE
+        ConsistentHashRing ring = new ConsistentHashRing(4, VIRTUAL_NODES);
+        int[] users = new int[4];
+
+        // ACT
+        for (int userId = 0; userId < USERS; userId++) {
+            users[ring.shardOf(userId)]++;
+        }
+
+        // ASSERT
+        for (int count : users) {
+            assertTrue(Math.abs(count - USERS / 4) < USERS / 4 / 5, "users per shard " + count);
+        }
+    }
+
+    @Test
+    void testShardOf_GrowingRingOnlyMovesUsersToNewShard() {
+        // ARRANGE
+        ConsistentHashRing ring = new ConsistentHashRing(3, VIRTUAL_NODES);
+        ConsistentHashRing grown = new ConsistentHashRing(4, VIRTUAL_NODES);
+        int moved = 0;
+
+        // ACT
+        for (int userId = 0; userId < USERS; userId++) {
+            int shard = ring.shardOf(userId);
+            int newShard = grown.shardOf(userId);
+            if (newShard != shard) {
+                assertEquals(3, newShard);
+                moved++;
+            }
+        }
+
+        // ASSERT
+        assertTrue(Math.abs(moved - USERS / 4) < USERS / 4 / 5, "moved users " + moved);
+    }
+}
@@ -0,0 +1,128 @@
+package com.maersk.shoppingcart.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.config.ShardDataSourceConfig;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartService;
+import com.maersk.shoppingcart.service.CartSummaryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Primary and replica are two H2 databases, lines written to the replica only show which one served a read.
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.datasource.url=jdbc:h2:mem:PRIMARY;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "cart.datasource.replica-urls=" + ReadWriteRoutingDataSourceTest.REPLICA_URL})
+class ReadWriteRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:REPLICA;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final int REPLICA_QUANTITY = 3;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate replica;
+    private Integer productId;
+
+    @BeforeEach
+    void setup() {
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "username", "password"));
+        replica.execute("create table if not exists products (productId int primary key, name varchar(255), "
+                + "details varchar(255), cost decimal(19, 4) not null)");
+        replica.execute("create table if not exists carts (userId int not null, productId int not null, "
+                + "quantity int, lastModified datetime default current_timestamp on update current_timestamp, "
+                + "primary key (userId, productId))");
+
+        Product product = new Product();
+        product.setName("product");
+        product.setCost(Money.of("25.5"));
+        productId = productRepository.save(product).getProductId();
+        replica.update("insert into products (productId, name, cost) values (?, ?, ?)", productId, "product",
+                new BigDecimal("25.5"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        replica.update("delete from carts");
+        replica.update("delete from products");
+        cartSummaryService.invalidateAll();
+    }
+
+    @Test
+    void testReadOnlyTransaction_ServedByReplica() {
+        // ARRANGE
+        replica.update("insert into carts (userId, productId, quantity) values (?, ?, ?)", 1, productId,
+                REPLICA_QUANTITY);
+        double replicaConnections = connections("replica-0");
+
+        // ACT
+        int quantity = cartService.getCountOfItem(1, productId);
+
+        // ASSERT
+        assertEquals(REPLICA_QUANTITY, quantity);
+        assertTrue(connections("replica-0") > replicaConnections);
+    }
+
+    @Test
+    void testReadYourWrites_ChangedCartReadFromPrimary() {
+        // ARRANGE
+        replica.update("insert into carts (userId, productId, quantity) values (?, ?, ?)", 2, productId,
+                REPLICA_QUANTITY);
+        replica.update("insert into carts (userId, productId, quantity) values (?, ?, ?)", 3, productId,
+                REPLICA_QUANTITY);
+        double primaryConnections = connections(ReadWriteRoutingDataSource.PRIMARY);
+
+        // ACT
+        cartService.addProductToCart(2, productId, 1);
+
+        // ASSERT
+        assertTrue(connections(ReadWriteRoutingDataSource.PRIMARY) > primaryConnections);
+        assertEquals(1, cartService.getCountOfItem(2, productId));
+        assertEquals(1, cartService.getCartDetails(2).getProductDetails().get(0).getQuantity());
+        assertEquals(REPLICA_QUANTITY, cartService.getCountOfItem(3, productId));
+    }
+
+    @Test
+    void testShards_WithReplicas_Refused() {
+        // ACT & ASSERT
+        assertThrows(IllegalStateException.class, () -> new ShardDataSourceConfig(REPLICA_URL));
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get(ReadWriteRoutingDataSource.CONNECTIONS_COUNTER).tag("pool", pool).counter().count();
+    }
+}
@@ -0,0 +1,119 @@
+package com.maersk.shoppingcart.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test"})
+class CartMetricsTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final int TEST_CART_SIZE = 3;
+    private static final long TEST_COST = Money.of("10");
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartMetrics cartMetrics;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testRecord_StatementsAndRowsCountedPerOperation() {
+        // ARRANGE
+        for (int i = 0; i < TEST_CART_SIZE; i++) {
+            cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), 1);
+        }
+
+        // ACT
+        cartMetrics.record("test_get_cart", () -> cartService.getCartDetails(TEST_USER_ID));
+
+        // ASSERT
+        assertEquals(1, timer("test_get_cart", CartMetrics.SUCCESS).count());
+        assertEquals(1.0, summary(CartMetrics.STATEMENTS_SUMMARY, "test_get_cart").totalAmount());
+        assertEquals(TEST_CART_SIZE, summary(CartMetrics.ROWS_SUMMARY, "test_get_cart").totalAmount());
+    }
+
+    @Test
+    void testRecord_JdbcStatementsOfWholeCartReadCounted() {
+        // ARRANGE
+        for (int i = 0; i < TEST_CART_SIZE; i++) {
+            cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), 1);
+        }
+
+        // ACT
+        cartMetrics.record("get_cart", () -> cartService.getCartLines(TEST_USER_ID));
+
+        // ASSERT
+        assertTrue(summary(CartMetrics.STATEMENTS_SUMMARY, "get_cart").totalAmount() >= 1.0);
+        assertEquals(TEST_CART_SIZE, summary(CartMetrics.ROWS_SUMMARY, "get_cart").totalAmount());
+    }
+
+    @Test
+    void testRecord_NestedOperationsAccountedToOutermost() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+
+        // ACT
+        cartMetrics.record("test_outer", () -> {
+            cartService.getCountOfItem(TEST_USER_ID, productId);
+            cartMetrics.record("test_inner", () -> cartService.getCountOfItem(TEST_USER_ID, productId));
+        });
+
+        // ASSERT
+        assertEquals(2.0, summary(CartMetrics.STATEMENTS_SUMMARY, "test_outer").totalAmount());
+        assertEquals(1, timer("test_inner", CartMetrics.SUCCESS).count());
+        assertNull(meterRegistry.find(CartMetrics.STATEMENTS_SUMMARY).tag("operation", "test_inner")
+                .summary());
+    }
+
+    @Test
+    void testRecord_ExceptionTaggedAsOutcome() {
+        // ACT
+        assertThrows(InvalidDataException.class, () -> cartMetrics.record("test_failing",
+                () -> cartService.deleteItemFromCart(TEST_USER_ID, -1)));
+
+        // ASSERT
+        assertEquals(1, timer("test_failing", InvalidDataException.class.getSimpleName()).count());
+        assertEquals(0.0, summary(CartMetrics.ROWS_SUMMARY, "test_failing").totalAmount());
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return meterRegistry.get(CartMetrics.OPERATION_TIMER).tag("operation", operation).tag("outcome", outcome)
+                .timer();
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        return meterRegistry.get(name).tag("operation", operation).summary();
+    }
+}
@@ -0,0 +1,80 @@
+package com.maersk.shoppingcart.money;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maersk.shoppingcart.dto.CartSummary;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sumit Kumar
+ */
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOf_ExactMinorUnits() {
+        assertEquals(255_000L, Money.of("25.5"));
+        assertEquals(1L, Money.of("0.0001"));
+        assertEquals(-12_345L, Money.of(new BigDecimal("-1.2345")));
+        assertEquals(new BigDecimal("25.5000"), Money.toBigDecimal(255_000L));
+    }
+
+    @Test
+    void testOf_RejectsMoreThanFourDecimalPlaces() {
+        assertThrows(ArithmeticException.class, () -> Money.of("0.00001"));
+    }
+
+    @Test
+    void testTimesAndPlus_ExactAndFailOnOverflow() {
+        // 0.1 + 0.2 drifts with double
+        assertEquals(Money.of("0.3"), Money.plus(Money.of("0.1"), Money.of("0.2")));
+        assertEquals(Money.of("30.3"), Money.times(Money.of("10.1"), 3));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void testToString_PlainWithoutTrailingZeros() {
+        assertEquals("25.5", Money.toString(Money.of("25.5")));
+        assertEquals("120", Money.toString(Money.of("120")));
+        assertEquals("0.0001", Money.toString(1L));
+        assertEquals("-0.05", Money.toString(Money.of("-0.05")));
+        assertEquals("-3.25", Money.toString(Money.of("-3.25")));
+        assertEquals("0", Money.toString(0L));
+    }
+
+    @Test
+    void testFormat_ReusedBufferFitsExtremes() {
+        char[] buffer = new char[Money.MAX_LENGTH];
+        for (long amount : new long[]{Long.MIN_VALUE, Long.MAX_VALUE, -10_000L, 10_010L, 7L}) {
+            int length = Money.format(amount, buffer);
+            assertEquals(Money.toBigDecimal(amount).stripTrailingZeros().toPlainString(),
+                    new String(buffer, 0, length));
+        }
+    }
+
+    @Test
+    void testJson_RoundTripInCurrencyUnits() throws Exception {
+        // ARRANGE
+        CartSummary summary = new CartSummary(2, 3, Money.of("1200.5"));
+
+        // ACT
+        String json = objectMapper.writeValueAsString(summary);
+        CartSummary read = objectMapper.readValue(json, CartSummary.class);
+
+        // ASSERT
+        assertEquals("{\"lineCount\":2,\"itemCount\":3,\"totalCost\":1200.5}", json);
+        assertEquals(summary.getTotalCost(), read.getTotalCost());
+    }
+
+    @Test
+    void testJson_RejectsMoreThanFourDecimalPlaces() {
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(
+                "{\"lineCount\":1,\"itemCount\":1,\"totalCost\":0.00001}", CartSummary.class));
+    }
+}
@@ -0,0 +1,135 @@
+package com.maersk.shoppingcart.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.dto.CartExportLine;
+import com.maersk.shoppingcart.dto.ProblemDetails;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartExportService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test"})
+public class CartExportEndpointTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final Integer TEST_SECOND_USER_ID = 2;
+    private static final long TEST_COST = Money.of("25.5");
+    private static final long TEST_SECOND_COST = Money.of("0.0001");
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Integer productId;
+    private Integer secondProductId;
+
+    @BeforeEach
+    void setup() {
+        productId = cartTestData.createProduct(TEST_COST);
+        secondProductId = cartTestData.createProduct(TEST_SECOND_COST);
+        cartTestData.createCartLine(TEST_SECOND_USER_ID, productId, 1);
+        cartTestData.createCartLine(TEST_USER_ID, secondProductId, 3);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testExportCarts_Ndjson_SuccessWith200() throws Exception {
+        // ARRANGE
+        double rows = exportedRows();
+
+        // ACT
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/admin/carts/export", HttpMethod.GET, new HttpEntity<>(null, null), String.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.parseMediaType("application/x-ndjson"), response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+        List<String> lines = Arrays.asList(response.getBody().split("\n"));
+        assertEquals(3, lines.size());
+        assertLine(TEST_USER_ID, productId, 2, TEST_COST, lines.get(0));
+        assertLine(TEST_USER_ID, secondProductId, 3, TEST_SECOND_COST, lines.get(1));
+        assertLine(TEST_SECOND_USER_ID, productId, 1, TEST_COST, lines.get(2));
+        assertEquals("{\"userId\":1,\"productId\":" + productId + ",\"quantity\":2,\"cost\":25.5}", lines.get(0));
+        assertEquals(rows + 3, exportedRows());
+    }
+
+    @Test
+    void testExportCarts_Csv_SuccessWith200() {
+        // ACT
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/admin/carts/export?format=csv", HttpMethod.GET, new HttpEntity<>(null, null),
+                        String.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.parseMediaType("text/csv;charset=UTF-8"), response.getHeaders().getContentType());
+        assertEquals("userId,productId,quantity,cost\n"
+                + "1," + productId + ",2,25.5\n"
+                + "1," + secondProductId + ",3,0.0001\n"
+                + "2," + productId + ",1,25.5\n", response.getBody());
+    }
+
+    @Test
+    void testExportCarts_UnknownFormat_FailureWith400() {
+        // ACT
+        ResponseEntity<ProblemDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/admin/carts/export?format=xml", HttpMethod.GET, new HttpEntity<>(null, null),
+                        ProblemDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+    }
+
+    private void assertLine(Integer userId, Integer productId, int quantity, long cost, String json)
+            throws Exception {
+        CartExportLine line = objectMapper.readValue(json, CartExportLine.class);
+        assertEquals(userId, line.getUserId());
+        assertEquals(productId, line.getProductId());
+        assertEquals(quantity, line.getQuantity());
+        assertEquals(cost, line.getCost());
+    }
+
+    private double exportedRows() {
+        return meterRegistry.get(CartExportService.EXPORT_ROWS_COUNTER).counter().count();
+    }
+}
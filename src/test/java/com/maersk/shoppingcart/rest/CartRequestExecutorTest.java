@@ -0,0 +1,102 @@
+package com.maersk.shoppingcart.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.exception.CartOverloadedException;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.metrics.CartMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sumit Kumar
+ */
+class CartRequestExecutorTest {
+
+    private static final String TEST_OPERATION = "get_cart";
+
+    private MeterRegistry meterRegistry;
+    private CartRequestExecutor executor;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void cleanup() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void testExecute_AsyncRunsOnPoolAndRecordsThere() throws Exception {
+        // ARRANGE
+        executor = createExecutor(2, 10);
+
+        // ACT
+        Thread thread = executor.execute(TEST_OPERATION, Thread::currentThread).get();
+        CompletableFuture<Object> failed = executor.execute(TEST_OPERATION, () -> {
+            throw new InvalidDataException("invalid");
+        });
+
+        // ASSERT
+        assertNotEquals(Thread.currentThread(), thread);
+        assertTrue(thread.getName().startsWith("cart-request-"));
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(e.getCause() instanceof InvalidDataException);
+        assertEquals(1, operationCount("success"));
+        assertEquals(1, operationCount(InvalidDataException.class.getSimpleName()));
+        assertEquals(2.0, meterRegistry.get("executor.pool.core")
+                .tag("name", CartRequestExecutor.EXECUTOR_METRICS_NAME).gauge().value());
+    }
+
+    @Test
+    void testExecute_AsyncRejectsBeyondThreadsAndQueue() throws Exception {
+        // ARRANGE
+        executor = createExecutor(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = executor.execute(TEST_OPERATION, () -> {
+            started.countDown();
+            await(release);
+        });
+        started.await();
+        CompletableFuture<Void> queued = executor.execute(TEST_OPERATION, () -> {
+        });
+
+        // ACT & ASSERT
+        try {
+            assertThrows(CartOverloadedException.class, () -> executor.execute(TEST_OPERATION, () -> {
+            }));
+        } finally {
+            release.countDown();
+        }
+        running.get();
+        queued.get();
+    }
+
+    private CartRequestExecutor createExecutor(int threads, int queueCapacity) {
+        return new CartRequestExecutor(new CartMetrics(meterRegistry), meterRegistry, threads, queueCapacity);
+    }
+
+    private long operationCount(String outcome) {
+        return meterRegistry.get(CartMetrics.OPERATION_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.maersk.shoppingcart.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.datasource.ConsistentHashRing;
+import com.maersk.shoppingcart.dto.ProblemDetails;
+import com.maersk.shoppingcart.dto.ShardMigrationResult;
+import com.maersk.shoppingcart.service.CartLocks;
+import com.maersk.shoppingcart.service.CartShardMigrationService;
+import com.maersk.shoppingcart.service.CartShards;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Rejected migrations are checked without and with shards, carts are spread over two of three H2 shards for the
+ * latter
+ *
+ * @author Sumit Kumar
+ */
+public class CartShardEndpointTest {
+
+    static final String SHARD_URLS = "jdbc:h2:mem:ENDPOINT_SHARD0;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:ENDPOINT_SHARD1;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:ENDPOINT_SHARD2;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "password";
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test"})
+    class NotSharded {
+
+        @Autowired
+        private TestRestTemplate restTemplate;
+
+        @Test
+        void testMigrate_CartsNotSharded_FailureWith400() {
+            // ACT
+            ResponseEntity<ProblemDetails> response = post(restTemplate, 2, ProblemDetails.class);
+
+            // ASSERT
+            assertRejected(response, "Carts are not sharded !!");
+        }
+    }
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test",
+            "spring.datasource.url=jdbc:h2:mem:ENDPOINT_SHARED;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "cart.shards.urls=" + SHARD_URLS,
+            "cart.shards.count=2",
+            "cart.lock.timeout=10s"})
+    class Sharded {
+
+        private static final int TEST_PRODUCT_ID = 1;
+
+        @Autowired
+        private TestRestTemplate restTemplate;
+
+        @Autowired
+        private CartShards cartShards;
+
+        @Autowired
+        private CartLocks cartLocks;
+
+        @Autowired
+        private CartShardMigrationService cartShardMigrationService;
+
+        private final List<JdbcTemplate> shards = new ArrayList<>();
+
+        @BeforeEach
+        void setup() {
+            for (String url : SHARD_URLS.split(",")) {
+                JdbcTemplate shard = new JdbcTemplate(new DriverManagerDataSource(url, "username", "password"));
+                shard.execute("create table if not exists carts (userId int not null, productId int not null, "
+                        + "quantity int, lastModified datetime default current_timestamp on update current_timestamp, "
+                        + "primary key (userId, productId))");
+                shards.add(shard);
+            }
+        }
+
+        @AfterEach
+        void cleanup() {
+            for (JdbcTemplate shard : shards) {
+                shard.update("delete from carts");
+            }
+            if (cartShards.getRing().getShardCount() != 2) {
+                cartShardMigrationService.migrate(2);
+            }
+        }
+
+        @Test
+        void testMigrate_MoreShardsThanConfigured_FailureWith400() {
+            // ACT
+            ResponseEntity<ProblemDetails> response = post(restTemplate, 4, ProblemDetails.class);
+
+            // ASSERT
+            assertRejected(response, "Number of shards should be within 1 and 3");
+        }
+
+        @Test
+        void testMigrate_NoShards_FailureWith400() {
+            // ACT
+            ResponseEntity<ProblemDetails> response = post(restTemplate, 0, ProblemDetails.class);
+
+            // ASSERT
+            assertRejected(response, "Number of shards should be within 1 and 3");
+        }
+
+        @Test
+        void testMigrate_MigrationAlreadyRunning_FailureWith400() throws Exception {
+            // ARRANGE
+            // cart of a user moving to the new shard, kept locked so the migration can't finish
+            ConsistentHashRing target = new ConsistentHashRing(3, cartShards.getRing().getVirtualNodes());
+            int userId = 1;
+            while (target.shardOf(userId) == cartShards.shardOf(userId)) {
+                userId++;
+            }
+            int lockedUserId = userId;
+            shards.get(cartShards.shardOf(lockedUserId)).update(
+                    "insert into carts (userId, productId, quantity) values (?, ?, ?)", lockedUserId,
+                    TEST_PRODUCT_ID, 1);
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            executor.execute(() -> cartLocks.withLock(lockedUserId, () -> {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            executor.shutdown();
+
+            try {
+                assertTrue(locked.await(5, TimeUnit.SECONDS));
+                // ACT
+                ResponseEntity<ShardMigrationResult> started = post(restTemplate, 3, ShardMigrationResult.class);
+                ResponseEntity<ProblemDetails> rejected = post(restTemplate, 3, ProblemDetails.class);
+
+                // ASSERT
+                assertEquals(HttpStatus.ACCEPTED, started.getStatusCode());
+                assertNotNull(started.getHeaders().getLocation());
+                assertTrue(started.getHeaders().getLocation().getPath().endsWith("/admin/shards/migration"));
+                assertNotNull(started.getBody());
+                assertEquals(3, started.getBody().getShardCount());
+                assertEquals(ShardMigrationResult.State.RUNNING, started.getBody().getState());
+                assertRejected(rejected, "A shard migration is already running !!");
+            } finally {
+                release.countDown();
+            }
+
+            ShardMigrationResult finished = awaitMigration();
+            assertEquals(ShardMigrationResult.State.COMPLETED, finished.getState());
+            assertEquals(1, finished.getMovedUsers());
+            assertEquals(1, finished.getMovedLines());
+            assertEquals(target.shardOf(lockedUserId), cartShards.shardOf(lockedUserId));
+        }
+
+        /**
+         * Polls the status resource till the migration is no longer running
+         */
+        private ShardMigrationResult awaitMigration() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (true) {
+                ResponseEntity<ShardMigrationResult> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                        .exchange("/admin/shards/migration", HttpMethod.GET, new HttpEntity<>(null, null),
+                                ShardMigrationResult.class);
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                assertNotNull(response.getBody());
+                if (response.getBody().getState() != ShardMigrationResult.State.RUNNING) {
+                    return response.getBody();
+                }
+                assertTrue(System.nanoTime() < deadline, "Migration still running");
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static <T> ResponseEntity<T> post(TestRestTemplate restTemplate, int count, Class<T> responseType) {
+        return restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/admin/shards/migrate?count=" + count, HttpMethod.POST, new HttpEntity<>(null, null),
+                        responseType);
+    }
+
+    private static void assertRejected(ResponseEntity<ProblemDetails> response, String reason) {
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+        assertEquals(reason, response.getBody().getReason());
+    }
+}
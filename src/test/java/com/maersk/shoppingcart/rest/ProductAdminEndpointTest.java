@@ -0,0 +1,114 @@
+package com.maersk.shoppingcart.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartService;
+import com.maersk.shoppingcart.service.CartVersions;
+import com.maersk.shoppingcart.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Product costs are changed in the database directly, as they are in production
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test"})
+public class ProductAdminEndpointTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final int TEST_QUANTITY = 2;
+    private static final long TEST_COST = Money.of("2.5");
+    private static final long TEST_SECOND_COST = Money.of("4.0");
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartVersions cartVersions;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer productId;
+
+    @BeforeEach
+    void setup() {
+        productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, TEST_QUANTITY);
+        // product, summary and version are cached with the old cost
+        productService.getProductById(productId);
+        cartService.getCartSummary(TEST_USER_ID);
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testEvictProduct_NewCostShowsRightAway() {
+        // ARRANGE
+        String etag = cartVersions.etag(TEST_USER_ID);
+        changeCost(TEST_SECOND_COST);
+
+        // ACT
+        ResponseEntity<Void> response = post("/admin/products/" + productId + "/evict");
+
+        // ASSERT
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(TEST_SECOND_COST, productService.getProductById(productId).getCost());
+        assertEquals(TEST_QUANTITY * TEST_SECOND_COST, cartService.getCartSummary(TEST_USER_ID).getTotalCost());
+        assertFalse(CartVersions.noneMatchHits(etag, cartVersions.etag(TEST_USER_ID)));
+    }
+
+    @Test
+    void testEvictAllProducts_NewCostShowsRightAway() {
+        // ARRANGE
+        changeCost(TEST_SECOND_COST);
+
+        // ACT
+        ResponseEntity<Void> response = post("/admin/products/evict");
+
+        // ASSERT
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(TEST_SECOND_COST, productService.getProductById(productId).getCost());
+        assertEquals(TEST_QUANTITY * TEST_SECOND_COST, cartService.getCartSummary(TEST_USER_ID).getTotalCost());
+    }
+
+    private void changeCost(long cost) {
+        jdbcTemplate.update("update products set cost = ? where productId = ?", Money.toBigDecimal(cost), productId);
+    }
+
+    private ResponseEntity<Void> post(String path) {
+        return restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange(path, HttpMethod.POST, new HttpEntity<>(null, null), Void.class);
+    }
+}
@@ -0,0 +1,150 @@
+package com.maersk.shoppingcart.rest;
+
+import com.maersk.shoppingcart.service.CartSummaryService;
+import com.maersk.shoppingcart.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Cart requests are served synchronously in blocking mode and through an async dispatch in async mode
+ *
+ * @author Sumit Kumar
+ */
+public class ShoppingCartEndpointModeTest {
+
+    private static final Integer TEST_USER_ID = 1;
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @SpringBootTest(properties = {"spring.profiles.active:test", "cart.execution.mode=blocking"})
+    class Blocking {
+
+        @Autowired
+        private WebApplicationContext context;
+
+        @Autowired
+        private UserService userService;
+
+        @Autowired
+        private CartSummaryService cartSummaryService;
+
+        private MockMvc mvc;
+
+        @BeforeEach
+        void setup() {
+            mvc = MockMvcBuilders
+                    .webAppContextSetup(context)
+                    .apply(SecurityMockMvcConfigurers.springSecurity())
+                    .build();
+            userService.registerUser(TEST_USER_ID);
+        }
+
+        @AfterEach
+        void cleanup() {
+            userService.reloadUserIndex();
+            cartSummaryService.invalidateAll();
+        }
+
+        @Test
+        void testGetCartSummary_WrittenWithoutAsyncDispatch() throws Exception {
+            // ACT & ASSERT
+            MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/cart/{userId}", TEST_USER_ID)
+                    .param("summary", "true")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.lineCount").value(0))
+                    .andReturn();
+
+            mvc.perform(MockMvcRequestBuilders.get("/cart/{userId}", TEST_USER_ID)
+                    .param("summary", "true")
+                    .header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG))
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                    .andExpect(MockMvcResultMatchers.status().isNotModified());
+        }
+
+        @Test
+        void testGetCartDetails_WrittenWithoutAsyncDispatch() throws Exception {
+            // ACT & ASSERT
+            mvc.perform(MockMvcRequestBuilders.get("/cart/{userId}", TEST_USER_ID)
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.productDetails").isEmpty());
+        }
+
+        @Test
+        void testGetCartDetails_ErrorWrittenWithoutAsyncDispatch() throws Exception {
+            // ACT & ASSERT
+            mvc.perform(MockMvcRequestBuilders.get("/cart/{userId}", TEST_USER_ID)
+                    .param("limit", "0")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @SpringBootTest(properties = {"spring.profiles.active:test", "cart.execution.mode=async"})
+    class Async {
+
+        @Autowired
+        private WebApplicationContext context;
+
+        @Autowired
+        private UserService userService;
+
+        @Autowired
+        private CartSummaryService cartSummaryService;
+
+        private MockMvc mvc;
+
+        @BeforeEach
+        void setup() {
+            mvc = MockMvcBuilders
+                    .webAppContextSetup(context)
+                    .apply(SecurityMockMvcConfigurers.springSecurity())
+                    .build();
+            userService.registerUser(TEST_USER_ID);
+        }
+
+        @AfterEach
+        void cleanup() {
+            userService.reloadUserIndex();
+            cartSummaryService.invalidateAll();
+        }
+
+        @Test
+        void testGetCartSummary_WrittenAfterAsyncDispatch() throws Exception {
+            // ACT
+            MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/cart/{userId}", TEST_USER_ID)
+                    .param("summary", "true")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                    .andReturn();
+
+            // ASSERT
+            mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.lineCount").value(0));
+        }
+    }
+}
@@ -1,26 +1,47 @@
 package com.maersk.shoppingcart.rest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.dto.CartSummary;
 import com.maersk.shoppingcart.dto.ProblemDetails;
 import com.maersk.shoppingcart.dto.ProductDetails;
 import com.maersk.shoppingcart.entity.Cart;
 import com.maersk.shoppingcart.entity.Product;
-import com.maersk.shoppingcart.entity.User;
 import com.maersk.shoppingcart.exception.handler.ShoppingCartExceptionHandler;
 import com.maersk.shoppingcart.jpa.CartRepository;
 import com.maersk.shoppingcart.jpa.ProductRepository;
 import com.maersk.shoppingcart.jpa.UserRepository;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.CartLocks;
+import com.maersk.shoppingcart.service.CartSummaryService;
+import com.maersk.shoppingcart.service.ProductService;
+import com.maersk.shoppingcart.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,7 +49,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -39,7 +62,8 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
  * @author Sumit Kumar
  */
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test"})
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active:test",
+        "cart.lock.timeout=100ms"})
 public class ShoppingCartEndpointTest {
 
     private static final Integer TEST_USER_ID = 1;
@@ -50,7 +74,7 @@ public class ShoppingCartEndpointTest {
     private static final Integer TEST_SECOND_PRODUCT_ID = 20;
     private static final Integer TEST_SECOND_QUANTITY = 15;
 
-    private static final double TEST_COST = 25.5;
+    private static final long TEST_COST = Money.of("25.5");
     private static final String USERNAME = "admin";
     private static final String PASSWORD = "password";
 
@@ -66,6 +90,29 @@ public class ShoppingCartEndpointTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    @BeforeEach
+    void setup() {
+        // products and user ids are cached across requests, start every test with empty caches
+        productService.evictAllProducts();
+        userService.reloadUserIndex();
+        cartSummaryService.invalidateAll();
+    }
+
     /**
      * Auth Test Cases
      */
@@ -83,10 +130,10 @@ public class ShoppingCartEndpointTest {
         assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
 
         // verify mock interactions
-        verify(userRepository, never()).findById(TEST_USER_ID);
+        verify(userRepository, never()).existsById(TEST_USER_ID);
         verify(productRepository, never()).findById(TEST_PRODUCT_ID);
         verify(productRepository, never()).findById(TEST_SECOND_PRODUCT_ID);
-        verify(cartRepository, never()).findAllByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
     }
 
     @Test
@@ -102,10 +149,10 @@ public class ShoppingCartEndpointTest {
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
 
         // verify mock interactions
-        verify(userRepository, never()).findById(TEST_USER_ID);
+        verify(userRepository, never()).existsById(TEST_USER_ID);
         verify(productRepository, never()).findById(TEST_PRODUCT_ID);
         verify(productRepository, never()).findById(TEST_SECOND_PRODUCT_ID);
-        verify(cartRepository, never()).findAllByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
     }
 
     /**
@@ -116,10 +163,8 @@ public class ShoppingCartEndpointTest {
     void testGetCartDetailsForUser_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
-        when(cartRepository.findAllByUserId(TEST_USER_ID)).thenReturn(createCartList());
-        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(productRepository.findById(TEST_SECOND_PRODUCT_ID)).thenReturn(createProductById(TEST_SECOND_PRODUCT_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(cartRepository.findCartLinesByUserId(TEST_USER_ID)).thenReturn(createCartLines());
 
         // ACT
         ResponseEntity<CartDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
@@ -142,17 +187,127 @@ public class ShoppingCartEndpointTest {
         assertEquals(TEST_SECOND_QUANTITY, secondProductDetails.getQuantity());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
-        verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(productRepository, times(1)).findById(TEST_SECOND_PRODUCT_ID);
-        verify(cartRepository, times(1)).findAllByUserId(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
+        verify(productRepository, never()).findById(TEST_PRODUCT_ID);
+        verify(productRepository, never()).findById(TEST_SECOND_PRODUCT_ID);
+        verify(cartRepository, times(1)).findCartLinesByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    void testGetCartSummaryForUser_SuccessWith200() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(cartRepository.summarizeByUserId(TEST_USER_ID)).thenReturn(new CartSummary(2L,
+                (long) (TEST_QUANTITY + TEST_SECOND_QUANTITY), TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY)));
+
+        // ACT
+        ResponseEntity<CartSummary> first = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?summary=true", HttpMethod.GET, request, CartSummary.class);
+        ResponseEntity<CartSummary> second = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?summary=true", HttpMethod.GET, request, CartSummary.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        CartSummary cartSummary = second.getBody();
+        assertNotNull(cartSummary);
+        assertEquals(2, cartSummary.getLineCount());
+        assertEquals(TEST_QUANTITY + TEST_SECOND_QUANTITY, cartSummary.getItemCount());
+        assertEquals(TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY), cartSummary.getTotalCost());
+
+        // verify mock interactions
+        verify(cartRepository, times(1)).summarizeByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    void testGetCartTotalForUser_LinesNeverLoaded_SuccessWith200() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(cartRepository.summarizeByUserId(TEST_USER_ID)).thenReturn(new CartSummary(2L,
+                (long) (TEST_QUANTITY + TEST_SECOND_QUANTITY), TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY)));
+
+        // ACT
+        ResponseEntity<String> first = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/total", HttpMethod.GET, request, String.class);
+        ResponseEntity<String> second = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/total", HttpMethod.GET, request, String.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(first.getHeaders().getETag());
+        assertEquals("{\"lineCount\":2,\"itemCount\":" + (TEST_QUANTITY + TEST_SECOND_QUANTITY)
+                + ",\"totalCost\":" + Money.toString(TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY)) + "}",
+                second.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, times(1)).summarizeByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
+        verify(productRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void testGetCartDetailsForUser_IfNoneMatchCurrentVersion_NotModifiedWith304() throws Exception {
+        // ARRANGE
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(cartRepository.findCartLinesByUserId(TEST_USER_ID)).thenReturn(createCartLines());
+        String etag = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1", HttpMethod.GET, new HttpEntity<>(null, null), CartDetails.class)
+                .getHeaders().getETag();
+        assertNotNull(etag);
+
+        // ACT
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<CartDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1", HttpMethod.GET, new HttpEntity<>(null, headers), CartDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, times(1)).findCartLinesByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    void testGetCartDetailsForUser_CartChangedSinceVersion_SuccessWith200() throws Exception {
+        // ARRANGE
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
+        when(cartRepository.findCartLinesByUserId(TEST_USER_ID)).thenReturn(createCartLines());
+        when(cartRepository.updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(-1), anyInt())).thenReturn(1);
+        String etag = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1", HttpMethod.GET, new HttpEntity<>(null, null), CartDetails.class)
+                .getHeaders().getETag();
+        String changedEtag = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?changed=-1", HttpMethod.PUT, new HttpEntity<>(null, null), Void.class)
+                .getHeaders().getETag();
+
+        // ACT
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<CartDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1", HttpMethod.GET, new HttpEntity<>(null, headers), CartDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, changedEtag);
+        assertEquals(changedEtag, response.getHeaders().getETag());
+        assertNotNull(response.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, times(2)).findCartLinesByUserId(TEST_USER_ID);
     }
 
     @Test
     void testGetCartDetailsForUser_FailWith500() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenThrow(new RuntimeException("Testing !!"));
+        when(userRepository.existsById(TEST_USER_ID)).thenThrow(new RuntimeException("Testing !!"));
 
         // ACT
         ResponseEntity<ProblemDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
@@ -166,10 +321,10 @@ public class ShoppingCartEndpointTest {
         assertEquals(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, never()).findById(TEST_PRODUCT_ID);
         verify(productRepository, never()).findById(TEST_SECOND_PRODUCT_ID);
-        verify(cartRepository, never()).findAllByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
     }
 
     @Test
@@ -190,10 +345,63 @@ public class ShoppingCartEndpointTest {
         assertEquals("User corresponding to id 1 doesn't exist !!", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, never()).findById(TEST_PRODUCT_ID);
         verify(productRepository, never()).findById(TEST_SECOND_PRODUCT_ID);
-        verify(cartRepository, never()).findAllByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    void testGetCartDetailsForUser_PageWithoutCost_SuccessWith200() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        // one line more than the limit, so a next page follows
+        when(cartRepository.findQuantitiesPageByUserId(eq(TEST_USER_ID), eq(5), any())).thenReturn(new ArrayList<>(
+                Arrays.asList(new ProductDetails(TEST_PRODUCT_ID, TEST_QUANTITY),
+                        new ProductDetails(TEST_SECOND_PRODUCT_ID, TEST_SECOND_QUANTITY))));
+        when(cartRepository.summarizeByUserId(TEST_USER_ID)).thenReturn(new CartSummary(2L,
+                (long) (TEST_QUANTITY + TEST_SECOND_QUANTITY), TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY)));
+
+        // ACT
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?after=5&limit=1&fields=productId,quantity", HttpMethod.GET, request,
+                        String.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"productDetails\":[{\"productId\":" + TEST_PRODUCT_ID + ",\"quantity\":" + TEST_QUANTITY
+                + "}],\"totalCost\":" + Money.toString(TEST_COST * (TEST_QUANTITY + TEST_SECOND_QUANTITY))
+                + ",\"nextAfter\":" + TEST_PRODUCT_ID + "}", response.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
+        verify(cartRepository, never()).findProductDetailsPageByUserId(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testGetCartDetailsForUser_InvalidLimitOrField_FailureWith400() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+
+        // ACT
+        ResponseEntity<ProblemDetails> invalidLimit = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?limit=0", HttpMethod.GET, request, ProblemDetails.class);
+        ResponseEntity<ProblemDetails> unknownField = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?fields=productId,price", HttpMethod.GET, request, ProblemDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.BAD_REQUEST, invalidLimit.getStatusCode());
+        assertNotNull(invalidLimit.getBody());
+        assertEquals("Limit should be greater than zero and at most 100 !!", invalidLimit.getBody().getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, unknownField.getStatusCode());
+        assertNotNull(unknownField.getBody());
+        assertEquals("Unknown field price, fields should be out of productId, quantity and cost !!",
+                unknownField.getBody().getReason());
+
+        // verify mock interactions
+        verify(cartRepository, never()).findCartLinesByUserId(TEST_USER_ID);
     }
 
     /**
@@ -204,7 +412,7 @@ public class ShoppingCartEndpointTest {
     void testGetCountOfItemInCart_ItemExistsInCart_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
         when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
                 .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
@@ -221,7 +429,7 @@ public class ShoppingCartEndpointTest {
         assertEquals(String.valueOf(TEST_QUANTITY), count);
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -230,7 +438,7 @@ public class ShoppingCartEndpointTest {
     void testGetCountOfItemInCart_ItemDoesNotExistInCart_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
 
         // ACT
@@ -245,7 +453,7 @@ public class ShoppingCartEndpointTest {
         assertEquals("0", count);
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -254,7 +462,7 @@ public class ShoppingCartEndpointTest {
     void testGetCountOfItemInCart_ItemDoesNotExistInCart_FailureWith400() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
 
         // ACT
         // product with productId 10 not present in DB, will lead to BAD REQUEST EXCEPTION
@@ -269,7 +477,7 @@ public class ShoppingCartEndpointTest {
         assertEquals("Product corresponding to id 10 doesn't exist !!", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -278,7 +486,7 @@ public class ShoppingCartEndpointTest {
     void testGetCountOfItemInCart_FailureWith500() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenThrow(new RuntimeException("Testing !!"));
 
         // ACT
@@ -293,7 +501,7 @@ public class ShoppingCartEndpointTest {
         assertEquals(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -306,7 +514,7 @@ public class ShoppingCartEndpointTest {
     void testDeleteItemFromCart_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
         when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
                 .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
@@ -321,7 +529,7 @@ public class ShoppingCartEndpointTest {
         assertNull(response.getBody());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -330,7 +538,7 @@ public class ShoppingCartEndpointTest {
     void testDeleteItemFromCart_FailureWith400() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
 
         // ACT
         // Product not present in DB, will lead to BAD REQUEST EXCEPTION
@@ -345,7 +553,7 @@ public class ShoppingCartEndpointTest {
         assertEquals("Product corresponding to id 10 doesn't exist !!", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
 
@@ -355,7 +563,7 @@ public class ShoppingCartEndpointTest {
     void testDeleteItemFromCart_FailureWith500() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenThrow(new RuntimeException("Testing !!"));
 
         // ACT
@@ -371,7 +579,7 @@ public class ShoppingCartEndpointTest {
         assertEquals(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
         verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
@@ -384,10 +592,10 @@ public class ShoppingCartEndpointTest {
     void testAddItemToCart_FailureWith400() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
-                .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
+        when(cartRepository.insert(TEST_USER_ID, TEST_PRODUCT_ID, 2))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
 
         // ACT
         // Duplicate data being added will throw BAD REQUEST EXCEPTION
@@ -402,16 +610,17 @@ public class ShoppingCartEndpointTest {
         assertEquals("This item is already present in users cart !!", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).insert(TEST_USER_ID, TEST_PRODUCT_ID, 2);
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
     @Test
     void testAddItemToCart_FailureWith500() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenThrow(new RuntimeException("Testing !!"));
 
         // ACT
@@ -426,16 +635,16 @@ public class ShoppingCartEndpointTest {
         assertEquals(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, never()).insert(TEST_USER_ID, TEST_PRODUCT_ID, 2);
     }
 
     @Test
     void testAddItemToCart_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
 
         // ACT
@@ -448,23 +657,119 @@ public class ShoppingCartEndpointTest {
         assertNull(response.getBody());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).insert(TEST_USER_ID, TEST_PRODUCT_ID, 2);
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+    }
+
+    /**
+     * ApplyOperationsToCart test cases
+     */
+
+    @Test
+    void testApplyOperationsToCart_SuccessWith200() throws Exception {
+        // ARRANGE
+        List<CartOperation> operations = Arrays.asList(
+                new CartOperation(CartOperation.Type.ADD, TEST_PRODUCT_ID, 2, null),
+                new CartOperation(CartOperation.Type.DELETE, TEST_SECOND_PRODUCT_ID, null, null));
+        HttpEntity<List<CartOperation>> request = new HttpEntity<>(operations, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findExistingProductIds(any()))
+                .thenReturn(new HashSet<>(Arrays.asList(TEST_PRODUCT_ID, TEST_SECOND_PRODUCT_ID)));
+
+        // ACT
+        ResponseEntity<CartOperationResult[]> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/batch", HttpMethod.POST, request, CartOperationResult[].class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CartOperationResult[] results = response.getBody();
+        assertNotNull(results);
+        assertEquals(2, results.length);
+        assertTrue(results[0].isSuccess());
+        assertEquals(TEST_PRODUCT_ID, results[0].getProductId());
+        assertFalse(results[1].isSuccess());
+        assertEquals("Item with id: 20 is not present in user's cart !", results[1].getReason());
+
+        // verify mock interactions
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
+        verify(productRepository, times(1)).findExistingProductIds(any());
+        verify(productRepository, never()).findById(any());
+        verify(cartRepository, times(1)).findAllByUserIdForUpdate(TEST_USER_ID);
+    }
+
+    @Test
+    void testApplyOperationsToCart_NoOperations_FailureWith400() throws Exception {
+        // ARRANGE
+        HttpEntity<List<CartOperation>> request = new HttpEntity<>(new ArrayList<>(), null);
+
+        // ACT
+        ResponseEntity<ProblemDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/batch", HttpMethod.POST, request, ProblemDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Number of operations should be between 1 and 100 !!", response.getBody().getReason());
+
+        // verify mock interactions
+        verify(cartRepository, never()).findAllByUserIdForUpdate(TEST_USER_ID);
     }
 
     /**
      * UpdateItemInCart test cases
      */
 
+    @Test
+    void testAddItemToCart_MergeQuantity_SuccessWith200() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
+
+        // ACT
+        ResponseEntity<Void> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?quantity=2&merge=true", HttpMethod.POST, request, Void.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        // verify mock interactions
+        verify(cartRepository, times(1)).insertOrMergeQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(2), anyInt());
+        verify(cartRepository, never()).insert(TEST_USER_ID, TEST_PRODUCT_ID, 2);
+    }
+
+    @Test
+    void testAddItemToCart_InvalidQuantity_FailureWith400() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        double exceptions = meterRegistry.counter(ShoppingCartExceptionHandler.EXCEPTIONS_COUNTER,
+                "exception", "InvalidDataException").count();
+
+        // ACT
+        ResponseEntity<ProblemDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?quantity=-2&merge=true", HttpMethod.POST, request, ProblemDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Quantity should be greater than zero and less than 10 !!", response.getBody().getReason());
+        assertEquals(exceptions + 1, meterRegistry.counter(ShoppingCartExceptionHandler.EXCEPTIONS_COUNTER,
+                "exception", "InvalidDataException").count());
+
+        // verify mock interactions
+        verify(userRepository, never()).existsById(TEST_USER_ID);
+        verify(cartRepository, never()).insertOrMergeQuantity(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
     @Test
     void testUpdateItemInCart_addItemsWithinAllowedRange_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
-                .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
+        when(cartRepository.updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(2), anyInt())).thenReturn(1);
 
         // ACT
         ResponseEntity<Void> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
@@ -476,19 +781,20 @@ public class ShoppingCartEndpointTest {
         assertNull(response.getBody());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(2), anyInt());
+        verify(cartRepository, never()).deleteIfQuantityDropsToZero(anyInt(), anyInt(), anyInt());
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
     @Test
     void testUpdateItemInCart_removeItemsWithinAllowedRange_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
-                .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
+        when(cartRepository.updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(-3), anyInt())).thenReturn(1);
 
         // ACT
         ResponseEntity<Void> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
@@ -500,19 +806,20 @@ public class ShoppingCartEndpointTest {
         assertNull(response.getBody());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).deleteIfQuantityDropsToZero(TEST_USER_ID, TEST_PRODUCT_ID, -3);
+        verify(cartRepository, times(1)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(-3), anyInt());
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
     @Test
     void testUpdateItemInCart_removeItemsLeadsToDeletion_SuccessWith200() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
-                .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
+        when(cartRepository.deleteIfQuantityDropsToZero(TEST_USER_ID, TEST_PRODUCT_ID, -5)).thenReturn(1);
 
         // ACT
         ResponseEntity<Void> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
@@ -524,17 +831,18 @@ public class ShoppingCartEndpointTest {
         assertNull(response.getBody());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
-        verify(cartRepository, times(2)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
-        verify(cartRepository, times(1)).deleteByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).deleteIfQuantityDropsToZero(TEST_USER_ID, TEST_PRODUCT_ID, -5);
+        verify(cartRepository, never()).updateQuantity(anyInt(), anyInt(), anyInt(), anyInt());
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
     @Test
     void testUpdateItemInCart_addItemsOutsideAllowedRange_FailureWith400() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
         when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
                 .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
@@ -551,8 +859,9 @@ public class ShoppingCartEndpointTest {
         assertEquals("Updated item quantity should be within 0 and 10", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(6), anyInt());
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
@@ -560,7 +869,7 @@ public class ShoppingCartEndpointTest {
     void testUpdateItemInCart_removeItemsUpdatedQuantityLessThanZero_FailureWith400() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
         when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
                 .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
@@ -577,8 +886,10 @@ public class ShoppingCartEndpointTest {
         assertEquals("Updated item quantity should be within 0 and 10", problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).deleteIfQuantityDropsToZero(TEST_USER_ID, TEST_PRODUCT_ID, -6);
+        verify(cartRepository, times(1)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(-6), anyInt());
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
@@ -586,9 +897,9 @@ public class ShoppingCartEndpointTest {
     void testUpdateItemInCart_FailureWith500() throws Exception {
         // ARRANGE
         HttpEntity<Void> request = new HttpEntity<>(null, null);
-        when(userRepository.findById(TEST_USER_ID)).thenReturn(createUserById(TEST_USER_ID));
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
         when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
-        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
+        when(cartRepository.updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(2), anyInt()))
                 .thenThrow(new RuntimeException("Testing !!"));
 
         // ACT
@@ -603,8 +914,102 @@ public class ShoppingCartEndpointTest {
         assertEquals(ShoppingCartExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, problemDetails.getReason());
 
         // verify mock interactions
-        verify(userRepository, times(1)).findById(TEST_USER_ID);
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
         verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
+        verify(cartRepository, times(1)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(2), anyInt());
+        verify(cartRepository, never()).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
+    }
+
+    @Test
+    void testUpdateItemInCart_CartLockedByAnotherRequest_FailureWith409() throws Exception {
+        // ARRANGE
+        HttpEntity<Void> request = new HttpEntity<>(null, null);
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // ACT
+        ResponseEntity<ProblemDetails> response;
+        try {
+            executor.submit(() -> cartLocks.withLock(TEST_USER_ID, () -> {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            locked.await();
+            response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                    .exchange("/cart/1/10/?changed=2", HttpMethod.PUT, request, ProblemDetails.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        // ASSERT
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, never()).updateQuantity(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testUpdateItemInCart_IfMatchStaleVersion_FailureWith412() throws Exception {
+        // ARRANGE
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
+        when(cartRepository.updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(1), anyInt())).thenReturn(1);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?changed=1", HttpMethod.PUT, new HttpEntity<>(null, null), Void.class)
+                .getHeaders().getETag());
+        ResponseEntity<Void> conditional = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?changed=1", HttpMethod.PUT, new HttpEntity<>(null, headers), Void.class);
+
+        // ACT
+        ResponseEntity<ProblemDetails> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/?changed=1", HttpMethod.PUT, new HttpEntity<>(null, headers),
+                        ProblemDetails.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, conditional.getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+
+        // verify mock interactions
+        verify(cartRepository, times(2)).updateQuantity(eq(TEST_USER_ID), eq(TEST_PRODUCT_ID), eq(1), anyInt());
+    }
+
+    @Test
+    void testDeleteItemFromCart_IfMatchCurrentVersion_SuccessWith200() throws Exception {
+        // ARRANGE
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID));
+        when(cartRepository.summarizeByUserId(TEST_USER_ID)).thenReturn(CartSummary.EMPTY);
+        when(cartRepository.findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID))
+                .thenReturn(createCartByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID));
+        String etag = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1?summary=true", HttpMethod.GET, new HttpEntity<>(null, null), CartSummary.class)
+                .getHeaders().getETag();
+
+        // ACT
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(etag);
+        ResponseEntity<Void> response = restTemplate.withBasicAuth(USERNAME, PASSWORD)
+                .exchange("/cart/1/10/", HttpMethod.DELETE, new HttpEntity<>(null, headers), Void.class);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+        assertNotEquals(etag, response.getHeaders().getETag());
+
+        // verify mock interactions
         verify(cartRepository, times(1)).findByUserIdAndProductId(TEST_USER_ID, TEST_PRODUCT_ID);
     }
 
@@ -620,21 +1025,11 @@ public class ShoppingCartEndpointTest {
     }
 
 
-    private List<Cart> createCartList() {
-        List<Cart> carts = new ArrayList<>();
-        Cart cart = new Cart();
-        cart.setUserId(TEST_USER_ID);
-        cart.setProductId(TEST_PRODUCT_ID);
-        cart.setQuantity(TEST_QUANTITY);
-        carts.add(cart);
-
-        Cart cart1 = new Cart();
-        cart1.setUserId(TEST_USER_ID);
-        cart1.setProductId(TEST_SECOND_PRODUCT_ID);
-        cart1.setQuantity(TEST_SECOND_QUANTITY);
-        carts.add(cart1);
-
-        return carts;
+    private CartLines createCartLines() {
+        CartLines cartLines = new CartLines(2);
+        cartLines.add(TEST_PRODUCT_ID, TEST_QUANTITY, TEST_COST);
+        cartLines.add(TEST_SECOND_PRODUCT_ID, TEST_SECOND_QUANTITY, TEST_COST);
+        return cartLines;
     }
 
     private Optional<Product> createProductById(Integer productId) {
@@ -645,10 +1040,4 @@ public class ShoppingCartEndpointTest {
         return Optional.of(product);
     }
 
-    private Optional<User> createUserById(Integer userId) {
-        User user = new User();
-        user.setUserId(userId);
-        return Optional.of(user);
-    }
-
 }
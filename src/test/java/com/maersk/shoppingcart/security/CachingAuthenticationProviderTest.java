@@ -0,0 +1,93 @@
+package com.maersk.shoppingcart.security;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+/**
+ * @author Sumit Kumar
+ */
+class CachingAuthenticationProviderTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "password";
+    private static final String WRONG_PASSWORD = "wrong";
+
+    private AuthenticationProvider delegate;
+    private CachingAuthenticationProvider provider;
+    private Authentication authenticated;
+
+    @BeforeEach
+    void setup() {
+        delegate = mock(AuthenticationProvider.class);
+        provider = new CachingAuthenticationProvider(delegate, 10, Duration.ofMinutes(1));
+        authenticated = new UsernamePasswordAuthenticationToken(USERNAME, null, Collections.emptyList());
+        when(delegate.authenticate(any())).thenAnswer(invocation -> {
+            Authentication authentication = invocation.getArgument(0);
+            if (PASSWORD.equals(authentication.getCredentials())) {
+                return authenticated;
+            }
+            throw new BadCredentialsException("Bad credentials");
+        });
+    }
+
+    @Test
+    void testAuthenticate_SameCredentialsServedFromCache() {
+        // ACT
+        Authentication first = provider.authenticate(token(PASSWORD));
+        Authentication second = provider.authenticate(token(PASSWORD));
+
+        // ASSERT
+        assertSame(authenticated, first);
+        assertSame(authenticated, second);
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    void testAuthenticate_FailuresNotCached() {
+        // ACT & ASSERT
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token(WRONG_PASSWORD)));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token(WRONG_PASSWORD)));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void testAuthenticate_WrongPasswordNotServedFromCache() {
+        // ARRANGE
+        provider.authenticate(token(PASSWORD));
+
+        // ACT & ASSERT
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token(WRONG_PASSWORD)));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void testAuthenticate_InvalidateAllForcesVerification() {
+        // ARRANGE
+        provider.authenticate(token(PASSWORD));
+
+        // ACT
+        provider.invalidateAll();
+        provider.authenticate(token(PASSWORD));
+
+        // ASSERT
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private static Authentication token(String password) {
+        return new UsernamePasswordAuthenticationToken(USERNAME, password);
+    }
+}
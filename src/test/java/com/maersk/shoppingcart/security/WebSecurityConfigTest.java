@@ -8,6 +8,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -25,6 +26,8 @@ public class WebSecurityConfigTest {
 
     @Autowired
     private WebApplicationContext context;
+    @Autowired
+    private CachingAuthenticationProvider authenticationProvider;
     private MockMvc mvc;
 
     @BeforeEach
@@ -33,6 +36,7 @@ public class WebSecurityConfigTest {
                 .webAppContextSetup(context)
                 .apply(SecurityMockMvcConfigurers.springSecurity())
                 .build();
+        authenticationProvider.invalidateAll();
     }
 
     @WithMockUser("test")
@@ -58,4 +62,30 @@ public class WebSecurityConfigTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
+
+    @Test
+    void testAuthBasic_shouldSucceedWith200() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(MockMvcRequestBuilders.get("/")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+    }
+
+    @Test
+    void testAuthBasicWrongPasswordAfterSuccess_shouldFailWith401() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/")
+                .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "password")))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mvc.perform(MockMvcRequestBuilders.get("/")
+                .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "wrong")))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @WithMockUser("test")
+    @Test
+    void testAuthAdminUrlWithoutAdminRole_shouldFailWith403() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/admin/carts/export"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
 }
@@ -0,0 +1,191 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Purges are run by the tests, carts are made idle by moving the last modified time of their lines back
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "cart.expiry.ttl=1h",
+        "cart.expiry.batch-size=3",
+        "cart.expiry.max-carts-per-second=1000",
+        "cart.expiry.archive=true"})
+class CartExpiryServiceTest {
+
+    private static final int USERS = 10;
+    private static final int TEST_QUANTITY = 2;
+    private static final long TEST_COST = Money.of("12.5");
+
+    @Autowired
+    private CartExpiryService cartExpiryService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cart.item.max.allowed}")
+    private int maxAllowed;
+
+    private Integer productId;
+    private Integer otherProductId;
+
+    @BeforeEach
+    void setup() {
+        productId = productRepository.save(product("product")).getProductId();
+        otherProductId = productRepository.save(product("other product")).getProductId();
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        jdbcTemplate.update("delete from carts_archive");
+        cartSummaryService.invalidateAll();
+    }
+
+    @Test
+    void testPurgeIdleCarts_OnlyCartsIdleLongerThanTtl() {
+        // ARRANGE
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+            cartService.addProductToCart(userId, otherProductId, TEST_QUANTITY);
+            if (userId % 2 == 1) {
+                makeIdle(userId, productId);
+                makeIdle(userId, otherProductId);
+            } else if (userId % 4 == 0) {
+                // one line changed recently keeps the cart
+                makeIdle(userId, productId);
+            }
+        }
+        double purgedLines = meterRegistry.get(CartExpiryService.PURGED_LINES_COUNTER).counter().count();
+
+        // ACT
+        long purged = cartExpiryService.purgeIdleCarts();
+
+        // ASSERT
+        assertEquals(USERS / 2, purged);
+        for (int userId = 1; userId <= USERS; userId++) {
+            int lines = userId % 2 == 1 ? 0 : 2;
+            assertEquals(lines, jdbcTemplate.queryForObject("select count(*) from carts where userId = ?",
+                    Integer.class, userId));
+            assertEquals(2 - lines, jdbcTemplate.queryForObject("select count(*) from carts_archive where userId = ?",
+                    Integer.class, userId));
+        }
+        assertEquals(purgedLines + USERS, meterRegistry.get(CartExpiryService.PURGED_LINES_COUNTER).counter().count());
+    }
+
+    @Test
+    void testPurgeIdleCarts_CachedSummaryDropped() {
+        // ARRANGE
+        cartService.addProductToCart(1, productId, TEST_QUANTITY);
+        assertEquals(TEST_QUANTITY * TEST_COST, cartService.getCartSummary(1).getTotalCost());
+        makeIdle(1, productId);
+
+        // ACT
+        cartExpiryService.purgeIdleCarts();
+
+        // ASSERT
+        assertEquals(0L, cartService.getCartSummary(1).getTotalCost());
+        assertEquals(0, cartService.getCartSummary(1).getLineCount());
+    }
+
+    @Test
+    void testPurgeIdleCarts_ChangedCartNotIdleAnyMore() {
+        // ARRANGE
+        cartService.addProductToCart(1, productId, TEST_QUANTITY);
+        makeIdle(1, productId);
+
+        // ACT
+        cartService.updateCart(1, productId, 1);
+        long purged = cartExpiryService.purgeIdleCarts();
+
+        // ASSERT
+        assertEquals(0, purged);
+        assertEquals(TEST_QUANTITY + 1, cartService.getCountOfItem(1, productId));
+    }
+
+    @Test
+    void testPurgeIdleCarts_MergeCappedAtMaxAllowedKeepsCart() {
+        // ARRANGE
+        cartService.addProductToCart(1, productId, maxAllowed);
+        makeIdle(1, productId);
+
+        // ACT
+        // leaves the quantity as it is, the line is still touched
+        cartService.mergeProductIntoCart(1, productId, 1);
+        long purged = cartExpiryService.purgeIdleCarts();
+
+        // ASSERT
+        assertEquals(0, purged);
+        assertEquals(maxAllowed, cartService.getCountOfItem(1, productId));
+    }
+
+    @Test
+    void testPurgeIdleCarts_LagReset() {
+        // ACT
+        cartExpiryService.purgeIdleCarts();
+
+        // ASSERT
+        assertTrue(meterRegistry.get(CartExpiryService.LAG_GAUGE).timeGauge().value(TimeUnit.SECONDS) < 60);
+    }
+
+    @Test
+    void testConstructor_RateMustBePositive() {
+        // ACT & ASSERT
+        for (int maxCartsPerSecond : new int[]{0, -1}) {
+            assertThrows(IllegalArgumentException.class, () -> new CartExpiryService(null, null, null, null, null, null,
+                    null, null, null, meterRegistry, false, Duration.ofHours(1), Duration.ofHours(1), 100,
+                    maxCartsPerSecond, false));
+        }
+    }
+
+    private void makeIdle(Integer userId, Integer productId) {
+        jdbcTemplate.update("update carts set lastModified = ? where userId = ? and productId = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(2)), userId, productId);
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCost(TEST_COST);
+        return product;
+    }
+}
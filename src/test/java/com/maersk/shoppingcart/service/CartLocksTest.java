@@ -0,0 +1,166 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.exception.CartLockTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sumit Kumar
+ */
+class CartLocksTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 1000;
+    private static final long HOLD_MILLIS = 100;
+
+    private MeterRegistry meterRegistry;
+    private CartLocks cartLocks;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cartLocks = new CartLocks(meterRegistry, 256, Duration.ofSeconds(10));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testWithLock_ChangesOfSameUserNotLost() throws Exception {
+        // ARRANGE
+        int[] quantity = new int[1];
+
+        // ACT
+        runConcurrently(thread -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                cartLocks.withLock(TEST_USER_ID, () -> {
+                    // read and write apart, as a check-then-act across statements would be
+                    int current = quantity[0];
+                    Thread.yield();
+                    quantity[0] = current + 1;
+                });
+            }
+        });
+
+        // ASSERT
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, quantity[0]);
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, lockWaitCount("acquired"));
+    }
+
+    @Test
+    void testWithLock_DifferentUsersChangedInParallel() throws Exception {
+        // ARRANGE
+        for (int user = 1; user < THREADS; user++) {
+            assertNotEquals(cartLocks.stripe(user), cartLocks.stripe(user + 1));
+        }
+
+        // ACT
+        long sameUserNanos = runConcurrently(thread -> cartLocks.withLock(TEST_USER_ID, CartLocksTest::hold));
+        long differentUsersNanos = runConcurrently(thread -> cartLocks.withLock(thread + 1, CartLocksTest::hold));
+
+        // ASSERT
+        assertTrue(sameUserNanos >= TimeUnit.MILLISECONDS.toNanos(THREADS * HOLD_MILLIS));
+        assertTrue(differentUsersNanos < sameUserNanos / 2,
+                "different users took " + differentUsersNanos + "ns, same user " + sameUserNanos + "ns");
+    }
+
+    @Test
+    void testWithLock_TimesOutWhileCartIsChangedByAnotherRequest() throws Exception {
+        // ARRANGE
+        CartLocks cartLocks = new CartLocks(meterRegistry, 256, Duration.ofMillis(100));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> cartLocks.withLock(TEST_USER_ID, () -> {
+            locked.countDown();
+            await(release);
+        }));
+        locked.await();
+
+        // ACT & ASSERT
+        try {
+            assertThrows(CartLockTimeoutException.class, () -> cartLocks.withLock(TEST_USER_ID, () -> {
+            }));
+            assertEquals(1, lockWaitCount("timeout"));
+        } finally {
+            release.countDown();
+        }
+        holder.get();
+        assertEquals(TEST_USER_ID, cartLocks.withLock(TEST_USER_ID, () -> TEST_USER_ID));
+    }
+
+    @Test
+    void testStripes_RoundedUpToPowerOfTwo() {
+        assertEquals(1, new CartLocks(meterRegistry, 1, Duration.ofSeconds(1)).stripeCount());
+        assertEquals(128, new CartLocks(meterRegistry, 100, Duration.ofSeconds(1)).stripeCount());
+        assertEquals(256, new CartLocks(meterRegistry, 256, Duration.ofSeconds(1)).stripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new CartLocks(meterRegistry, 0, Duration.ofSeconds(1)));
+    }
+
+    /**
+     * @returns nanos from start until every thread completed
+     */
+    private long runConcurrently(ThreadAction action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                action.run(thread);
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private long lockWaitCount(String outcome) {
+        return meterRegistry.get(CartLocks.LOCK_WAIT_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    private static void hold() {
+        try {
+            Thread.sleep(HOLD_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface ThreadAction {
+
+        void run(int thread);
+    }
+}
@@ -0,0 +1,373 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartLines;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperation.Type;
+import com.maersk.shoppingcart.dto.CartOperationResult;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.exception.DuplicateDataException;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.money.Money;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class CartServiceTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final int TEST_QUANTITY = 2;
+    private static final long TEST_COST = Money.of("25.5");
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Value("${cart.item.max.allowed}")
+    private int itemMaxAllowed;
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartVersions cartVersions;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void testGetCartDetails_StatementCountIndependentOfCartSize(int cartSize) {
+        // ARRANGE
+        for (int i = 0; i < cartSize; i++) {
+            cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), TEST_QUANTITY);
+        }
+        statistics.clear();
+
+        // ACT
+        CartDetails cartDetails = cartService.getCartDetails(TEST_USER_ID);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(cartSize, cartDetails.getProductDetails().size());
+        assertEquals(cartSize * TEST_QUANTITY * TEST_COST, cartDetails.getTotalCost());
+    }
+
+    @Test
+    void testGetCartDetails_KeysetPagesCoverCartInOrder() {
+        // ARRANGE
+        List<Integer> productIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            productIds.add(cartTestData.createProduct(TEST_COST));
+            cartTestData.createCartLine(TEST_USER_ID, productIds.get(i), TEST_QUANTITY);
+        }
+
+        // ACT
+        List<Integer> listed = new ArrayList<>();
+        List<Integer> nextAfters = new ArrayList<>();
+        Integer after = null;
+        do {
+            CartDetails page = cartService.getCartDetails(TEST_USER_ID, after, 2, true);
+            page.getProductDetails().forEach(productDetails -> listed.add(productDetails.getProductId()));
+            // total is that of the whole cart on every page
+            assertEquals(5 * TEST_QUANTITY * TEST_COST, page.getTotalCost());
+            after = page.getNextAfter();
+            nextAfters.add(after);
+        } while (after != null);
+
+        // ASSERT
+        assertEquals(productIds, listed);
+        assertEquals(Arrays.asList(productIds.get(1), productIds.get(3), null), nextAfters);
+    }
+
+    @Test
+    void testGetCartLines_SameJsonAsCartDetails() throws Exception {
+        // ARRANGE
+        cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), TEST_QUANTITY);
+        cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), itemMaxAllowed);
+        CartDetails cartDetails = cartService.getCartDetails(TEST_USER_ID);
+
+        // ACT
+        CartLines cartLines = cartService.getCartLines(TEST_USER_ID);
+
+        // ASSERT
+        assertEquals(2, cartLines.size());
+        assertEquals(cartDetails.getTotalCost(), cartLines.getTotalCost());
+        assertEquals(objectMapper.writeValueAsString(cartDetails), objectMapper.writeValueAsString(cartLines));
+    }
+
+    @Test
+    void testGetCartDetails_WithoutCostProductsNotJoined() {
+        // ARRANGE
+        for (int i = 0; i < 3; i++) {
+            cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), TEST_QUANTITY);
+        }
+        // summary is kept in memory once loaded
+        cartService.getCartSummary(TEST_USER_ID);
+        statistics.clear();
+
+        // ACT
+        CartDetails cartDetails = cartService.getCartDetails(TEST_USER_ID, null, null, false);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Arrays.stream(statistics.getQueries()).anyMatch(query -> query.contains("products")));
+        assertEquals(3, cartDetails.getProductDetails().size());
+        assertTrue(cartDetails.getProductDetails().stream().allMatch(details -> details.getCost() == null));
+        assertEquals(3 * TEST_QUANTITY * TEST_COST, cartDetails.getTotalCost());
+    }
+
+    @Test
+    void testAddProductToCart_SingleInsertStatement() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        statistics.clear();
+
+        // ACT
+        cartService.addProductToCart(TEST_USER_ID, productId, TEST_QUANTITY);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(TEST_QUANTITY, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+
+    @Test
+    void testAddProductToCart_DuplicateItemRejected() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, TEST_QUANTITY);
+
+        // ACT & ASSERT
+        assertThrows(DuplicateDataException.class,
+                () -> cartService.addProductToCart(TEST_USER_ID, productId, TEST_QUANTITY));
+        assertEquals(TEST_QUANTITY, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+
+    @Test
+    void testMergeProductIntoCart_QuantitiesAddedAndCappedAtMaxAllowed() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+
+        // ACT & ASSERT
+        cartService.mergeProductIntoCart(TEST_USER_ID, productId, TEST_QUANTITY);
+        assertEquals(TEST_QUANTITY, cartService.getCountOfItem(TEST_USER_ID, productId));
+
+        cartService.mergeProductIntoCart(TEST_USER_ID, productId, TEST_QUANTITY);
+        assertEquals(2 * TEST_QUANTITY, cartService.getCountOfItem(TEST_USER_ID, productId));
+
+        cartService.mergeProductIntoCart(TEST_USER_ID, productId, itemMaxAllowed);
+        assertEquals(itemMaxAllowed, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+
+    @Test
+    void testApplyOperations_AppliesValidOperationsAndReportsFailures() {
+        // ARRANGE
+        Integer updatedProductId = cartTestData.createProduct(TEST_COST);
+        Integer deletedProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, updatedProductId, TEST_QUANTITY);
+        cartTestData.createCartLine(TEST_USER_ID, deletedProductId, TEST_QUANTITY);
+        List<CartOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operations.add(new CartOperation(Type.ADD, cartTestData.createProduct(TEST_COST), TEST_QUANTITY, null));
+        }
+        operations.add(new CartOperation(Type.UPDATE, updatedProductId, null, 1));
+        operations.add(new CartOperation(Type.DELETE, deletedProductId, null, null));
+        operations.add(new CartOperation(Type.ADD, updatedProductId, TEST_QUANTITY, null));
+        operations.add(new CartOperation(Type.ADD, -1, TEST_QUANTITY, null));
+        statistics.clear();
+
+        // ACT
+        List<CartOperationResult> results = cartService.applyOperations(TEST_USER_ID, operations);
+
+        // ASSERT
+        // product lookup, cart lookup and one batch each for inserts, updates and deletes
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(operations.size(), results.size());
+        for (int i = 0; i < 7; i++) {
+            assertTrue(results.get(i).isSuccess());
+        }
+        assertFalse(results.get(7).isSuccess());
+        assertEquals("This item is already present in users cart !!", results.get(7).getReason());
+        assertFalse(results.get(8).isSuccess());
+        assertEquals("Product corresponding to id -1 doesn't exist !!", results.get(8).getReason());
+
+        assertEquals(TEST_QUANTITY + 1, cartService.getCountOfItem(TEST_USER_ID, updatedProductId));
+        assertEquals(0, cartService.getCountOfItem(TEST_USER_ID, deletedProductId));
+        assertEquals(6, cartService.getCartDetails(TEST_USER_ID).getProductDetails().size());
+    }
+
+    @Test
+    void testApplyOperations_OperationsOnSameProductAppliedInOrder() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, TEST_QUANTITY);
+        List<CartOperation> operations = Arrays.asList(
+                new CartOperation(Type.DELETE, productId, null, null),
+                new CartOperation(Type.UPDATE, productId, null, 1),
+                new CartOperation(Type.ADD, productId, 1, null),
+                new CartOperation(Type.UPDATE, productId, null, 2));
+
+        // ACT
+        List<CartOperationResult> results = cartService.applyOperations(TEST_USER_ID, operations);
+
+        // ASSERT
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals(3, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+
+    @Test
+    void testApplyOperations_NullOperationReportedAsFailure() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        List<CartOperation> operations = Arrays.asList(null, new CartOperation(Type.ADD, productId, 1, null));
+
+        // ACT
+        List<CartOperationResult> results = cartService.applyOperations(TEST_USER_ID, operations);
+
+        // ASSERT
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Operation type and product id are mandatory !!", results.get(0).getReason());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+
+    @Test
+    void testApplyOperations_AllOperationsFailedCartVersionUnchanged() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, TEST_QUANTITY);
+        String etag = cartVersions.etag(TEST_USER_ID);
+        List<CartOperation> operations = Arrays.asList(
+                new CartOperation(Type.ADD, productId, 1, null),
+                new CartOperation(Type.DELETE, -1, null, null));
+
+        // ACT
+        List<CartOperationResult> results = cartService.applyOperations(TEST_USER_ID, operations);
+
+        // ASSERT
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(etag, cartVersions.etag(TEST_USER_ID));
+    }
+
+    @Test
+    void testUpdateCart_ConcurrentIncrementsStopAtMaxAllowed() throws Exception {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+        AtomicInteger rejected = new AtomicInteger();
+
+        // ACT
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                try {
+                    cartService.updateCart(TEST_USER_ID, productId, 1);
+                } catch (InvalidDataException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        // ASSERT
+        assertEquals(itemMaxAllowed, cartService.getCountOfItem(TEST_USER_ID, productId));
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - (itemMaxAllowed - 1), rejected.get());
+    }
+
+    @Test
+    void testUpdateCart_ConcurrentIncrementsAndDecrementsLoseNoUpdates() throws Exception {
+        // ARRANGE
+        int initialQuantity = itemMaxAllowed / 2;
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, initialQuantity);
+        AtomicInteger applied = new AtomicInteger();
+
+        // ACT
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                int changed = i % 2 == 0 ? 1 : -1;
+                try {
+                    cartService.updateCart(TEST_USER_ID, productId, changed);
+                    applied.addAndGet(changed);
+                } catch (InvalidDataException e) {
+                    // quantity would have left the allowed range, nothing was changed
+                }
+            }
+        });
+
+        // ASSERT
+        int quantity = cartService.getCountOfItem(TEST_USER_ID, productId);
+        assertEquals(initialQuantity + applied.get(), quantity);
+        assertTrue(quantity > 0 && quantity <= itemMaxAllowed);
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
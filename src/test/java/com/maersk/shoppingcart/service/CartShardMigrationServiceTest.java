@@ -0,0 +1,175 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.dto.ShardMigrationResult;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Carts are spread over two of three H2 shards, products are copied onto every shard
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.datasource.url=jdbc:h2:mem:SHARED;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "cart.shards.urls=" + CartShardMigrationServiceTest.SHARD_URLS,
+        "cart.shards.count=2",
+        "cart.shards.migration.batch-size=7"})
+class CartShardMigrationServiceTest {
+
+    static final String SHARD_URLS = "jdbc:h2:mem:SHARD0;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:SHARD1;MODE=MySQL;DB_CLOSE_DELAY=-1,jdbc:h2:mem:SHARD2;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final int USERS = 60;
+    private static final int TEST_QUANTITY = 2;
+    private static final long TEST_COST = Money.of("25.5");
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartShardMigrationService cartShardMigrationService;
+
+    @Autowired
+    private CartShards cartShards;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private Integer productId;
+
+    @BeforeEach
+    void setup() {
+        Product product = new Product();
+        product.setName("product");
+        product.setCost(TEST_COST);
+        productId = productRepository.save(product).getProductId();
+
+        for (String url : SHARD_URLS.split(",")) {
+            JdbcTemplate shard = new JdbcTemplate(new DriverManagerDataSource(url, "username", "password"));
+            shard.execute("create table if not exists products (productId int primary key, name varchar(255), "
+                    + "details varchar(255), cost decimal(19, 4) not null)");
+            shard.execute("create table if not exists carts (userId int not null, productId int not null, "
+                    + "quantity int, lastModified datetime default current_timestamp on update current_timestamp, "
+                    + "primary key (userId, productId))");
+            shard.update("insert into products (productId, name, cost) values (?, ?, ?)", productId, "product",
+                    new BigDecimal("25.5"));
+            shards.add(shard);
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        for (JdbcTemplate shard : shards) {
+            shard.update("delete from carts");
+            shard.update("delete from products");
+        }
+        productRepository.deleteAll();
+        cartSummaryService.invalidateAll();
+        if (cartShards.getRing().getShardCount() != 2) {
+            cartShardMigrationService.migrate(2);
+        }
+    }
+
+    @Test
+    void testCarts_StoredOnShardOfUser() {
+        // ACT
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+        }
+
+        // ASSERT
+        int[] users = new int[shards.size()];
+        for (int userId = 1; userId <= USERS; userId++) {
+            int shard = cartShards.shardOf(userId);
+            users[shard]++;
+            assertEquals(1, lineCount(shard, userId));
+            assertEquals(TEST_QUANTITY, cartService.getCountOfItem(userId, productId));
+            assertEquals(TEST_QUANTITY * TEST_COST, cartService.getCartSummary(userId).getTotalCost());
+        }
+        assertTrue(users[0] > 0 && users[1] > 0);
+        assertEquals(0, users[2]);
+    }
+
+    @Test
+    void testMigrate_MovesOnlyCartsTakenOverByNewShard() {
+        // ARRANGE
+        int[] shardOfUser = new int[USERS + 1];
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+            shardOfUser[userId] = cartShards.shardOf(userId);
+        }
+
+        // ACT
+        ShardMigrationResult result = cartShardMigrationService.migrate(3);
+
+        // ASSERT
+        int moved = 0;
+        for (int userId = 1; userId <= USERS; userId++) {
+            int shard = cartShards.shardOf(userId);
+            if (shard != shardOfUser[userId]) {
+                assertEquals(2, shard);
+                assertEquals(0, lineCount(shardOfUser[userId], userId));
+                moved++;
+            }
+            assertEquals(1, lineCount(shard, userId));
+            assertEquals(TEST_QUANTITY, cartService.getCountOfItem(userId, productId));
+        }
+        assertNotEquals(0, moved);
+        assertEquals(moved, result.getMovedUsers());
+        assertEquals(moved, result.getMovedLines());
+        assertEquals(3, cartShards.getRing().getShardCount());
+    }
+
+    @Test
+    void testMigrate_ShrinkingRingEmptiesRemovedShard() {
+        // ARRANGE
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+        }
+
+        // ACT
+        cartShardMigrationService.migrate(1);
+
+        // ASSERT
+        for (int userId = 1; userId <= USERS; userId++) {
+            assertEquals(0, cartShards.shardOf(userId));
+            assertEquals(TEST_QUANTITY, cartService.getCountOfItem(userId, productId));
+        }
+        assertEquals(USERS, shards.get(0).queryForObject("select count(*) from carts", Integer.class));
+        assertEquals(0, shards.get(1).queryForObject("select count(*) from carts", Integer.class));
+    }
+
+    @Test
+    void testMigrate_MoreShardsThanConfigured() {
+        // ACT & ASSERT
+        assertThrows(InvalidDataException.class, () -> cartShardMigrationService.migrate(4));
+    }
+
+    private int lineCount(int shard, int userId) {
+        return shards.get(shard).queryForObject("select count(*) from carts where userId = ?", Integer.class, userId);
+    }
+}
@@ -0,0 +1,235 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class CartSummaryServiceTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final long TEST_COST = Money.of("2.5");
+    private static final long TEST_SECOND_COST = Money.of("4.0");
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartShards cartShards;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cartSummaryService.invalidateAll();
+        productService.evictAllProducts();
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testGetCartSummary_LoadedOnceThenServedFromMemory() {
+        // ARRANGE
+        cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_COST), 2);
+        cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_SECOND_COST), 3);
+        statistics.clear();
+
+        // ACT
+        CartSummary first = cartService.getCartSummary(TEST_USER_ID);
+        CartSummary second = cartService.getCartSummary(TEST_USER_ID);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertSummary(2, 5, 2 * TEST_COST + 3 * TEST_SECOND_COST, first);
+        assertSummary(2, 5, 2 * TEST_COST + 3 * TEST_SECOND_COST, second);
+    }
+
+    @Test
+    void testGetCartSummary_WithoutSingleInstance_LoadedOnEveryRead() {
+        // ARRANGE
+        CartSummaryService uncached = new CartSummaryService(cartRepository, cartShards, 1000, Duration.ofMinutes(10),
+                false);
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        uncached.getSummary(TEST_USER_ID);
+
+        // ACT
+        // written by another instance
+        cartTestData.createCartLine(TEST_USER_ID, cartTestData.createProduct(TEST_SECOND_COST), 3);
+        statistics.clear();
+        CartSummary summary = uncached.getSummary(TEST_USER_ID);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(uncached.isCached(TEST_USER_ID));
+        assertSummary(2, 5, 2 * TEST_COST + 3 * TEST_SECOND_COST, summary);
+    }
+
+    @Test
+    void testGetCartSummary_EmptyCart() {
+        assertSummary(0, 0, 0, cartService.getCartSummary(TEST_USER_ID));
+    }
+
+    @Test
+    void testGetCartSummary_MaintainedIncrementallyOnChanges() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        Integer secondProductId = cartTestData.createProduct(TEST_SECOND_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT & ASSERT
+        cartService.addProductToCart(TEST_USER_ID, secondProductId, 3);
+        assertCachedSummaryMatchesDatabase();
+
+        cartService.updateCart(TEST_USER_ID, productId, 4);
+        assertCachedSummaryMatchesDatabase();
+
+        cartService.updateCart(TEST_USER_ID, productId, -6);
+        assertCachedSummaryMatchesDatabase();
+
+        cartService.deleteItemFromCart(TEST_USER_ID, secondProductId);
+        assertCachedSummaryMatchesDatabase();
+        assertSummary(0, 0, 0, cartService.getCartSummary(TEST_USER_ID));
+    }
+
+    @Test
+    void testGetCartSummary_ReloadedAfterMerge() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT
+        cartService.mergeProductIntoCart(TEST_USER_ID, productId, 3);
+
+        // ASSERT
+        assertSummary(1, 5, 5 * TEST_COST, cartService.getCartSummary(TEST_USER_ID));
+    }
+
+    @Test
+    void testGetCartSummary_InvalidatedWhenPriceChanges() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setCost(TEST_SECOND_COST);
+        productRepository.save(product);
+        productService.evictProduct(productId);
+
+        // ASSERT
+        assertSummary(1, 2, 2 * TEST_SECOND_COST, cartService.getCartSummary(TEST_USER_ID));
+    }
+
+    @Test
+    void testGetCartSummary_ConcurrentChangesAndReadsStayConsistent() throws Exception {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 5);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        if (thread % 2 == 0) {
+                            cartService.getCartSummary(TEST_USER_ID);
+                            continue;
+                        }
+                        try {
+                            cartService.updateCart(TEST_USER_ID, productId, j % 2 == 0 ? 1 : -1);
+                        } catch (InvalidDataException e) {
+                            // quantity would have left the allowed range, nothing was changed
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // ASSERT
+        assertCachedSummaryMatchesDatabase();
+    }
+
+    private void assertCachedSummaryMatchesDatabase() {
+        CartSummary expected = cartRepository.summarizeByUserId(TEST_USER_ID);
+        statistics.clear();
+        CartSummary actual = cartService.getCartSummary(TEST_USER_ID);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertSummary(expected.getLineCount(), expected.getItemCount(), expected.getTotalCost(), actual);
+    }
+
+    private static void assertSummary(int lineCount, int itemCount, long totalCost, CartSummary summary) {
+        assertEquals(lineCount, summary.getLineCount());
+        assertEquals(itemCount, summary.getItemCount());
+        assertEquals(totalCost, summary.getTotalCost());
+    }
+}
@@ -0,0 +1,146 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.money.Money;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+class CartVersionsTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final Integer TEST_SECOND_USER_ID = 2;
+
+    private final CartVersions cartVersions = new CartVersions(1000, Duration.ofMinutes(10), true);
+
+    @Test
+    void testEtag_BumpedByChangeOfSameCartOnly() {
+        // ARRANGE
+        String etag = cartVersions.etag(TEST_USER_ID);
+        String secondEtag = cartVersions.etag(TEST_SECOND_USER_ID);
+
+        // ACT
+        cartVersions.onCartChange(TEST_USER_ID);
+
+        // ASSERT
+        assertNotEquals(etag, cartVersions.etag(TEST_USER_ID));
+        assertEquals(secondEtag, cartVersions.etag(TEST_SECOND_USER_ID));
+    }
+
+    @Test
+    void testEtag_BumpedForAllCartsByPriceChange() {
+        // ARRANGE
+        String etag = cartVersions.etag(TEST_USER_ID);
+        String secondEtag = cartVersions.etag(TEST_SECOND_USER_ID);
+
+        // ACT
+        cartVersions.onPriceChange();
+
+        // ASSERT
+        assertNotEquals(etag, cartVersions.etag(TEST_USER_ID));
+        assertNotEquals(secondEtag, cartVersions.etag(TEST_SECOND_USER_ID));
+    }
+
+    @Test
+    void testEtag_NotMatchedAfterRestart() {
+        assertNotEquals(cartVersions.etag(TEST_USER_ID), new CartVersions(1000, Duration.ofMinutes(10), true).etag(TEST_USER_ID));
+    }
+
+    @Test
+    void testMatching_WeakForNoneMatchStrongForIfMatch() {
+        String etag = cartVersions.etag(TEST_USER_ID);
+
+        assertTrue(CartVersions.noneMatchHits("\"other\", " + etag, etag));
+        assertTrue(CartVersions.noneMatchHits("W/" + etag, etag));
+        assertTrue(CartVersions.noneMatchHits("*", etag));
+        assertFalse(CartVersions.noneMatchHits(null, etag));
+        assertFalse(CartVersions.noneMatchHits("\"other\"", etag));
+
+        assertTrue(CartVersions.ifMatchHolds(null, etag));
+        assertTrue(CartVersions.ifMatchHolds(etag, etag));
+        assertTrue(CartVersions.ifMatchHolds("*", etag));
+        assertFalse(CartVersions.ifMatchHolds("W/" + etag, etag));
+        assertFalse(CartVersions.ifMatchHolds("\"other\"", etag));
+    }
+
+    @Test
+    void testEtag_NoneWithoutSingleInstance() {
+        // ARRANGE
+        CartVersions withoutVersions = new CartVersions(1000, Duration.ofMinutes(10), false);
+
+        // ACT
+        String etag = withoutVersions.etag(TEST_USER_ID);
+
+        // ASSERT
+        assertNull(etag);
+        assertFalse(CartVersions.noneMatchHits("*", etag));
+        assertTrue(CartVersions.ifMatchHolds(null, etag));
+        assertTrue(CartVersions.ifMatchHolds("*", etag));
+        assertFalse(CartVersions.ifMatchHolds(cartVersions.etag(TEST_USER_ID), etag));
+    }
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @SpringBootTest(properties = {"spring.profiles.active:test",
+            "spring.cache.caffeine.spec=maximumSize=10000,expireAfterWrite=200ms,recordStats",
+            "cart.version.cache.ttl=200ms"})
+    class DirectPriceChange {
+
+        private static final int TEST_QUANTITY = 2;
+
+        @Autowired
+        private CartTestData cartTestData;
+
+        @Autowired
+        private CartService cartService;
+
+        @Autowired
+        private CartVersions cartVersions;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @AfterEach
+        void cleanup() {
+            cartTestData.deleteAll();
+        }
+
+        @Test
+        void testEtag_NotMatchedOnceVersionExpiredAfterDirectPriceChange() throws InterruptedException {
+            // ARRANGE
+            long cost = Money.of("2.5");
+            long newCost = Money.of("4.0");
+            Integer productId = cartTestData.createProduct(cost);
+            cartTestData.createCartLine(TEST_USER_ID, productId, TEST_QUANTITY);
+            String etag = cartVersions.etag(TEST_USER_ID);
+
+            // ACT
+            jdbcTemplate.update("update products set cost = ? where productId = ?", Money.toBigDecimal(newCost),
+                    productId);
+
+            // ASSERT
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (CartVersions.noneMatchHits(etag, cartVersions.etag(TEST_USER_ID))) {
+                assertTrue(System.nanoTime() < deadline, "Version still matches after price change");
+                Thread.sleep(50);
+            }
+            assertEquals(TEST_QUANTITY * newCost, cartService.getCartDetails(TEST_USER_ID).getTotalCost());
+        }
+    }
+}
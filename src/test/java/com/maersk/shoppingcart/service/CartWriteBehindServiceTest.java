@@ -0,0 +1,346 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperation.Type;
+import com.maersk.shoppingcart.dto.CartSummary;
+import com.maersk.shoppingcart.entity.Cart;
+import com.maersk.shoppingcart.exception.InvalidDataException;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Flushes are triggered by the tests, the flush interval is long enough to never elapse
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "cart.write-behind.enabled=true",
+        "cart.write-behind.flush-interval=1h"})
+class CartWriteBehindServiceTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final long TEST_COST = Money.of("2.5");
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Value("${cart.item.max.allowed}")
+    private int itemMaxAllowed;
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartWriteBehindService cartWriteBehindService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartVersions cartVersions;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private CartShards cartShards;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cartSummaryService.invalidateAll();
+        productService.evictAllProducts();
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartWriteBehindService.flushAll();
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testUpdateCart_CoalescedAndWrittenOnFlush() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+
+        // ACT
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, 1);
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, 1);
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, -1);
+
+        // ASSERT
+        assertEquals(2, storedQuantity(productId));
+        assertEquals(1.0, pendingLines());
+        statistics.clear();
+        assertEquals(3, cartService.getCountOfItem(TEST_USER_ID, productId));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        cartWriteBehindService.flushAll();
+        assertEquals(3, storedQuantity(productId));
+        assertEquals(0.0, pendingLines());
+    }
+
+    @Test
+    void testUpdateCart_ReadsIncludePendingChanges() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        Integer secondProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartTestData.createCartLine(TEST_USER_ID, secondProductId, 1);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, 3);
+        cartWriteBehindService.updateCart(TEST_USER_ID, secondProductId, -1);
+
+        // ASSERT
+        CartDetails cartDetails = cartService.getCartDetails(TEST_USER_ID);
+        assertEquals(1, cartDetails.getProductDetails().size());
+        assertEquals(5, cartDetails.getProductDetails().get(0).getQuantity());
+        assertEquals(5 * TEST_COST, cartDetails.getTotalCost());
+        assertEquals(0, cartService.getCountOfItem(TEST_USER_ID, secondProductId));
+        assertSummary(1, 5, 5 * TEST_COST, cartService.getCartSummary(TEST_USER_ID));
+
+        cartWriteBehindService.flushAll();
+        assertFalse(cartRepository.findByUserIdAndProductId(TEST_USER_ID, secondProductId).isPresent());
+        assertSummary(1, 5, 5 * TEST_COST, cartService.getCartSummary(TEST_USER_ID));
+        assertSummary(1, 5, 5 * TEST_COST, cartRepository.summarizeByUserId(TEST_USER_ID));
+    }
+
+    @Test
+    void testUpdateCart_RejectedLikeDirectUpdate() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        Integer missingLineProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+
+        // ACT & ASSERT
+        assertThrows(InvalidDataException.class,
+                () -> cartWriteBehindService.updateCart(TEST_USER_ID, missingLineProductId, 1));
+        assertThrows(InvalidDataException.class,
+                () -> cartWriteBehindService.updateCart(TEST_USER_ID, productId, itemMaxAllowed));
+        assertEquals(0.0, pendingLines());
+
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, -1);
+        assertThrows(InvalidDataException.class, () -> cartWriteBehindService.updateCart(TEST_USER_ID, productId, 1));
+    }
+
+    @Test
+    void testOtherWrites_PendingChangesWrittenFirst() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+        cartWriteBehindService.updateCart(TEST_USER_ID, productId, 1);
+
+        // ACT
+        CartOperation operation = new CartOperation();
+        operation.setType(Type.UPDATE);
+        operation.setProductId(productId);
+        operation.setChanged(-1);
+        cartService.applyOperations(TEST_USER_ID, Collections.singletonList(operation));
+
+        // ASSERT
+        assertEquals(1, storedQuantity(productId));
+        assertEquals(0.0, pendingLines());
+    }
+
+    @Test
+    void testMaxPendingLines_FlushedByChangeReachingThreshold() {
+        // ARRANGE
+        CartWriteBehindService writeBehind = createWriteBehind(2);
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        Integer secondProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+        cartTestData.createCartLine(TEST_USER_ID, secondProductId, 1);
+
+        // ACT
+        writeBehind.updateCart(TEST_USER_ID, productId, 1);
+        int quantityBeforeThreshold = storedQuantity(productId);
+        writeBehind.updateCart(TEST_USER_ID, secondProductId, 1);
+
+        // ASSERT
+        assertEquals(1, quantityBeforeThreshold);
+        assertEquals(2, storedQuantity(productId));
+        assertEquals(2, storedQuantity(secondProductId));
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void testShutdown_PendingChangesFlushed() {
+        // ARRANGE
+        CartWriteBehindService writeBehind = createWriteBehind(1000);
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 1);
+        writeBehind.updateCart(TEST_USER_ID, productId, 2);
+
+        // ACT
+        writeBehind.shutdown();
+
+        // ASSERT
+        assertEquals(3, storedQuantity(productId));
+        assertFalse(writeBehind.isEnabled());
+    }
+
+    @Test
+    void testFlush_CountNotReportedReloadsSummary() {
+        // ARRANGE
+        // driver reporting SUCCESS_NO_INFO for every line, as MySQL does with rewriteBatchedStatements
+        JdbcTemplate noInfoJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                int[] counts = super.batchUpdate(sql, batchArgs);
+                Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                return counts;
+            }
+        };
+        CartWriteBehindService writeBehind = createWriteBehind(noInfoJdbcTemplate, 1000);
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartService.getCartSummary(TEST_USER_ID);
+        writeBehind.updateCart(TEST_USER_ID, productId, 1);
+        String etag = cartVersions.etag(TEST_USER_ID);
+        // changed directly in the meantime, the pending change no longer applies
+        jdbcTemplate.update("update carts set quantity = ? where userId = ? and productId = ?", itemMaxAllowed,
+                TEST_USER_ID, productId);
+
+        // ACT
+        writeBehind.shutdown();
+
+        // ASSERT
+        assertEquals(itemMaxAllowed, storedQuantity(productId));
+        assertSummary(1, itemMaxAllowed, itemMaxAllowed * TEST_COST, cartService.getCartSummary(TEST_USER_ID));
+        assertNotEquals(etag, cartVersions.etag(TEST_USER_ID));
+    }
+
+    @Test
+    void testUpdateCart_ConcurrentChangesReadsAndFlushesStayConsistent() throws Exception {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 5);
+        cartService.getCartSummary(TEST_USER_ID);
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        if (thread == 0) {
+                            cartWriteBehindService.flushAll();
+                        } else if (thread % 2 == 0) {
+                            cartService.getCartSummary(TEST_USER_ID);
+                        } else {
+                            try {
+                                cartWriteBehindService.updateCart(TEST_USER_ID, productId, j % 2 == 0 ? 1 : -1);
+                            } catch (InvalidDataException e) {
+                                // quantity would have left the allowed range, nothing was changed
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int pendingQuantity = cartService.getCountOfItem(TEST_USER_ID, productId);
+        CartSummary pendingSummary = cartService.getCartSummary(TEST_USER_ID);
+        cartWriteBehindService.flushAll();
+
+        // ASSERT
+        assertEquals(pendingQuantity, storedQuantity(productId));
+        CartSummary stored = cartRepository.summarizeByUserId(TEST_USER_ID);
+        assertSummary(stored.getLineCount(), stored.getItemCount(), stored.getTotalCost(), pendingSummary);
+        assertSummary(stored.getLineCount(), stored.getItemCount(), stored.getTotalCost(),
+                cartService.getCartSummary(TEST_USER_ID));
+    }
+
+    private CartWriteBehindService createWriteBehind(int maxPendingLines) {
+        return createWriteBehind(jdbcTemplate, maxPendingLines);
+    }
+
+    private CartWriteBehindService createWriteBehind(JdbcTemplate jdbcTemplate, int maxPendingLines) {
+        return new CartWriteBehindService(cartRepository, productService, cartSummaryService, cartVersions,
+                readYourWrites, cartShards, jdbcTemplate, transactionManager, new SimpleMeterRegistry(), itemMaxAllowed,
+                true, Duration.ofHours(1), maxPendingLines);
+    }
+
+    private double pendingLines() {
+        return meterRegistry.get(CartWriteBehindService.PENDING_LINES_GAUGE).gauge().value();
+    }
+
+    private int storedQuantity(Integer productId) {
+        return cartRepository.findByUserIdAndProductId(TEST_USER_ID, productId).map(Cart::getQuantity).orElse(0);
+    }
+
+    private static void assertSummary(int lineCount, int itemCount, long totalCost, CartSummary summary) {
+        assertEquals(lineCount, summary.getLineCount());
+        assertEquals(itemCount, summary.getItemCount());
+        assertEquals(totalCost, summary.getTotalCost());
+    }
+}
@@ -0,0 +1,135 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Write-behind on carts spread over two of three H2 shards, flushes are triggered by the tests
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.datasource.url=jdbc:h2:mem:WB_SHARED;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "cart.shards.urls=" + CartWriteBehindShardTest.SHARD_URLS,
+        "cart.shards.count=2",
+        "cart.write-behind.enabled=true",
+        "cart.write-behind.flush-interval=1h"})
+class CartWriteBehindShardTest {
+
+    static final String SHARD_URLS = "jdbc:h2:mem:WB_SHARD0;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:WB_SHARD1;MODE=MySQL;DB_CLOSE_DELAY=-1,jdbc:h2:mem:WB_SHARD2;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final int USERS = 20;
+    private static final int TEST_QUANTITY = 2;
+    private static final long TEST_COST = Money.of("25.5");
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartWriteBehindService cartWriteBehindService;
+
+    @Autowired
+    private CartShards cartShards;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartSummaryService cartSummaryService;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private Integer productId;
+
+    @BeforeEach
+    void setup() {
+        Product product = new Product();
+        product.setName("product");
+        product.setCost(TEST_COST);
+        productId = productRepository.save(product).getProductId();
+
+        for (String url : SHARD_URLS.split(",")) {
+            JdbcTemplate shard = new JdbcTemplate(new DriverManagerDataSource(url, "username", "password"));
+            shard.execute("create table if not exists products (productId int primary key, name varchar(255), "
+                    + "details varchar(255), cost decimal(19, 4) not null)");
+            shard.execute("create table if not exists carts (userId int not null, productId int not null, "
+                    + "quantity int, lastModified datetime default current_timestamp on update current_timestamp, "
+                    + "primary key (userId, productId))");
+            shard.update("insert into products (productId, name, cost) values (?, ?, ?)", productId, "product",
+                    new BigDecimal("25.5"));
+            shards.add(shard);
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartWriteBehindService.flushAll();
+        for (JdbcTemplate shard : shards) {
+            shard.update("delete from carts");
+            shard.update("delete from products");
+        }
+        productRepository.deleteAll();
+        cartSummaryService.invalidateAll();
+    }
+
+    @Test
+    void testUpdateCart_ExistingLineFoundOnShardOfUser() {
+        // ARRANGE
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+        }
+
+        // ACT
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartWriteBehindService.updateCart(userId, productId, 1);
+        }
+
+        // ASSERT
+        for (int userId = 1; userId <= USERS; userId++) {
+            assertEquals(TEST_QUANTITY + 1, cartService.getCountOfItem(userId, productId));
+            assertEquals(TEST_QUANTITY, quantity(cartShards.shardOf(userId), userId));
+        }
+    }
+
+    @Test
+    void testFlushAll_WritesToShardOfEveryUser() {
+        // ARRANGE
+        int[] users = new int[shards.size()];
+        for (int userId = 1; userId <= USERS; userId++) {
+            cartService.addProductToCart(userId, productId, TEST_QUANTITY);
+            cartWriteBehindService.updateCart(userId, productId, 1);
+            users[cartShards.shardOf(userId)]++;
+        }
+
+        // ACT
+        cartWriteBehindService.flushAll();
+
+        // ASSERT
+        for (int userId = 1; userId <= USERS; userId++) {
+            assertEquals(TEST_QUANTITY + 1, quantity(cartShards.shardOf(userId), userId));
+        }
+        assertTrue(users[0] > 0 && users[1] > 0);
+    }
+
+    private int quantity(int shard, int userId) {
+        return shards.get(shard).queryForObject("select quantity from carts where userId = ? and productId = ?",
+                Integer.class, userId, productId);
+    }
+}
@@ -0,0 +1,98 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.money.Money;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Memory store in front of a primary and a lagging replica, two H2 databases holding different quantities of a line
+ *
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.datasource.url=jdbc:h2:mem:STORE_PRIMARY;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "cart.datasource.replica-urls=" + MemoryCartStoreReplicaTest.REPLICA_URL,
+        "cart.store.type=memory"})
+class MemoryCartStoreReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:STORE_REPLICA;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final int PRIMARY_QUANTITY = 2;
+    private static final int LAGGING_QUANTITY = 3;
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartService cartService;
+
+    private JdbcTemplate replica;
+    private Integer productId;
+
+    @BeforeEach
+    void setup() {
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "username", "password"));
+        replica.execute("create table if not exists products (productId int primary key, name varchar(255), "
+                + "details varchar(255), cost decimal(19, 4) not null)");
+        replica.execute("create table if not exists carts (userId int not null, productId int not null, "
+                + "quantity int, lastModified datetime default current_timestamp on update current_timestamp, "
+                + "primary key (userId, productId))");
+
+        productId = cartTestData.createProduct(Money.of("25.5"));
+        replica.update("insert into products (productId, name, cost) values (?, ?, ?)", productId, "product",
+                new BigDecimal("25.5"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+        replica.update("delete from carts");
+        replica.update("delete from products");
+    }
+
+    @Test
+    void testReadOnlyTransaction_CartLoadedFromPrimary() {
+        // ARRANGE
+        cartTestData.createCartLine(TEST_USER_ID, productId, PRIMARY_QUANTITY);
+        replica.update("insert into carts (userId, productId, quantity) values (?, ?, ?)", TEST_USER_ID, productId,
+                LAGGING_QUANTITY);
+
+        // ACT
+        int quantity = cartService.getCountOfItem(TEST_USER_ID, productId);
+        replica.update("update carts set quantity = ? where userId = ?", PRIMARY_QUANTITY, TEST_USER_ID);
+
+        // ASSERT
+        assertEquals(PRIMARY_QUANTITY, quantity);
+        assertEquals(PRIMARY_QUANTITY, cartService.getCountOfItem(TEST_USER_ID, productId));
+        assertEquals(PRIMARY_QUANTITY,
+                cartService.getCartDetails(TEST_USER_ID).getProductDetails().get(0).getQuantity());
+    }
+
+    @Test
+    void testUpdateCart_ChangeAppliedToCartLoadedFromPrimary() {
+        // ARRANGE
+        replica.update("insert into carts (userId, productId, quantity) values (?, ?, ?)", TEST_USER_ID, productId,
+                LAGGING_QUANTITY);
+        cartTestData.createCartLine(TEST_USER_ID, productId, PRIMARY_QUANTITY);
+        cartService.getCountOfItem(TEST_USER_ID, productId);
+
+        // ACT
+        cartService.updateCart(TEST_USER_ID, productId, 1);
+
+        // ASSERT
+        assertEquals(PRIMARY_QUANTITY + 1, cartService.getCountOfItem(TEST_USER_ID, productId));
+    }
+}
@@ -0,0 +1,180 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.maersk.shoppingcart.CartTestData;
+import com.maersk.shoppingcart.config.CartStoreConfig;
+import com.maersk.shoppingcart.dto.CartDetails;
+import com.maersk.shoppingcart.dto.CartOperation;
+import com.maersk.shoppingcart.dto.CartOperation.Type;
+import com.maersk.shoppingcart.dto.ProductDetails;
+import com.maersk.shoppingcart.jpa.CartRepository;
+import com.maersk.shoppingcart.money.Money;
+import com.maersk.shoppingcart.service.MemoryCartStore.CachedCart;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "cart.store.type=memory"})
+class MemoryCartStoreTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final long TEST_COST = Money.of("25.5");
+
+    @Autowired
+    private CartTestData cartTestData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        cartTestData.deleteAll();
+    }
+
+    @Test
+    void testCartStore_WithoutSingleInstance_Refused() {
+        // ACT & ASSERT
+        assertThrows(IllegalStateException.class, () -> new CartStoreConfig().cartStore(cartRepository,
+                productService, transactionManager, meterRegistry, CartStoreConfig.Type.MEMORY, 1000,
+                Duration.ofMinutes(30), false, false));
+    }
+
+    @Test
+    void testGetCartDetails_CachedCartReadWithoutStatements() {
+        // ARRANGE
+        Integer firstProductId = cartTestData.createProduct(TEST_COST);
+        Integer secondProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, firstProductId, 2);
+        cartTestData.createCartLine(TEST_USER_ID, secondProductId, 3);
+        cartService.getCartDetails(TEST_USER_ID);
+        statistics.clear();
+
+        // ACT
+        CartDetails cartDetails = cartService.getCartDetails(TEST_USER_ID);
+        int quantity = cartService.getCountOfItem(TEST_USER_ID, secondProductId);
+
+        // ASSERT
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, cartDetails.getProductDetails().size());
+        assertEquals(5 * TEST_COST, cartDetails.getTotalCost());
+        assertEquals(3, quantity);
+        assertTrue(meterRegistry.get(MemoryCartStore.CART_BYTES_SUMMARY).summary().count() > 0);
+        assertTrue(meterRegistry.get(MemoryCartStore.CACHED_BYTES_GAUGE).gauge().value() > 0);
+    }
+
+    @Test
+    void testChanges_WrittenThroughAndAppliedToCachedCart() {
+        // ARRANGE
+        Integer firstProductId = cartTestData.createProduct(TEST_COST);
+        Integer secondProductId = cartTestData.createProduct(TEST_COST);
+        Integer thirdProductId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, firstProductId, 2);
+        cartTestData.createCartLine(TEST_USER_ID, secondProductId, 3);
+        cartService.getCartDetails(TEST_USER_ID);
+
+        // ACT
+        cartService.addProductToCart(TEST_USER_ID, thirdProductId, 1);
+        cartService.mergeProductIntoCart(TEST_USER_ID, thirdProductId, 4);
+        cartService.updateCart(TEST_USER_ID, firstProductId, -2);
+        cartService.updateCart(TEST_USER_ID, secondProductId, 1);
+        cartService.deleteItemFromCart(TEST_USER_ID, thirdProductId);
+        cartService.addProductToCart(TEST_USER_ID, firstProductId, 5);
+
+        // ASSERT
+        List<ProductDetails> cached = cartService.getCartDetails(TEST_USER_ID).getProductDetails();
+        List<ProductDetails> stored = cartRepository.findProductDetailsByUserId(TEST_USER_ID);
+        assertEquals(stored.size(), cached.size());
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals(stored.get(i).getProductId(), cached.get(i).getProductId());
+            assertEquals(stored.get(i).getQuantity(), cached.get(i).getQuantity());
+        }
+        assertEquals(5, cartService.getCountOfItem(TEST_USER_ID, firstProductId));
+        assertEquals(4, cartService.getCountOfItem(TEST_USER_ID, secondProductId));
+        assertEquals(0, cartService.getCountOfItem(TEST_USER_ID, thirdProductId));
+    }
+
+    @Test
+    void testApplyOperations_CachedCartReloaded() {
+        // ARRANGE
+        Integer productId = cartTestData.createProduct(TEST_COST);
+        cartTestData.createCartLine(TEST_USER_ID, productId, 2);
+        cartService.getCartDetails(TEST_USER_ID);
+
+        // ACT
+        cartService.applyOperations(TEST_USER_ID, Collections.singletonList(
+                new CartOperation(Type.UPDATE, productId, null, 3)));
+        statistics.clear();
+        int quantity = cartService.getCountOfItem(TEST_USER_ID, productId);
+
+        // ASSERT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, quantity);
+    }
+
+    @Test
+    void testCachedCart_LinesKeptInProductIdOrder() {
+        // ARRANGE
+        CachedCart cart = CachedCart.of(Arrays.asList(new ProductDetails(10, 1), new ProductDetails(30, 3)));
+
+        // ACT
+        CachedCart changed = cart.with(20, 2).with(30, 4).without(10).with(40, 0);
+
+        // ASSERT
+        assertEquals(2, changed.size());
+        assertEquals(0, changed.indexOf(20));
+        assertEquals(1, changed.indexOf(30));
+        assertTrue(changed.indexOf(10) < 0);
+        assertEquals(1, changed.indexAfter(25));
+        assertEquals(2, changed.indexAfter(30));
+        assertEquals(2, cart.size());
+        assertNull(cartStore.findQuantity(TEST_USER_ID, 10));
+    }
+}
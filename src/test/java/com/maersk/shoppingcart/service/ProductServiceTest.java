@@ -0,0 +1,131 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.maersk.shoppingcart.dto.ProductView;
+import com.maersk.shoppingcart.entity.Product;
+import com.maersk.shoppingcart.jpa.ProductRepository;
+import com.maersk.shoppingcart.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test"})
+class ProductServiceTest {
+
+    private static final Integer TEST_PRODUCT_ID = 10;
+    private static final long TEST_COST = Money.of("25.5");
+
+    @MockBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        productService.evictAllProducts();
+    }
+
+    @Test
+    void testGetProductById_RepeatedLookupServedFromCache() {
+        // ARRANGE
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(createProductById(TEST_PRODUCT_ID, TEST_COST));
+        double hits = cacheGets("hit");
+
+        // ACT
+        ProductView first = productService.getProductById(TEST_PRODUCT_ID);
+        ProductView product = productService.getProductById(TEST_PRODUCT_ID);
+
+        // ASSERT
+        assertSame(first, product);
+        assertEquals(TEST_COST, product.getCost());
+        assertEquals(hits + 1, cacheGets("hit"));
+        verify(productRepository, times(1)).findById(TEST_PRODUCT_ID);
+    }
+
+    @Test
+    void testGetProductById_UnknownProductIsNotCached() {
+        // ACT
+        assertNull(productService.getProductById(TEST_PRODUCT_ID));
+        assertNull(productService.getProductById(TEST_PRODUCT_ID));
+
+        // ASSERT
+        verify(productRepository, times(2)).findById(TEST_PRODUCT_ID);
+    }
+
+    @Test
+    void testEvictProduct_LookupBeforeCommitDoesNotKeepOldCost() {
+        // ARRANGE
+        AtomicLong committedCost = new AtomicLong(TEST_COST);
+        when(productRepository.findById(TEST_PRODUCT_ID))
+                .thenAnswer(invocation -> createProductById(TEST_PRODUCT_ID, committedCost.get()));
+        productService.getProductById(TEST_PRODUCT_ID);
+
+        // ACT
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // cost is changed outside of the service, then the product is evicted within the same transaction
+            productService.evictProduct(TEST_PRODUCT_ID);
+            // another request looks the product up while the new cost is not committed yet
+            productService.getProductById(TEST_PRODUCT_ID);
+            committedCost.set(2 * TEST_COST);
+        });
+        ProductView product = productService.getProductById(TEST_PRODUCT_ID);
+
+        // ASSERT
+        assertEquals(2 * TEST_COST, product.getCost());
+    }
+
+    @Test
+    void testEvictProduct_NextLookupSeesNewCost() {
+        // ARRANGE
+        when(productRepository.findById(TEST_PRODUCT_ID))
+                .thenReturn(createProductById(TEST_PRODUCT_ID, TEST_COST))
+                .thenReturn(createProductById(TEST_PRODUCT_ID, 2 * TEST_COST));
+        productService.getProductById(TEST_PRODUCT_ID);
+
+        // ACT
+        productService.evictProduct(TEST_PRODUCT_ID);
+        ProductView product = productService.getProductById(TEST_PRODUCT_ID);
+
+        // ASSERT
+        assertEquals(2 * TEST_COST, product.getCost());
+        verify(productRepository, times(2)).findById(TEST_PRODUCT_ID);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "products").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private Optional<Product> createProductById(Integer productId, long cost) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setCost(cost);
+        return Optional.of(product);
+    }
+}
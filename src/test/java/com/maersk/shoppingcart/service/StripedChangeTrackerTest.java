@@ -0,0 +1,91 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Changes outside of a transaction complete right away, a transaction is simulated by activating synchronization
+ *
+ * @author Sumit Kumar
+ */
+class StripedChangeTrackerTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final Integer TEST_OTHER_USER_ID = 2;
+
+    private final StripedChangeTracker changes = new StripedChangeTracker();
+    private final ConcurrentMap<Integer, Integer> values = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testMayCache_LoadOverlappingCompletedChangeNotCached() {
+        // ARRANGE
+        long load = changes.beginLoad(TEST_USER_ID);
+
+        // ACT
+        changes.onChange(values, TEST_USER_ID, null);
+
+        // ASSERT
+        assertFalse(changes.mayCache(TEST_USER_ID, load));
+        assertTrue(changes.mayCache(TEST_USER_ID, changes.beginLoad(TEST_USER_ID)));
+    }
+
+    @Test
+    void testBeginLoad_NotCacheableWhileChangeInFlight() {
+        // ARRANGE
+        TransactionSynchronizationManager.initSynchronization();
+        changes.onChange(values, TEST_USER_ID, null);
+
+        // ACT
+        long inFlight = changes.beginLoad(TEST_USER_ID);
+        long otherUser = changes.beginLoad(TEST_OTHER_USER_ID);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // ASSERT
+        assertEquals(StripedChangeTracker.NOT_CACHEABLE, inFlight);
+        assertFalse(changes.mayCache(TEST_USER_ID, inFlight));
+        assertTrue(changes.mayCache(TEST_OTHER_USER_ID, otherUser));
+        assertTrue(changes.beginLoad(TEST_USER_ID) != StripedChangeTracker.NOT_CACHEABLE);
+    }
+
+    @Test
+    void testOnChange_AppliedOnCommitOnlyAndNullDrops() {
+        // ARRANGE
+        values.put(TEST_USER_ID, 5);
+        TransactionSynchronizationManager.initSynchronization();
+        changes.onChange(values, TEST_USER_ID, value -> value + 1);
+
+        // ACT
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        int afterRollback = values.get(TEST_USER_ID);
+        changes.onChange(values, TEST_USER_ID, value -> value + 1);
+        int afterCommit = values.get(TEST_USER_ID);
+        changes.onChange(values, TEST_USER_ID, null);
+
+        // ASSERT
+        assertEquals(5, afterRollback);
+        assertEquals(6, afterCommit);
+        assertFalse(values.containsKey(TEST_USER_ID));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,85 @@
+package com.maersk.shoppingcart.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.maersk.shoppingcart.jpa.UserRepository;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * @author Sumit Kumar
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.profiles.active:test"})
+class UserServiceTest {
+
+    private static final Integer TEST_USER_ID = 1;
+    private static final Integer TEST_SECOND_USER_ID = 2;
+    private static final Integer TEST_UNKNOWN_USER_ID = 3;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void testUserExists_SeededUsersAnsweredFromIndex() {
+        // ARRANGE
+        when(userRepository.findAllUserIds()).thenReturn(Arrays.asList(TEST_USER_ID, TEST_SECOND_USER_ID));
+        userService.reloadUserIndex();
+
+        // ACT & ASSERT
+        assertTrue(userService.userExists(TEST_USER_ID));
+        assertTrue(userService.userExists(TEST_SECOND_USER_ID));
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void testUserExists_UnknownUserIsNegativelyCached() {
+        // ARRANGE
+        userService.reloadUserIndex();
+
+        // ACT & ASSERT
+        assertFalse(userService.userExists(TEST_UNKNOWN_USER_ID));
+        assertFalse(userService.userExists(TEST_UNKNOWN_USER_ID));
+        verify(userRepository, times(1)).existsById(TEST_UNKNOWN_USER_ID);
+    }
+
+    @Test
+    void testUserExists_UserAddedAfterStartupIsIndexedOnFirstLookup() {
+        // ARRANGE
+        userService.reloadUserIndex();
+        when(userRepository.existsById(TEST_USER_ID)).thenReturn(true);
+
+        // ACT & ASSERT
+        assertTrue(userService.userExists(TEST_USER_ID));
+        assertTrue(userService.userExists(TEST_USER_ID));
+        verify(userRepository, times(1)).existsById(TEST_USER_ID);
+    }
+
+    @Test
+    void testRegisterUser_ClearsNegativeCacheEntry() {
+        // ARRANGE
+        userService.reloadUserIndex();
+        assertFalse(userService.userExists(TEST_UNKNOWN_USER_ID));
+
+        // ACT
+        userService.registerUser(TEST_UNKNOWN_USER_ID);
+
+        // ASSERT
+        assertTrue(userService.userExists(TEST_UNKNOWN_USER_ID));
+        verify(userRepository, times(1)).existsById(TEST_UNKNOWN_USER_ID);
+    }
+}